@@ -0,0 +1,8 @@
+package exception;
+
+@SuppressWarnings("serial")
+public class InvalidInequalityException extends Exception {
+	
+	public InvalidInequalityException(String message) {super(message);}
+
+}
@@ -0,0 +1,46 @@
+package formulation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import exception.UnknownCommandException;
+import exception.UnknownVariableName;
+
+/**
+ * Representation of a polytope by a formulation whose constraints are generated in a ConstraintBuilder.
+ *
+ * Each constraint is sent to the .ieq file (or to the list of sparse rows) as soon as it is emitted, so that the string which contains
+ * all the constraints is only built if getConstraints() is called.
+ * @author zach
+ *
+ */
+public abstract class AbstractBuilderFormulation extends AbstractFormulation{
+
+	public AbstractBuilderFormulation() throws UnknownCommandException, IOException, InterruptedException{
+		super();
+	}
+
+	/**
+	 * Generate the constraints of the formulation in a builder, which sends each of them to its sink as soon as it is emitted
+	 * @param builder
+	 * @throws UnknownVariableName If a term refers to a variable which is not registered
+	 */
+	public abstract void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName;
+
+	/**
+	 * Get the constraints generated by generateConstraints(), one per line
+	 */
+	@Override
+	public final String getConstraints() throws UnknownVariableName {
+
+		StringWriter sw = new StringWriter();
+		generateConstraints(new ConstraintBuilder(ConstraintSink.toWriter(sw)));
+
+		return sw.toString();
+	}
+
+	@Override
+	void generateConstraints(ConstraintSink sink) throws UnknownVariableName {
+		generateConstraints(new ConstraintBuilder(sink));
+	}
+}
@@ -4,12 +4,20 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Map.Entry;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import exception.InvalidIEQFileFormatException;
+import exception.InvalidPOIFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import utils.Command;
+import utils.StageProfiler;
 
 /**
  * Representation of a polytope by its formulation
@@ -18,6 +26,9 @@ import utils.Command;
  */
 public abstract class AbstractFormulation extends AbstractPolytope{
 
+	/** True if the facets are computed independently for each block of the formulation (see BlockDecomposition) */
+	boolean decomposeIntoBlocks = false;
+
 	/**
 	 * At the creation of a formulation, check that the required commands are visible
 	 * @throws UnknownCommandException
@@ -28,7 +39,225 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 		super();
 	}
 
+	/**
+	 * Get the constraints of the formulation, one per line.
+	 * A formulation which generates many constraints can extend AbstractBuilderFormulation instead to avoid building the whole string.
+	 * @return A string which contains the constraints of the formulation
+	 * @throws UnknownVariableName
+	 */
 	public abstract String getConstraints() throws UnknownVariableName;
+
+	/**
+	 * Send the constraints of the formulation to a sink (e.g., the .ieq file or a list of sparse rows).
+	 * By default, the constraints returned by getConstraints() are sent.
+	 * @param sink
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException If the constraints returned by getConstraints() cannot be parsed
+	 */
+	void generateConstraints(ConstraintSink sink) throws UnknownVariableName, InvalidIEQFileFormatException {
+		sink.add(getConstraints());
+	}
+
+	/**
+	 * Get the constraints of the formulation as sparse rows.
+	 * The constraints are generated by one thread at a time since several stages of an AnalysisPipeline can require them concurrently.
+	 * @return The constraints generated by the formulation
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public synchronized List<LinearConstraint> getConstraintRows() throws UnknownVariableName, InvalidIEQFileFormatException{
+
+		initializeVariables();
+
+		List<LinearConstraint> rows = new ArrayList<>();
+		generateConstraints(ConstraintSink.toList(rows));
+
+		return rows;
+	}
+
+	/**
+	 * Classify the constraints of the formulation as facet-defining, valid but not facet-defining or equations of I(P)
+	 * @return One line per constraint which contains its classification and the dimension of its face
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public String certifyConstraints() throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+		return certificationReport(certify(getConstraintRows()));
+	}
+
+	@Override
+	protected List<LinearConstraint> getOrderingConstraints(){
+
+		try {
+			return getConstraintRows();
+		} catch (UnknownVariableName | InvalidIEQFileFormatException e) {
+			System.err.println("Error: unable to read the constraints of the formulation (" + e.getMessage() + "), the variables are ordered from the integer points");
+			return null;
+		}
+	}
+
+	/**
+	 * Enable or disable the block decomposition.
+	 * If enabled and if the constraints of the formulation can be split into independent blocks of variables, the integer points and the facets
+	 * are computed in parallel for each block. The integer points of the whole formulation (i.e., the Cartesian product of the blocks points)
+	 * are never generated.
+	 * @param decomposeIntoBlocks
+	 */
+	public void setBlockDecomposition(boolean decomposeIntoBlocks) {
+		this.decomposeIntoBlocks = decomposeIntoBlocks;
+	}
+
+	@Override
+	public void writeFacetsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+
+		profiler.reset();
+
+		if(decomposeIntoBlocks && computeIPFacetsByBlocks()) {
+
+			String outputTrafFile = sTmpPOIFile + ".ieq";
+
+			System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
+			convertIEQFile(outputTrafFile, outputFile, true);
+
+			if(computeIncidence)
+				writeIncidenceMatrix(outputTrafFile, outputFile + ".incidence");
+
+			printProfile();
+		}
+		else
+			super.writeFacetsInFile(outputFile);
+	}
+
+	/**
+	 * Compute the facets of the integer polytope by decomposing the formulation into independent blocks.
+	 * The facets are written in sTmpPOIFile + ".ieq".
+	 * @return True if the facets have been computed; false if the formulation contains only one block or if an error occurred
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 */
+	protected boolean computeIPFacetsByBlocks() throws UnknownVariableName, InvalidIEQFileFormatException {
+
+		BlockDecomposition decomposition = getBlockDecomposition();
+
+		if(decomposition == null)
+			return false;
+
+		int[] lowerBounds = variables.getLowerBounds();
+		int[] upperBounds = variables.getUpperBounds();
+
+		System.out.println("=== Decompose the formulation into " + decomposition.getBlocksNb() + " independent blocks");
+
+		int threadsNb = Math.min(decomposition.getBlocksNb(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threadsNb);
+		List<Future<List<LinearConstraint>>> blocksFacets = new ArrayList<>();
+
+		for(int b = 0; b < decomposition.getBlocksNb(); b++) {
+			final int blockId = b + 1;
+			final BlockDecomposition.Block block = decomposition.getBlocks().get(b);
+			blocksFacets.add(executor.submit(() -> computeBlockFacets(block, blockId, block.toLocal(lowerBounds), block.toLocal(upperBounds))));
+		}
+
+		List<LinearConstraint> facets = new ArrayList<>();
+
+		try {
+			for(Future<List<LinearConstraint>> blockFacets: blocksFacets) {
+				List<LinearConstraint> result = blockFacets.get();
+
+				/* If a block does not contain any integer point, neither does the formulation */
+				if(result == null) {
+					System.err.println("Error: a block of the formulation does not contain any integer point, the block decomposition is not used");
+					return false;
+				}
+
+				facets.addAll(result);
+			}
+
+			PortaFiles.writeConstraints(sTmpPOIFile + ".ieq", variables.size(), null, null, facets);
+
+		} catch (InterruptedException | ExecutionException | IOException e) {
+			System.err.println("Error: unable to compute the facets of the blocks: " + e.getMessage());
+			return false;
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decompose the formulation into independent blocks
+	 * @return The decomposition; null if the bounds of the variables are not integer or if the formulation contains only one block
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 */
+	BlockDecomposition getBlockDecomposition() throws UnknownVariableName, InvalidIEQFileFormatException {
+
+		initializeVariables();
+
+		if(!variables.hasIntegerBounds())
+			return null;
+
+		BlockDecomposition decomposition = BlockDecomposition.fromConstraints(variables.size(), getConstraintRows());
+
+		return decomposition.getBlocksNb() < 2 ? null : decomposition;
+	}
+
+	/**
+	 * Compute the integer points and the facets of one block of the formulation
+	 * @param block The block
+	 * @param blockId Id of the block (used to name its files)
+	 * @param lowerBounds Lower bound of each variable of the block
+	 * @param upperBounds Upper bound of each variable of the block
+	 * @return The facets of the block expressed with the original porta ids; null if the block does not contain any integer point
+	 * @throws IOException
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 */
+	private List<LinearConstraint> computeBlockFacets(BlockDecomposition.Block block, int blockId, int[] lowerBounds, int[] upperBounds) throws IOException, InvalidIEQFileFormatException, InvalidPOIFileFormatException{
+
+		List<LinearConstraint> facets = new ArrayList<>();
+
+		/* If the block is a variable which does not appear in any constraint, its facets are its bounds */
+		if(block.constraints.size() == 0) {
+
+			for(int i = 0; i < block.size(); i++) {
+				int[] id = {block.variables[i]};
+
+				if(lowerBounds[i] > upperBounds[i])
+					return null;
+				else if(lowerBounds[i] == upperBounds[i])
+					facets.add(new LinearConstraint(id, new long[] {1}, LinearConstraint.Sense.EQ, lowerBounds[i]));
+				else {
+					facets.add(new LinearConstraint(id, new long[] {-1}, LinearConstraint.Sense.LE, -lowerBounds[i]));
+					facets.add(new LinearConstraint(id, new long[] {1}, LinearConstraint.Sense.LE, upperBounds[i]));
+				}
+			}
+
+			return facets;
+		}
+
+		String blockIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + "_block" + blockId + ".ieq";
+		String blockPOIFile = blockIEQFile.replace(".ieq", ".poi");
+
+		PortaFiles.writeConstraints(blockIEQFile, block.size(), lowerBounds, upperBounds, block.constraints);
+
+		System.out.println("=== Extract the integer points of block " + blockId + " (" + block.size() + " variables, " + block.constraints.size() + " constraints, output: " + blockPOIFile + ")");
+		runVint(blockIEQFile);
+
+		if(PortaFiles.readPoints(blockPOIFile).size() == 0)
+			return null;
+
+		System.out.println("=== Get the facets of block " + blockId + " (output: " + blockPOIFile + ".ieq)");
+		runTraf(blockPOIFile);
+
+		for(LinearConstraint facet: PortaFiles.readConstraints(blockPOIFile + ".ieq"))
+			facets.add(block.toOriginal(facet));
+
+		return facets;
+	}
 	
 	/**
 	 * Generate the formulation in the default file
@@ -41,16 +270,21 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	}
 
 	public String generateFormulation(String ieqFile) throws UnknownVariableName{
-		generateFormulation(ieqFile, true);
+
+		try(StageProfiler.Measure measure = profiler.start("generate formulation", variables.size())) {
+			generateFormulation(ieqFile, true);
+			measure.output(ieqFile).input(ieqFile);
+		}
+
 		return ieqFile;
 	}
 
-	/** Generate the formulation in a specified file
+	/** Generate the formulation in a specified file (by one thread at a time, see getConstraintRows())
 	 * @param ieqFile The considered file
 	 * @param duplicateBoundsInConstrains True if the upper and lower bounds of the variables are specified in the section INEQUALITIES_SECTION (they will always appear in LOWER_BOUNDS and UPPER_BOUNDS) (usefull as bounds seem to be ignored when using traf on an ieq file) 
 	 * @throws UnknownVariableName
 	 */
-	public void generateFormulation(String ieqFile, boolean duplicateBoundsInConstrains) throws UnknownVariableName{
+	public synchronized void generateFormulation(String ieqFile, boolean duplicateBoundsInConstrains) throws UnknownVariableName{
 
 		File tmpFile = new File(ieqFile);
 
@@ -77,7 +311,7 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 			bw.write("\n\nUPPER_BOUNDS\n");
 			bw.write(getUpperBound());
 			bw.write("\n\nINEQUALITIES_SECTION\n");
-			bw.write(getConstraints());
+			generateConstraints(ConstraintSink.toWriter(bw));
 			
 			if(duplicateBoundsInConstrains)
 				bw.write(getBoundsConstraints());
@@ -88,7 +322,7 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 			bw.flush();
 			bw.close();
 
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException | InvalidIEQFileFormatException e) {
 			e.printStackTrace();
 		}
 
@@ -103,25 +337,12 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	 */
 	public String getLowerBound(){
 
-		String result = "";
-
-		for(Entry<Integer, Variable> entry: variables.entrySet()) {
-
-			if(entry.getValue().lowerBoundDenominator != 1) {
-
-				int lb = entry.getValue().lowerBoundNumerator / entry.getValue().lowerBoundDenominator;
+		StringBuilder result = new StringBuilder();
 
-				if(Math.abs(lb - (entry.getValue().lowerBoundNumerator / entry.getValue().lowerBoundDenominator)) > 0.0001) {				
-					System.err.println("Error: AbstractFormulationGeneration.getLowerBound: this software is currently unable to consider non integer variable bounds");
-					System.err.println("The lower bound of variable \"" + entry.getValue().originalName + "\" is set to " + lb + " instead of " + entry.getValue().lowerBoundNumerator + "/" + entry.getValue().lowerBoundDenominator);
-				}
-
-			}
-			else
-				result += entry.getValue().lowerBoundNumerator + " ";
-		}
+		for(int id = 1; id <= variables.size(); id++)
+			result.append(lowerBound(id)).append(' ');
 
-		return result;
+		return result.toString();
 
 	}
 
@@ -135,27 +356,14 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	 */
 	public String getBoundsConstraints(){
 
-		String result = "";
-
-		for(Entry<Integer, Variable> entry: variables.entrySet()) {
-
-			if(entry.getValue().lowerBoundDenominator != 1) {
+		StringBuilder result = new StringBuilder();
 
-				int lb = entry.getValue().lowerBoundNumerator / entry.getValue().lowerBoundDenominator;
-
-				if(Math.abs(lb - (entry.getValue().lowerBoundNumerator / entry.getValue().lowerBoundDenominator)) > 0.0001) {				
-					System.err.println("Error: AbstractFormulationGeneration.getLowerBound: this software is currently unable to consider non integer variable bounds");
-					System.err.println("The lower bound of variable \"" + entry.getValue().originalName + "\" is set to " + lb + " instead of " + entry.getValue().lowerBoundNumerator + "/" + entry.getValue().lowerBoundDenominator);
-				}
-
-			}
-			else {
-				result += "\nx" + entry.getKey() + " >= " + entry.getValue().lowerBoundNumerator;
-				result += "\nx" + entry.getKey() + " <= " + entry.getValue().upperBoundNumerator + "\n";
-			}
+		for(int id = 1; id <= variables.size(); id++) {
+			result.append("\nx").append(id).append(" >= ").append(lowerBound(id));
+			result.append("\nx").append(id).append(" <= ").append(upperBound(id)).append('\n');
 		}
 
-		return result;
+		return result.toString();
 
 	}
 
@@ -167,26 +375,51 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	 */
 	public String getUpperBound(){
 
-		String result = "";
+		StringBuilder result = new StringBuilder();
 
-		for(Entry<Integer, Variable> entry: variables.entrySet()) {
+		for(int id = 1; id <= variables.size(); id++)
+			result.append(upperBound(id)).append(' ');
 
-			if(entry.getValue().upperBoundDenominator != 1) {
+		return result.toString();
 
-				int ub = entry.getValue().upperBoundNumerator / entry.getValue().upperBoundDenominator;
+	}
 
-				if(Math.abs(ub - (entry.getValue().upperBoundNumerator / entry.getValue().upperBoundDenominator)) > 0.0001) {	
-					System.err.println("Error: AbstractFormulationGeneration.getUpperBound: this software is currently unable to consider non integer variable bounds");
-					System.err.println("The upper bound of variable \"" + entry.getValue().originalName + "\" is set to " + ub + " instead of " + entry.getValue().upperBoundNumerator + "/" + entry.getValue().upperBoundDenominator);
-				}
+	/**
+	 * Get the integer lower bound of a variable (rounded up if its bound is not integer)
+	 * @param id Id of the variable in porta
+	 * @return
+	 */
+	private int lowerBound(int id) {
 
-			}
-			else
-				result += entry.getValue().upperBoundNumerator + " ";
+		int numerator = variables.getLowerBoundNumerator(id);
+		int denominator = variables.getLowerBoundDenominator(id);
+		int lb = -Math.floorDiv(-numerator, denominator);
+
+		if(numerator % denominator != 0) {
+			System.err.println("Error: AbstractFormulationGeneration.getLowerBound: this software is currently unable to consider non integer variable bounds");
+			System.err.println("The lower bound of variable \"" + variables.get(id).originalName + "\" is set to " + lb + " instead of " + numerator + "/" + denominator);
 		}
 
-		return result;
+		return lb;
+	}
+
+	/**
+	 * Get the integer upper bound of a variable (rounded down if its bound is not integer)
+	 * @param id Id of the variable in porta
+	 * @return
+	 */
+	private int upperBound(int id) {
 
+		int numerator = variables.getUpperBoundNumerator(id);
+		int denominator = variables.getUpperBoundDenominator(id);
+		int ub = Math.floorDiv(numerator, denominator);
+
+		if(numerator % denominator != 0) {
+			System.err.println("Error: AbstractFormulationGeneration.getUpperBound: this software is currently unable to consider non integer variable bounds");
+			System.err.println("The upper bound of variable \"" + variables.get(id).originalName + "\" is set to " + ub + " instead of " + numerator + "/" + denominator);
+		}
+
+		return ub;
 	}
 
 	/**
@@ -211,12 +444,10 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	}
 
 	public void setLBound(String varOriginalName, Integer lboundNumerator, Integer lboundDenominator) {
-		Integer portaId = variablesBis.get(varOriginalName);
+		int portaId = variables.getId(varOriginalName);
 
-		if(portaId != null) {
-			variables.get(portaId).lowerBoundNumerator = lboundNumerator;
-			variables.get(portaId).lowerBoundDenominator = lboundDenominator;
-		}
+		if(portaId != -1)
+			variables.setLowerBound(portaId, lboundNumerator, lboundDenominator);
 	}
 
 	public void setUBound(String varOriginalName, Integer ubound) {
@@ -224,12 +455,10 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	}
 
 	public void setUBound(String varOriginalName, Integer uboundNumerator, Integer uboundDenominator) {
-		Integer portaId = variablesBis.get(varOriginalName);
+		int portaId = variables.getId(varOriginalName);
 
-		if(portaId != null) {
-			variables.get(portaId).upperBoundNumerator = uboundNumerator;
-			variables.get(portaId).upperBoundDenominator = uboundDenominator;
-		}
+		if(portaId != -1)
+			variables.setUpperBound(portaId, uboundNumerator, uboundDenominator);
 	}
 
 	public void generateIntegerPoints() throws UnknownVariableName, InvalidIEQFileFormatException {
@@ -237,18 +466,106 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 		System.out.println("=== Generate the formulation (output: " + sTmpIEQFile + ")");
 		generateFormulation(sTmpIEQFile);
 
-		System.out.println("=== Extract the integer points (input: " + sTmpIEQFile + ", output: " + sTmpPOIFile + ")");
-		vint(sTmpIEQFile);
-		
+		FixedVariablesReduction reduction = null;
+
+		if(eliminateFixedVariables)
+			reduction = reduceFormulationFile();
+
+		if(reduction == null) {
+			System.out.println("=== Extract the integer points (input: " + sTmpIEQFile + ", output: " + sTmpPOIFile + ")");
+			runVint(sTmpIEQFile);
+		}
+		else {
+			System.out.println("=== Extract the integer points (input: " + sTmpReducedIEQFile + ", output: " + sTmpReducedPOIFile + ")");
+			runVint(sTmpReducedIEQFile);
+
+			try {
+				List<int[]> points = new ArrayList<>();
+
+				for(int[] reducedPoint: PortaFiles.readPoints(sTmpReducedPOIFile))
+					points.add(reduction.expand(reducedPoint));
+
+				PortaFiles.writePoints(sTmpPOIFile, variables.size(), points);
+
+			} catch (IOException | InvalidPOIFileFormatException e) {
+				System.err.println("Error: unable to express the integer points in the original space (" + e.getMessage() + "), the fixed variables are not eliminated");
+				runVint(sTmpIEQFile);
+			}
+		}
+
+		integerPointsRewritten();
+	}
+
+	/**
+	 * Substitute the variables whose lower bound is equal to their upper bound in the formulation file sTmpIEQFile.
+	 * The reduced formulation is written in sTmpReducedIEQFile.
+	 * @return The reduction; null if no variable is fixed or if an error occurred
+	 */
+	protected FixedVariablesReduction reduceFormulationFile() {
+
+		/* The bounds are not written by porta-java if they are not integer */
+		if(!variables.hasIntegerBounds())
+			return null;
+
+		int[] lowerBounds = variables.getLowerBounds();
+		int[] upperBounds = variables.getUpperBounds();
+
+		FixedVariablesReduction reduction = FixedVariablesReduction.fromBounds(lowerBounds, upperBounds);
+
+		if(reduction.isTrivial() || reduction.getReducedDimension() == 0)
+			return null;
+
+		try {
+			List<LinearConstraint> reducedConstraints = new ArrayList<>();
+
+			for(LinearConstraint constraint: PortaFiles.readConstraints(sTmpIEQFile)) {
+				LinearConstraint reducedConstraint = reduction.reduce(constraint);
+
+				/* If all the variables of the constraint are fixed */
+				if(reducedConstraint.ids.length == 0) {
+					if(!reducedConstraint.isSatisfied(new int[0])) {
+						System.err.println("Error: constraint \"" + constraint + "\" is violated by the fixed variables, the fixed variables are not eliminated");
+						return null;
+					}
+				}
+				else
+					reducedConstraints.add(reducedConstraint);
+			}
+
+			PortaFiles.writeConstraints(sTmpReducedIEQFile, reduction.getReducedDimension(), reduction.reduce(lowerBounds), reduction.reduce(upperBounds), reducedConstraints);
+
+			System.out.println("=== Eliminate " + reduction.getFixedVariablesNb() + " fixed variable(s) (dimension: " + variables.size() + " -> " + reduction.getReducedDimension() + ", output: " + sTmpReducedIEQFile + ")");
+
+		} catch (IOException | InvalidIEQFileFormatException e) {
+			System.err.println("Error: unable to eliminate the fixed variables: " + e.getMessage());
+			reduction = null;
+		}
+
+		return reduction;
+	}
+
+	/**
+	 * Compute all the integers points for the formulation contained in <inputFile> with the options of the polytope (the result is
+	 * written in the corresponding .poi file)
+	 * @param inputFile Path to the .ieq file which contains the formulation
+	 * @throws InvalidIEQFileFormatException
+	 */
+	protected void runVint(String inputFile) throws InvalidIEQFileFormatException{
+
+		try(StageProfiler.Measure measure = profiler.start("vint", variables.size()).input(inputFile)) {
+			vint(inputFile, portaOptions);
+			measure.output(inputFile.replace(".ieq", ".poi"));
+		}
 	}
 
 	/**
 	 * Compute all the integers points for the formulation contained in <inputFile>.
 	 * @param inputFile Path to the .ieq file which contains the formulation
+	 * @param options Options of vint
 	 * @throws InvalidIEQFileFormatException 
 	 */
-	private static void vint(String inputFile) throws InvalidIEQFileFormatException{
-		String result = Command.execute("vint " + inputFile);
+	private static void vint(String inputFile, PortaOptions options) throws InvalidIEQFileFormatException{
+		String result = Command.execute("vint " + options.vintArguments() + inputFile);
 
 		String[] sResult = result.split("number of valid integral points");
 
@@ -10,6 +10,7 @@ import java.util.List;
 import exception.InvalidIEQFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
+import utils.StageProfiler;
 
 /**
  * Representation of a polytope by its integer points (i.e., feasible integer solutions)
@@ -41,7 +42,13 @@ public abstract class AbstractIntegerPoints extends AbstractPolytope{
 	 * @throws UnknownVariableName
 	 */
 	public void writeIntegerPointsInDefaultFile() throws UnknownVariableName{
-		writeIntegerPointsInFile(sTmpPOIFile);
+
+		try(StageProfiler.Measure measure = profiler.start("generate points", variables.size())) {
+			writeIntegerPointsInFile(sTmpPOIFile);
+			measure.output(sTmpPOIFile);
+		}
+
+		integerPointsRewritten();
 	}
 
 	/** Generate the integer points file in a specified location
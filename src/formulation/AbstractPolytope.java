@@ -2,22 +2,40 @@ package formulation;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import exception.InvalidIEQFileFormatException;
+import exception.InvalidInequalityException;
+import exception.InvalidPOIFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import utils.Command;
+import utils.IntArrayHashSet;
+import utils.Rational;
+import utils.StageProfiler;
 import utils.Utility;
 
 /**
@@ -30,11 +48,8 @@ import utils.Utility;
  */
 public abstract class AbstractPolytope {
 
-	/** Hashmap which contains all the variables indexed by their id in porta */
-	protected HashMap<Integer, Variable> variables = new HashMap<>();
-
-	/** Hashmap which contains all id in porta indexed by their original name */
-	protected HashMap<String, Integer> variablesBis = new HashMap<>();
+	/** Variables indexed by their id in porta and by their original name */
+	protected VariableRegistry variables = new VariableRegistry();
 
 	String sTmpFolder = "./.tmp";
 	String sTmpFileCanonicName = "tmp";
@@ -43,6 +58,68 @@ public abstract class AbstractPolytope {
 	public String sTmpConvertedFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi.ieq_converted";
 	public String sTmpConvertedIntegerPointsFile =  sTmpPOIFile + "_converted";
 	public String sTmpIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + ".ieq";
+	public String sTmpReducedPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_reduced.poi";
+	public String sTmpReducedIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + "_reduced.ieq";
+	public String sTmpProjectedPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_projected.poi";
+	public String sTmpFacePOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_face.poi";
+	public String sTmpSamplePOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_sample.poi";
+	public String sTmpAnytimeFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + "_anytime_facets.ieq";
+	public String sTmpRelaxationIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + "_relaxation.ieq";
+	public String sTmpConvertedFaceFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + "_face.poi.ieq_converted";
+
+	/** Number of integer points in the first sample of the anytime facet discovery (the size of the sample is doubled at each round) */
+	public static int anytimeInitialSampleSize = 200;
+
+	/** Default memory limit of the enumeration of the faces of I(P) (in bytes, see getFaceLattice()) */
+	public static long faceLatticeMaxMemory = 1L << 30;
+
+	/** Integer points of the polytope (null until they are read by getIntegerPointsList()) */
+	List<int[]> cachedIntegerPoints = null;
+
+	/** Separator of the integer points (null until it is created by separateFacet()) */
+	FacetSeparator separator = null;
+
+	/** Certifier of the inequalities (null until it is created by getCertifier()) */
+	FacetCertifier certifier = null;
+
+	/** True if sTmpPOIFile contains the integer points generated by the last call to generateIntegerPoints() */
+	boolean integerPointsGenerated = false;
+
+	/** True if the fixed variables are projected out of the files given to porta (see FixedVariablesReduction) */
+	boolean eliminateFixedVariables = false;
+
+	/** True if traf is applied on the integer points expressed in a lattice basis of their affine hull (see AffineHullReduction) */
+	boolean reduceToAffineHull = false;
+
+	/** True if the integer points which are not vertices of I(P) are removed before calling traf (see InteriorPointFilter) */
+	boolean filterInteriorPoints = false;
+
+	/** Heuristic used to renumber the variables before calling traf (see VariableOrdering) */
+	VariableOrdering.Heuristic variableOrdering = VariableOrdering.Heuristic.REGISTRATION;
+
+	/** Options given to the porta commands */
+	PortaOptions portaOptions = new PortaOptions();
+
+	/** True if the traf options are tuned on a sample of the integer points before each computation of facets (see PortaOptions.tune()) */
+	boolean tunePortaOptions = false;
+
+	/** Number of the signal sent to a process on an arithmetic error (e.g., an integer division by zero) */
+	static final int SIGFPE = 8;
+
+	/** True if traf is run again with the multiprecision arithmetic when the normal arithmetic fails (see MultiprecisionRegistry) */
+	boolean multiprecisionFallback = true;
+
+	/** Inputs which required the multiprecision arithmetic (by default, the registry of the temporary folder) */
+	MultiprecisionRegistry multiprecisionRegistry = MultiprecisionRegistry.ofFolder(sTmpFolder);
+
+	/** True if the incidences between the integer points and the facets are computed after each computation of the facets of I(P) */
+	boolean computeIncidence = false;
+
+	/** Incidences of the last computation of the facets of I(P) (null until they are computed) */
+	IncidenceMatrix incidence = null;
+
+	/** Time spent in each stage of the analyses (see StageProfiler) */
+	StageProfiler profiler = new StageProfiler();
 	
 	NumberFormat nf = new DecimalFormat("#0.00");
 
@@ -53,15 +130,147 @@ public abstract class AbstractPolytope {
 		Command.checkCommand("dim");
 	}
 
+	/**
+	 * Set the folder of the temporary files (useful to analyze several polytopes concurrently)
+	 * @param tmpFolder Path of the folder
+	 */
+	public void setTmpFolder(String tmpFolder) {
+		setTmpFolder(tmpFolder, tmpFolder + "/" + MultiprecisionRegistry.REGISTRY_FILE_NAME);
+	}
+
+	/**
+	 * Set the folder of the temporary files and the multiprecision registry (useful to share a registry between temporary folders)
+	 * @param tmpFolder Path of the folder
+	 * @param registryFile Path of the multiprecision registry file (see setMultiprecisionRegistry())
+	 */
+	public void setTmpFolder(String tmpFolder, String registryFile) {
+
+		sTmpFolder = tmpFolder;
+		clearIntegerPointsCaches();
+		integerPointsGenerated = false;
+		multiprecisionRegistry = MultiprecisionRegistry.get(registryFile);
+		sTmpPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi";
+		sTmpConvertedPOIFile = sTmpPOIFile + "_converted";
+		sTmpConvertedFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi.ieq_converted";
+		sTmpConvertedIntegerPointsFile =  sTmpPOIFile + "_converted";
+		sTmpIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + ".ieq";
+		sTmpReducedPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_reduced.poi";
+		sTmpReducedIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + "_reduced.ieq";
+		sTmpProjectedPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_projected.poi";
+		sTmpFacePOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_face.poi";
+		sTmpSamplePOIFile = sTmpFolder + "/" + sTmpFileCanonicName + "_sample.poi";
+		sTmpAnytimeFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + "_anytime_facets.ieq";
+		sTmpRelaxationIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + "_relaxation.ieq";
+		sTmpConvertedFaceFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + "_face.poi.ieq_converted";
+	}
+
+	/**
+	 * Enable or disable the elimination of the fixed variables.
+	 * If enabled, the variables which have the same value in all the integer points (or whose bounds are equal) are removed before calling porta.
+	 * The results are expressed in the original space (the fixed values appear as equations in the facets).
+	 * @param eliminateFixedVariables
+	 */
+	public void setFixedVariablesElimination(boolean eliminateFixedVariables) {
+		this.eliminateFixedVariables = eliminateFixedVariables;
+	}
+
+	/**
+	 * Enable or disable the reduction to the affine hull.
+	 * If enabled and if I(P) is not full-dimensional, traf is applied in the intrinsic dimension of I(P) and the facets are
+	 * expressed in the original space in a canonical form (see AffineHullReduction.canonicalize()).
+	 * This reduction includes the elimination of the fixed variables.
+	 * @param reduceToAffineHull
+	 */
+	public void setAffineHullReduction(boolean reduceToAffineHull) {
+		this.reduceToAffineHull = reduceToAffineHull;
+	}
+
+	/**
+	 * Enable or disable the filtering of the interior points.
+	 * If enabled, the integer points which are proved not to be vertices of I(P) are removed before calling traf (this is mainly useful
+	 * when the variables are not binary).
+	 * @param filterInteriorPoints
+	 */
+	public void setInteriorPointFiltering(boolean filterInteriorPoints) {
+		this.filterInteriorPoints = filterInteriorPoints;
+	}
+
+	/**
+	 * Set the heuristic used to renumber the variables before calling traf.
+	 * The facets are always expressed with the registration order of the variables.
+	 * @param heuristic
+	 */
+	public void setVariableOrdering(VariableOrdering.Heuristic heuristic) {
+		this.variableOrdering = heuristic;
+	}
+
+	/**
+	 * Set the options given to traf, vint and dim
+	 * @param options
+	 */
+	public void setPortaOptions(PortaOptions options) {
+		this.portaOptions = options;
+	}
+
+	/**
+	 * Enable or disable the tuning of the traf options.
+	 * If enabled, the traf options (elimination heuristic and rule of Chernikov) are chosen before each computation of facets by
+	 * timing traf on a sample of the integer points.
+	 * @param tunePortaOptions
+	 */
+	public void setPortaOptionsTuning(boolean tunePortaOptions) {
+		this.tunePortaOptions = tunePortaOptions;
+	}
+
+	/**
+	 * Enable or disable the multiprecision fallback.
+	 * If enabled, traf is first run with the normal integer arithmetic and, if an overflow occurs, it is run again with the multiprecision
+	 * arithmetic. The inputs which required the multiprecision arithmetic are recorded so that it is directly used in the next runs.
+	 * @param multiprecisionFallback
+	 */
+	public void setMultiprecisionFallback(boolean multiprecisionFallback) {
+		this.multiprecisionFallback = multiprecisionFallback;
+	}
+
+	/**
+	 * Set the file in which the inputs which required the multiprecision arithmetic are recorded
+	 * (by default <tmp folder>/multiprecision_registry.txt; setTmpFolder() restores the default)
+	 * @param registryFile Path of the file
+	 */
+	public void setMultiprecisionRegistry(String registryFile) {
+		this.multiprecisionRegistry = MultiprecisionRegistry.get(registryFile);
+	}
+
+	/**
+	 * Enable or disable the computation of the incidences.
+	 * If enabled, each computation of the facets of I(P) by writeFacetsInFile() also computes the incidences between the integer points
+	 * and the facets (see IncidenceMatrix) and writes them in the file <converted facets file>.incidence.
+	 * @param computeIncidence
+	 */
+	public void setIncidenceComputation(boolean computeIncidence) {
+		this.computeIncidence = computeIncidence;
+	}
+
+	/**
+	 * Get the constraints used by the variable ordering heuristics
+	 * @return The constraints of the polytope expressed with the porta ids; null if the polytope is not defined by constraints
+	 */
+	protected List<LinearConstraint> getOrderingConstraints(){
+		return null;
+	}
+
 	/* Create the variables if necessary */
 	protected void initializeVariables(){
 
 		if(variables.size() == 0)
 			createVariables();
 
+		/* The variables of the families are created and indexed now so that the registry is only read afterwards (e.g., by the stages of
+		 * an AnalysisPipeline which run concurrently) */
+		variables.createFamilyVariables();
 	}
 
-	/** Fill the <variables> hashmap. The key of each entry is its index in porta, the value coresponds to the name of the variable */
+	/** Register the variables of the polytope (see registerVariable()), their order gives their index in porta */
 	protected abstract void createVariables();
 
 	/**
@@ -91,37 +300,35 @@ public abstract class AbstractPolytope {
 
 		initializeVariables();
 
-		InputStream ips=new FileInputStream(inputIEQFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
-
-		FileWriter fw = new FileWriter(convertedIEQFile);
-		BufferedWriter bw = new BufferedWriter(fw);
+		/* The measure is closed (and its event committed) even if the conversion fails */
+		try(StageProfiler.Measure measure = profiler.start("convert facets", variables.size()).input(inputIEQFile);
+				BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(inputIEQFile)));
+				BufferedWriter bw = new BufferedWriter(new FileWriter(convertedIEQFile))){
 
-		String ligne;
+			String ligne;
 
-		while ((ligne=br.readLine())!=null){
-			String ligne2 = ligne;
+			while ((ligne=br.readLine())!=null){
+				String ligne2 = ligne;
 
-			if(removeMinuses)
-				ligne2 = removeMinusesInConstraints(ligne);
-			else {
-				ligne2.replaceAll("\\+", " + ");
-				ligne2.replaceAll("-", " - ");
-				ligne2.replaceAll("<", " <");
-				ligne2.replaceAll(">", " >");
-				ligne2.replaceAll("==", " ==");
-
-				ligne2.replaceAll("  ", " ");
-				ligne2.replaceAll("  ", " ");
-			}
+				if(removeMinuses)
+					ligne2 = removeMinusesInConstraints(ligne);
+				else {
+					ligne2.replaceAll("\\+", " + ");
+					ligne2.replaceAll("-", " - ");
+					ligne2.replaceAll("<", " <");
+					ligne2.replaceAll(">", " >");
+					ligne2.replaceAll("==", " ==");
+
+					ligne2.replaceAll("  ", " ");
+					ligne2.replaceAll("  ", " ");
+				}
 			
-			bw.write(replacePortaVariablesInString(ligne2) + "\n");
-			bw.flush();
-		}
+				bw.write(replacePortaVariablesInString(ligne2) + "\n");
+				bw.flush();
+			}
 
-		bw.close();
-		br.close();
+			measure.output(convertedIEQFile);
+		}
 
 	}
 	
@@ -348,119 +555,119 @@ public abstract class AbstractPolytope {
 
 		initializeVariables();
 
-		InputStream ips=new FileInputStream(inputPOIFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
+		/* The measure is closed (and its event committed) even if the conversion fails */
+		try(StageProfiler.Measure measure = profiler.start("convert points", variables.size()).input(inputPOIFile);
+				BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(inputPOIFile)));
+				BufferedWriter bw = new BufferedWriter(new FileWriter(convertedPOIFile))){
 
-		FileWriter fw = new FileWriter(convertedPOIFile);
-		BufferedWriter bw = new BufferedWriter(fw);
+			String line;
 
-		String line;
 
+			/* DecimalFormat is not thread-safe and several stages of a pipeline can convert points concurrently */
+			NumberFormat nf = (NumberFormat)this.nf.clone();
 
-		String convSection = "CONV_SECTION";
-		String coneSection = "CONE_SECTION";
-		String endSection = "END";
-		boolean isInConvSection = false;
-		boolean isInConeSection = false;
+			String convSection = "CONV_SECTION";
+			String coneSection = "CONE_SECTION";
+			String endSection = "END";
+			boolean isInConvSection = false;
+			boolean isInConeSection = false;
 		
-		/* Type of the object read (vector or point) */
-		String objectType ="";
-		int objectNb = 0;
+			/* Type of the object read (vector or point) */
+			String objectType ="";
+			int objectNb = 0;
 		
-		while ((line=br.readLine())!=null){
+			while ((line=br.readLine())!=null){
 
-			line = line.trim();
+				line = line.trim();
 			
-			if(line.contains(convSection)) {
-				isInConvSection = true;
-				isInConeSection = false;
-				objectType = "Point";
-				objectNb = 1;
-			}
-			if(line.contains(coneSection)) {
-				isInConeSection = true;
-				isInConvSection = false;
-				objectType = "Vector";
-				objectNb = 1;
-			}
-			else if(line.contains(endSection)) {
-				isInConvSection = false;
-				isInConeSection = false;
-			}
-			else if(isInConvSection || isInConeSection) {
+				if(line.contains(convSection)) {
+					isInConvSection = true;
+					isInConeSection = false;
+					objectType = "Point";
+					objectNb = 1;
+				}
+				if(line.contains(coneSection)) {
+					isInConeSection = true;
+					isInConvSection = false;
+					objectType = "Vector";
+					objectNb = 1;
+				}
+				else if(line.contains(endSection)) {
+					isInConvSection = false;
+					isInConeSection = false;
+				}
+				else if(isInConvSection || isInConeSection) {
 
-				String []sTemp = line.split("\\)");
+					String []sTemp = line.split("\\)");
 
-				String point = "";
+					String point = "";
 
-				/* If the line contains ')' (e.g., if it starts by "( 1)") */
-				if(sTemp.length > 1)
-					point = sTemp[1];
-				else
-					point = sTemp[0];
+					/* If the line contains ')' (e.g., if it starts by "( 1)") */
+					if(sTemp.length > 1)
+						point = sTemp[1];
+					else
+						point = sTemp[0];
 				
-				point = point.trim().replace("- ", "-");
-				int pSize;
+					point = point.trim().replace("- ", "-");
+					int pSize;
 				
-				do {
-					pSize = point.length();
-					point = point.replace("  ", " ");
+					do {
+						pSize = point.length();
+						point = point.replace("  ", " ");
 					
-				}while(pSize != point.length());
+					}while(pSize != point.length());
 				
-				sTemp = point.split(" ");
+					sTemp = point.split(" ");
 
-				/* If the line corresponds to a point */
-				if(sTemp.length == variables.size()){
+					/* If the line corresponds to a point */
+					if(sTemp.length == variables.size()){
 
-					/* Map which contains for each value in the solution, the name of the variables with this value */
-					HashMap<Double, List<String>> variablesByValue = new HashMap<>();
+						/* Map which contains for each value in the solution, the name of the variables with this value */
+						HashMap<Double, List<String>> variablesByValue = new HashMap<>();
 
-					for(int i = 0 ; i < variables.size() ; i++){
+						for(int i = 0 ; i < variables.size() ; i++){
 						
-						Double value;
+							Double value;
 						
-						if(sTemp[i].contains("/")) {
-							String[] sTemp2 = sTemp[i].split("/");
-							value = Double.parseDouble(sTemp2[0]) / Double.parseDouble(sTemp2[1]);
-						}
-						else
-							value = Double.parseDouble(sTemp[i]);
+							if(sTemp[i].contains("/")) {
+								String[] sTemp2 = sTemp[i].split("/");
+								value = Double.parseDouble(sTemp2[0]) / Double.parseDouble(sTemp2[1]);
+							}
+							else
+								value = Double.parseDouble(sTemp[i]);
 
-						List<String> list = variablesByValue.get(value);
+							List<String> list = variablesByValue.get(value);
 
-						if(list == null){
-							list = new ArrayList<>();
-							variablesByValue.put(value, list);
-						}
+							if(list == null){
+								list = new ArrayList<>();
+								variablesByValue.put(value, list);
+							}
 
-						/* +1 since the variables in porta are indexed starting from 1 */
-						list.add(variables.get(i+1).originalName);
+							/* +1 since the variables in porta are indexed starting from 1 */
+							list.add(variables.get(i+1).originalName);
 
-					}
+						}
 
-					bw.write(objectType  +" n°" + objectNb + "\n");
-					objectNb++;
+						bw.write(objectType  +" n°" + objectNb + "\n");
+						objectNb++;
+
+						for(Entry<Double, List<String>> entry: variablesByValue.entrySet()){
+							if(entry.getKey() != 0 || variablesByValue.entrySet().size() == 1)
+								if(Utility.isInteger(entry.getKey()))
+									bw.write(entry.getValue() + " = " + entry.getKey().intValue() + "\n");
+								else
+									bw.write(entry.getValue() + " = " + nf.format(entry.getKey()) + "\n");
+						}
+						bw.write("\n");
 
-					for(Entry<Double, List<String>> entry: variablesByValue.entrySet()){
-						if(entry.getKey() != 0 || variablesByValue.entrySet().size() == 1)
-							if(Utility.isInteger(entry.getKey()))
-								bw.write(entry.getValue() + " = " + entry.getKey().intValue() + "\n");
-							else
-								bw.write(entry.getValue() + " = " + nf.format(entry.getKey()) + "\n");
 					}
-					bw.write("\n");
+					bw.flush();
 
 				}
-				bw.flush();
-
 			}
-		}
-
-		bw.close();
-		br.close();
 
+			measure.output(convertedPOIFile);
+		}
 	}
 
 	/**
@@ -468,9 +675,36 @@ public abstract class AbstractPolytope {
 	 * @param var
 	 */
 	public void registerVariable(Variable var){
-		int newId = variables.size()+1;
-		variables.put(newId, var);
-		variablesBis.put(var.originalName, newId);
+		variables.register(var);
+	}
+
+	/**
+	 * Register several new variables used in the formulation
+	 * @param vars The variables in the order of their ids
+	 */
+	public void registerVariables(Collection<? extends Variable> vars){
+		variables.registerAll(vars);
+	}
+
+	/**
+	 * Register all the variables of a family, in the order of their cells (e.g., x0_0, x0_1, ..., x1_0, ...)
+	 * @param family
+	 * @param lowerBound
+	 * @param upperBound
+	 */
+	public void registerFamily(VariableFamily family, int lowerBound, int upperBound){
+		variables.registerAll(family, lowerBound, upperBound);
+	}
+
+	/**
+	 * Register one variable of a family (useful if only some of the variables of the family exist)
+	 * @param family
+	 * @param lowerBound
+	 * @param upperBound
+	 * @param indices Indices of the variable in the family
+	 */
+	public void registerVariable(VariableFamily family, int lowerBound, int upperBound, int... indices){
+		variables.register(family, family.cell(indices), lowerBound, upperBound);
 	}
 	
 
@@ -480,7 +714,7 @@ public abstract class AbstractPolytope {
 	 * @return
 	 */
 	public boolean isRegistered(String variableOriginalName) {
-		return variablesBis.get(variableOriginalName) != null;
+		return variables.contains(variableOriginalName);
 	}
 
 
@@ -490,17 +724,15 @@ public abstract class AbstractPolytope {
 	 */
 	protected String getvariablesindex() {
 
-		String result = "\n\n===\nVariable correspondence\n===\n"
-				+ "Porta name\tOriginal name\n---\n";
+		StringBuilder result = new StringBuilder("\n\n===\nVariable correspondence\n===\n"
+				+ "Porta name\tOriginal name\n---\n");
 
-		for(int i = 0; i < variables.size(); i++) {
+		for(int i = 1; i <= variables.size(); i++)
+			result.append('x').append(i).append("\t\t").append(variables.get(i).originalName).append('\n');
 
-			if(variables.get(i) != null)
-				result += "x" + i + "\t\t" + variables.get(i).originalName + "\n";
-		}
-		result += "---";
+		result.append("---");
 
-		return result;
+		return result.toString();
 	}
 
 	/**
@@ -511,14 +743,12 @@ public abstract class AbstractPolytope {
 	 */
 	public String portaName(String variableOriginalName) throws UnknownVariableName{
 
-		Integer id = variablesBis.get(variableOriginalName);
+		int id = variables.getId(variableOriginalName);
 
-		if(id == null)
+		if(id == -1)
 			throw new UnknownVariableName(variableOriginalName);
 
-		String result = "x" + id;
-
-		return result;
+		return "x" + id;
 
 	}
 	
@@ -528,8 +758,18 @@ public abstract class AbstractPolytope {
 	 * @return The porta output which includes the dimension and the including hyperplanes
 	 */
 	protected static String dim(String inputFile){
+		return dim(inputFile, new PortaOptions());
+	}
+
+	/**
+	 * Compute the dimension and the hyperplanes which contains the convex hull of the integer points included in the poi file at <inputFile>.
+	 * @param inputFile Path to the .poi file which contains the formulation
+	 * @param options Options of dim
+	 * @return The porta output which includes the dimension and the including hyperplanes
+	 */
+	protected static String dim(String inputFile, PortaOptions options){
 
-		String result = Command.execute("dim " + inputFile);
+		String result = Command.execute("dim " + options.dimArguments() + inputFile);
 
 		String[] sResult = result.split("DIMENSION OF THE POLYHEDRON");
 
@@ -539,139 +779,1479 @@ public abstract class AbstractPolytope {
 		return result;
 	}
 
+	/**
+	 * Apply dim on a .poi file with the options of the polytope
+	 * @param inputFile Path to the .poi file
+	 * @return The porta output which includes the dimension and the including hyperplanes
+	 */
+	protected String runDim(String inputFile) {
+
+		try(StageProfiler.Measure measure = profiler.start("dim", variables.size()).input(inputFile)) {
+			String output = dim(inputFile, portaOptions);
+			measure.outputText(output);
+			return output;
+		}
+	}
+
 	/**
 	 * Compute the facets of the convex hull of the integer points included in the poi file at path <inputFile>.
 	 * @param inputFile Path to the .poi file which contains the formulation
 	 */
 	public static void traf(String inputFile){
-		Command.execute("traf " + inputFile);
+		traf(inputFile, new PortaOptions());
 	}
-	
+
 	/**
-	 * Use porta to get the facets of the integer polytope associated to this formulation and write them in a file
-	 * @param generator The generator associated to the considered formulation
-	 * @param outputFile The file in which the facets will be added; null if an error occurred
-	 * @throws UnknownVariableName 
-	 * @throws InvalidIEQFileFormatException 
-	 * @throws IOException  
+	 * Apply traf on a .poi or a .ieq file.
+	 * @param inputFile Path to the input file
+	 * @param options Options of traf
+	 * @return The terminal output of traf; null if an error occurred
 	 */
-	public void writeFacetsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+	public static String traf(String inputFile, PortaOptions options){
+		return Command.execute("traf " + options.trafArguments() + inputFile);
+	}
 
-		generateIntegerPoints();
-	
-		String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+	/**
+	 * Apply traf on a .poi or a .ieq file with the options of the polytope (the options are tuned on the file first if the tuning is
+	 * enabled and if the input is a .poi file)
+	 * @param inputFile Path to the input file
+	 */
+	protected void runTraf(String inputFile) {
 
-		System.out.println("=== Get the facets (input: " + sTmpPOIFile + ", output: " + outputTrafFile + ")");
-		traf(sTmpPOIFile);
+		String outputFile = inputFile + (inputFile.endsWith(".poi") ? ".ieq" : ".poi");
 
-		System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
-		convertIEQFile(outputTrafFile, outputFile, true);
+		try(StageProfiler.Measure measure = profiler.start("traf", variables.size()).input(inputFile)) {
+			trafWithFallback(inputFile, outputFile);
+			measure.output(outputFile);
+		}
+	}
+
+	private void trafWithFallback(String inputFile, String outputFile) {
+
+		PortaOptions options = portaOptions;
+
+		if(tunePortaOptions && inputFile.endsWith(".poi"))
+			options = PortaOptions.tune(inputFile, portaOptions);
+
+		if(options.multiprecision || !multiprecisionFallback) {
+			traf(inputFile, options);
+			return;
+		}
+
+		String hash = null;
+
+		try {
+			hash = Utility.hashFile(inputFile);
+		} catch (IOException e) {
+			System.err.println("Error: unable to compute the hash of " + inputFile + ": " + e.getMessage());
+		}
 
+		PortaOptions multiprecisionOptions = new PortaOptions(options);
+		multiprecisionOptions.multiprecision = true;
+
+		/* Directly use the multiprecision arithmetic if an overflow already occurred on this input */
+		if(hash != null && multiprecisionRegistry.contains(hash)) {
+			System.out.println("=== Use the multiprecision arithmetic (an overflow occurred on this input in a previous run)");
+			traf(inputFile, multiprecisionOptions);
+			return;
+		}
+
+		/* Remove the previous outputs so that a failed run cannot be mistaken for a successful one */
+		new File(outputFile).delete();
+		new File(inputFile + ".prt").delete();
+
+		Command.Result result = Command.run("traf " + options.trafArguments() + inputFile);
+
+		if(isArithmeticFailure(result, inputFile, options)) {
+			System.out.println("=== Arithmetic failure of traf on " + inputFile + ", run again with the multiprecision arithmetic");
+
+			if(hash != null)
+				multiprecisionRegistry.add(hash, inputFile);
+
+			traf(inputFile, multiprecisionOptions);
+		}
+		else if(result == null)
+			System.err.println("Error: traf could not be run on " + inputFile + " (or it has been interrupted)");
+		else if(result.exitValue != 0 || !new File(outputFile).exists())
+			System.err.println("Error: traf failed on " + inputFile + " (exit status: " + result.exitValue + ")");
 	}
-	
+
 	/**
-	 * Extract the facets associated to this formulation.
-	 * @return
-	 * @throws UnknownVariableName
-	 * @throws InvalidIEQFileFormatException
-	 * @throws IOException
+	 * Test if a run of porta failed because of its integer arithmetic
+	 * @param result Output and exit status of porta (null if the command could not be run)
+	 * @param inputFile Input file of porta
+	 * @param options Options of the run (if the option -p is used, the messages of porta are in the file <inputFile>.prt)
+	 * @return True if porta has been killed by a floating point exception (SIGFPE) or if its terminal output (standard output and
+	 * standard error) or its .prt file reports an overflow or an arithmetic error
 	 */
-	public String getIPFacets() throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+	protected static boolean isArithmeticFailure(Command.Result result, String inputFile, PortaOptions options) {
 
-		String results = "";
-
-		writeFacetsInFile(sTmpConvertedFacetsFile);
-		try{
-			InputStream ips=new FileInputStream(sTmpConvertedFacetsFile);
-			InputStreamReader ipsr=new InputStreamReader(ips);
-			BufferedReader br=new BufferedReader(ipsr);
-			String line;
-			String facetsSection = "INEQUALITIES_SECTION";
-			String endSection = "END";
-			boolean isInFacetsSection = false;
+		if(result == null)
+			return false;
 
-			while ((line=br.readLine())!=null){
+		if(result.exitValue == 128 + SIGFPE || reportsArithmeticFailure(result.output))
+			return true;
 
-				if(line.contains(facetsSection))
-					isInFacetsSection = true;
-				else if(line.contains(endSection))
-					isInFacetsSection = false;
-				else if(isInFacetsSection)
-					results += line + "\n";
+		if(options.logFile) {
+			Path prtFile = Paths.get(inputFile + ".prt");
 
+			try {
+				if(Files.exists(prtFile))
+					return reportsArithmeticFailure(new String(Files.readAllBytes(prtFile)));
+			} catch (IOException e) {
+				System.err.println("Error: unable to read " + prtFile + ": " + e.getMessage());
 			}
-			br.close();
-		}catch(Exception e){
-			System.out.println(e.toString());
 		}
 
-		return results;
+		return false;
+	}
+
+	private static boolean reportsArithmeticFailure(String messages) {
+
+		if(messages == null)
+			return false;
 
+		String lowerCaseMessages = messages.toLowerCase();
+
+		return lowerCaseMessages.contains("overflow") || lowerCaseMessages.contains("arithmetic error") || lowerCaseMessages.contains("arithmetic exception");
+	}
+	
+	/**
+	 * Use traf to compute the facets of the convex hull of the integer points in sTmpPOIFile.
+	 * The result is written in sTmpPOIFile + ".ieq" (in the original space even if the fixed variables are eliminated).
+	 * @throws InvalidIEQFileFormatException 
+	 */
+	protected void computeIPFacets() throws InvalidIEQFileFormatException {
+		computeFacets(sTmpPOIFile, variables.size(), variableOrdering == VariableOrdering.Heuristic.REGISTRATION ? null : getOrderingConstraints());
 	}
 
 	/**
-	 * Use porta to get the dimension and the hyperplanes which include the convex hull of the integer points of the polytope
-	 * @return The dimension and the hyperplanes which include porta; null if an error occurred
-	 * @throws UnknownVariableName 
+	 * Use traf to compute the facets of the convex hull of the integer points in a .poi file.
+	 * The result is written in poiFile + ".ieq" (in the space of the .poi file even if the fixed variables are eliminated).
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
 	 * @throws InvalidIEQFileFormatException 
 	 */
-	public String getIPDimension() throws UnknownVariableName, InvalidIEQFileFormatException{
+	protected void computeFacets(String poiFile, int dimension) throws InvalidIEQFileFormatException {
+		computeFacets(poiFile, dimension, null);
+	}
 
-		String output = null;
+	/**
+	 * Use traf to compute the facets of the convex hull of the integer points in a .poi file.
+	 * The result is written in poiFile + ".ieq" (in the space of the .poi file even if the fixed variables are eliminated).
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @param constraints Constraints expressed in the space of the .poi file used to order the variables (null if not available)
+	 * @throws InvalidIEQFileFormatException
+	 */
+	private void computeFacets(String poiFile, int dimension, List<LinearConstraint> constraints) throws InvalidIEQFileFormatException {
 
-		generateIntegerPoints();
-		
-		System.out.println("=== Get the dimension");
-		System.out.println("INITIAL DIMENSION : " + variables.size());
-		output = dim(this.sTmpPOIFile);
+		if(filterInteriorPoints) {
+			String candidatesPOIFile = poiFile.substring(0, poiFile.length() - ".poi".length()) + "_candidates.poi";
 
-		output = replacePortaVariablesInString(output);
+			if(filterInteriorPoints(poiFile, candidatesPOIFile, dimension)) {
+				computeFacetsOfPoints(candidatesPOIFile, dimension, constraints);
 
-		return output;
+				try {
+					Files.move(Paths.get(candidatesPOIFile + ".ieq"), Paths.get(poiFile + ".ieq"), StandardCopyOption.REPLACE_EXISTING);
+					return;
+				} catch (IOException e) {
+					System.err.println("Error: unable to move the facets of the candidate vertices (" + e.getMessage() + "), the interior points are not filtered");
+				}
+			}
+		}
 
+		computeFacetsOfPoints(poiFile, dimension, constraints);
 	}
-	
-
-	public String getIntegerPoints() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
 
-		String results = "";
+	/**
+	 * Write in another .poi file the integer points of a .poi file which may be vertices of their convex hull (see InteriorPointFilter)
+	 * @param poiFile Path of the .poi file
+	 * @param candidatesPOIFile Path of the file in which the candidate vertices are written
+	 * @param dimension Number of variables in the .poi file
+	 * @return True if at least one point has been removed; false if no point has been removed or if an error occurred
+	 */
+	private boolean filterInteriorPoints(String poiFile, String candidatesPOIFile, int dimension) {
 
-		generateIntegerPoints();
+		try {
+			InteriorPointFilter filter = new InteriorPointFilter(dimension, PortaFiles.readPoints(poiFile));
+			List<int[]> candidates = filter.filter();
 
-		convertPOIFile(sTmpPOIFile, sTmpConvertedIntegerPointsFile);
+			System.out.println("=== Filter the interior points (" + filter.getReport() + ")");
 
-		try{
-			InputStream ips=new FileInputStream(sTmpConvertedIntegerPointsFile);
-			InputStreamReader ipsr=new InputStreamReader(ips);
-			BufferedReader br=new BufferedReader(ipsr);
-			String line;
+			if(filter.getRemovedPointsNb() == 0)
+				return false;
 
-			while ((line=br.readLine())!=null)
-				results += line + "\n";
+			PortaFiles.writePoints(candidatesPOIFile, dimension, candidates);
 
-			br.close();
-		}catch(Exception e){
-			System.out.println(e.toString());
+		} catch (IOException | InvalidPOIFileFormatException | ArithmeticException e) {
+			System.err.println("Error: unable to filter the interior points: " + e.getMessage());
+			return false;
 		}
 
-		return results;
+		return true;
 	}
-	
-
-	
 
 	/**
-	 * Use porta to get the extreme points of a polytope associated to this formulation and write them in a file
-	 * @param outputFile The file in which the facets will be added; null if an error occurred
-	 * @param isIntegerPoltyope True if we consider the integer polytope; false if we consider the relaxation polytope
-	 * @throws UnknownVariableName 
-	 * @throws InvalidIEQFileFormatException 
-	 * @throws IOException 
+	 * Use traf (and the enabled reductions) to compute the facets of the convex hull of the integer points in a .poi file.
+	 * The result is written in poiFile + ".ieq".
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @param constraints Constraints expressed in the space of the .poi file used to order the variables (null if not available)
+	 * @throws InvalidIEQFileFormatException
 	 */
-	public void writeExtremePointsInFile(String outputFile, boolean isIntegerPolytope) throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+	private void computeFacetsOfPoints(String poiFile, int dimension, List<LinearConstraint> constraints) throws InvalidIEQFileFormatException {
 
-		String formulationFile;
-		
+		if(reduceToAffineHull && computeFacetsInAffineHull(poiFile, dimension))
+			return;
+
+		FixedVariablesReduction reduction = null;
+
+		if(eliminateFixedVariables)
+			reduction = reduceIntegerPointsFile(poiFile, dimension);
+
+		if(reduction == null)
+			orderedTraf(poiFile, dimension, constraints);
+		else {
+			String reducedPOIFile = reducedFile(poiFile);
+			orderedTraf(reducedPOIFile, reduction.getReducedDimension(), null);
+
+			try {
+				List<LinearConstraint> facets = reduction.getFixingEquations();
+
+				for(LinearConstraint facet: PortaFiles.readConstraints(reducedPOIFile + ".ieq"))
+					facets.add(reduction.expand(facet));
+
+				PortaFiles.writeConstraints(poiFile + ".ieq", dimension, null, null, facets);
+			} catch (IOException e) {
+				System.err.println("Error: unable to express the facets in the original space (" + e.getMessage() + "), the fixed variables are not eliminated");
+				runTraf(poiFile);
+			}
+		}
+	}
+
+	/**
+	 * Apply traf on a .poi file after renumbering its variables with the heuristic variableOrdering.
+	 * The facets are written in poiFile + ".ieq" with the original numbering of the variables.
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @param constraints Constraints expressed in the space of the .poi file (null if not available)
+	 */
+	private void orderedTraf(String poiFile, int dimension, List<LinearConstraint> constraints) {
+
+		if(variableOrdering == VariableOrdering.Heuristic.REGISTRATION) {
+			runTraf(poiFile);
+			return;
+		}
+
+		String orderedPOIFile = poiFile.substring(0, poiFile.length() - ".poi".length()) + "_ordered.poi";
+
+		try {
+			List<int[]> points = PortaFiles.readPoints(poiFile);
+			VariableOrdering ordering = VariableOrdering.compute(variableOrdering, dimension, points, constraints);
+
+			if(ordering.isIdentity()) {
+				runTraf(poiFile);
+				return;
+			}
+
+			List<int[]> orderedPoints = new ArrayList<>(points.size());
+
+			for(int[] point: points)
+				orderedPoints.add(ordering.permute(point));
+
+			PortaFiles.writePoints(orderedPOIFile, dimension, orderedPoints);
+
+			System.out.println("=== Reorder the variables (heuristic: " + variableOrdering + ", output: " + orderedPOIFile + ")");
+			runTraf(orderedPOIFile);
+
+			List<LinearConstraint> facets = new ArrayList<>();
+
+			for(LinearConstraint facet: PortaFiles.readConstraints(orderedPOIFile + ".ieq"))
+				facets.add(ordering.restore(facet));
+
+			PortaFiles.writeConstraints(poiFile + ".ieq", dimension, null, null, facets);
+
+		} catch (IOException | InvalidPOIFileFormatException | InvalidIEQFileFormatException e) {
+			System.err.println("Error: unable to reorder the variables (" + e.getMessage() + "), the registration order is used");
+			runTraf(poiFile);
+		}
+	}
+
+	/**
+	 * Use traf to compute the facets of the integer points of a .poi file expressed in a lattice basis of their affine hull.
+	 * The equations of the affine hull and the canonical facets are written in poiFile + ".ieq".
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @return True if the facets have been computed; false if the convex hull of the points is full-dimensional or if an error occurred
+	 * @throws InvalidIEQFileFormatException
+	 */
+	private boolean computeFacetsInAffineHull(String poiFile, int dimension) throws InvalidIEQFileFormatException {
+		return computeFacetsInAffineHull(poiFile, dimension, computeAffineHull(poiFile, dimension));
+	}
+
+	/**
+	 * Use traf to compute the facets of the integer points of a .poi file expressed in a lattice basis of their affine hull.
+	 * The equations of the affine hull and the canonical facets are written in poiFile + ".ieq".
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @param reduction Affine hull of the points (see computeAffineHull()); null if it could not be computed
+	 * @return True if the facets have been computed; false if the convex hull of the points is full-dimensional or if an error occurred
+	 * @throws InvalidIEQFileFormatException
+	 */
+	private boolean computeFacetsInAffineHull(String poiFile, int dimension, AffineHullReduction reduction) throws InvalidIEQFileFormatException {
+
+		if(reduction == null || reduction.getIntrinsicDimension() == reduction.getDimension() || reduction.getIntrinsicDimension() == 0)
+			return false;
+
+		String reducedPOIFile = reducedFile(poiFile);
+
+		try {
+			List<int[]> reducedPoints = new ArrayList<>();
+
+			for(int[] point: PortaFiles.readPoints(poiFile))
+				reducedPoints.add(reduction.reduce(point));
+
+			PortaFiles.writePoints(reducedPOIFile, reduction.getIntrinsicDimension(), reducedPoints);
+
+			System.out.println("=== Reduce the integer points to their affine hull (dimension: " + dimension + " -> " + reduction.getIntrinsicDimension() + ", output: " + reducedPOIFile + ")");
+			orderedTraf(reducedPOIFile, reduction.getIntrinsicDimension(), null);
+
+			/* The canonical forms of the facets are unique */
+			Set<LinearConstraint> facets = new LinkedHashSet<>(reduction.getEquations());
+
+			for(LinearConstraint facet: PortaFiles.readConstraints(reducedPOIFile + ".ieq"))
+				facets.add(reduction.expand(facet));
+
+			PortaFiles.writeConstraints(poiFile + ".ieq", dimension, null, null, new ArrayList<>(facets));
+
+		} catch (IOException | InvalidPOIFileFormatException | ArithmeticException e) {
+			System.err.println("Error: unable to reduce the integer points to their affine hull: " + e.getMessage());
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compute the affine hull of the integer points in a .poi file
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @return The affine hull; null if there is no integer point or if an error occurred
+	 */
+	protected AffineHullReduction computeAffineHull(String poiFile, int dimension) {
+
+		AffineHullReduction reduction = null;
+
+		try {
+			List<int[]> points = PortaFiles.readPoints(poiFile);
+
+			if(points.size() > 0)
+				reduction = AffineHullReduction.fromPoints(dimension, points);
+
+		} catch (IOException | InvalidPOIFileFormatException | ArithmeticException e) {
+			System.err.println("Error: unable to compute the affine hull of the integer points: " + e.getMessage());
+		}
+
+		return reduction;
+	}
+
+	/**
+	 * Project the fixed variables out of the integer points of a .poi file.
+	 * The reduced points are written in reducedFile(poiFile).
+	 * @param poiFile Path of the .poi file
+	 * @param dimension Number of variables in the .poi file
+	 * @return The reduction; null if no variable is fixed or if an error occurred
+	 */
+	protected FixedVariablesReduction reduceIntegerPointsFile(String poiFile, int dimension) {
+
+		FixedVariablesReduction reduction = null;
+		String reducedPOIFile = reducedFile(poiFile);
+
+		try {
+			List<int[]> points = PortaFiles.readPoints(poiFile);
+			reduction = FixedVariablesReduction.fromPoints(dimension, points);
+
+			if(reduction.isTrivial() || reduction.getReducedDimension() == 0)
+				reduction = null;
+			else {
+				List<int[]> reducedPoints = new ArrayList<>(points.size());
+
+				for(int[] point: points)
+					reducedPoints.add(reduction.reduce(point));
+
+				PortaFiles.writePoints(reducedPOIFile, reduction.getReducedDimension(), reducedPoints);
+
+				System.out.println("=== Eliminate " + reduction.getFixedVariablesNb() + " fixed variable(s) (dimension: " + dimension + " -> " + reduction.getReducedDimension() + ", output: " + reducedPOIFile + ")");
+			}
+		} catch (IOException | InvalidPOIFileFormatException e) {
+			System.err.println("Error: unable to eliminate the fixed variables: " + e.getMessage());
+			reduction = null;
+		}
+
+		return reduction;
+	}
+
+	/**
+	 * Path of the file in which a reduction of a .poi file is written (e.g., "./.tmp/tmp_reduced.poi" for "./.tmp/tmp.poi")
+	 * @param poiFile
+	 * @return
+	 */
+	private static String reducedFile(String poiFile) {
+		return poiFile.substring(0, poiFile.length() - ".poi".length()) + "_reduced.poi";
+	}
+
+	/**
+	 * Use porta to get the facets of the integer polytope associated to this formulation and write them in a file
+	 * @param generator The generator associated to the considered formulation
+	 * @param outputFile The file in which the facets will be added; null if an error occurred
+	 * @throws UnknownVariableName 
+	 * @throws InvalidIEQFileFormatException 
+	 * @throws IOException  
+	 */
+	public void writeFacetsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+
+		profiler.reset();
+		generateIntegerPoints();
+	
+		String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+
+		System.out.println("=== Get the facets (input: " + sTmpPOIFile + ", output: " + outputTrafFile + ")");
+		computeIPFacets();
+
+		System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
+		convertIEQFile(outputTrafFile, outputFile, true);
+
+		if(computeIncidence)
+			writeIncidenceMatrix(outputTrafFile, outputFile + ".incidence");
+
+		printProfile();
+	}
+
+	/**
+	 * Print the time spent in each stage since the beginning of the analysis
+	 */
+	protected void printProfile() {
+		System.out.print("=== Time per stage\n" + profiler.report());
+	}
+
+	/**
+	 * Get the measures of the stages of the analyses.
+	 * Each stage also emits a Java Flight Recorder event (see utils.StageEvent).
+	 * @return
+	 */
+	public StageProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Compute the incidences between the integer points of I(P) and its facets and write them in a file
+	 * @param facetsFile Path of the .ieq file which contains the facets (expressed with the porta ids)
+	 * @param incidenceFile Path of the output file (see IncidenceMatrix.write())
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	protected void writeIncidenceMatrix(String facetsFile, String incidenceFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		try {
+			List<int[]> points = getIntegerPointsList();
+			List<LinearConstraint> facets = PortaFiles.readConstraints(facetsFile);
+
+			long start = System.currentTimeMillis();
+			incidence = IncidenceMatrix.compute(variables.size(), points, facets);
+
+			System.out.println("=== Compute the incidences (points: " + points.size() + ", facets: " + facets.size() + ", output: " + incidenceFile + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+			incidence.write(incidenceFile);
+
+		} catch (InvalidPOIFileFormatException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Compute the graph of the vertices of I(P) from the incidences between its integer points and its facets (see VertexGraph)
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public VertexGraph getVertexGraph() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		IncidenceMatrix incidence = getIncidenceMatrix();
+
+		int polytopeDimension;
+
+		try {
+			polytopeDimension = getCertifier().getPolytopeDimension();
+		} catch (InvalidPOIFileFormatException e) {
+			throw new IOException(e);
+		}
+
+		long start = System.currentTimeMillis();
+		VertexGraph graph = new VertexGraph(incidence, polytopeDimension);
+
+		System.out.println("=== Compute the graph of the vertices (" + graph + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+		return graph;
+	}
+
+	/**
+	 * Enumerate the faces of I(P) from the incidences between its integer points and its facets (see FaceLattice)
+	 * @param maxDepth Maximal number of enumerated dimensions (the faces of dimension lower than dim(I(P)) - maxDepth are not enumerated)
+	 * @param maxMemory Maximal memory used to store the faces of a dimension (in bytes)
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public FaceLattice getFaceLattice(int maxDepth, long maxMemory) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		IncidenceMatrix incidence = getIncidenceMatrix();
+
+		int polytopeDimension;
+
+		try {
+			polytopeDimension = getCertifier().getPolytopeDimension();
+		} catch (InvalidPOIFileFormatException e) {
+			throw new IOException(e);
+		}
+
+		long start = System.currentTimeMillis();
+		FaceLattice lattice = new FaceLattice(incidence, polytopeDimension, maxDepth, maxMemory);
+
+		System.out.println("=== Enumerate the faces (f-vector: " + lattice + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+		return lattice;
+	}
+
+	/**
+	 * Enumerate all the faces of I(P) with a memory limit of faceLatticeMaxMemory bytes per dimension
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public FaceLattice getFaceLattice() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+		return getFaceLattice(Integer.MAX_VALUE, faceLatticeMaxMemory);
+	}
+
+	/**
+	 * Write the edges of the graph of the vertices of I(P) in a file.
+	 * Each line contains the numbers of two adjacent integer points (the points are numbered from 1 in the order of the converted
+	 * integer points file).
+	 * @param outputFile
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public void writeVertexGraphInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		VertexGraph graph = getVertexGraph();
+
+		PortaFiles.createParentFolder(outputFile);
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile))) {
+			for(int[] edge: graph.getEdges())
+				bw.write((edge[0] + 1) + " " + (edge[1] + 1) + "\n");
+		}
+	}
+
+	/**
+	 * Get the incidences between the integer points of I(P) and its facets.
+	 * If the facets have not been computed with the incidences yet, they are computed.
+	 * The points are numbered as in getIntegerPointsList() and the facets as in the converted facets file (both from 0).
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public IncidenceMatrix getIncidenceMatrix() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		if(incidence == null) {
+			boolean initialValue = computeIncidence;
+			computeIncidence = true;
+
+			try {
+				writeFacetsInFile(sTmpConvertedFacetsFile);
+			} finally {
+				computeIncidence = initialValue;
+			}
+		}
+
+		return incidence;
+	}
+	
+	/**
+	 * Extract the facets associated to this formulation.
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public String getIPFacets() throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+
+		writeFacetsInFile(sTmpConvertedFacetsFile);
+
+		return readInequalitiesSection(sTmpConvertedFacetsFile);
+
+	}
+
+	/**
+	 * Extract the facets of the projection of the integer polytope on a subset of its variables.
+	 * @param variableNames Original names of the variables on which the integer polytope is projected
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public String getProjectedIPFacets(String... variableNames) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		writeProjectedFacetsInFile(sTmpConvertedFacetsFile, Arrays.asList(variableNames));
+
+		return readInequalitiesSection(sTmpConvertedFacetsFile);
+	}
+
+	/**
+	 * Use porta to get the facets of the projection of the integer polytope on a subset of its variables and write them in a file.
+	 * The integer points are projected and their duplicates are removed before calling traf (which significantly reduces their number when few
+	 * variables are kept).
+	 * @param outputFile The file in which the facets will be added
+	 * @param variableNames Original names of the variables on which the integer polytope is projected
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public void writeProjectedFacetsInFile(String outputFile, List<String> variableNames) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		initializeVariables();
+
+		/* Porta id of the kept variables (the variable of porta id i in the projected space is in position i-1) */
+		int[] ids = new int[variableNames.size()];
+
+		for(int i = 0; i < ids.length; i++) {
+			int id = variables.getId(variableNames.get(i));
+
+			if(id == -1)
+				throw new UnknownVariableName(variableNames.get(i));
+
+			ids[i] = id;
+		}
+
+		generateIntegerPoints();
+
+		List<int[]> points = PortaFiles.readPoints(sTmpPOIFile);
+		IntArrayHashSet projectedPoints = new IntArrayHashSet(ids.length, points.size());
+		int[] projection = new int[ids.length];
+
+		for(int[] point: points) {
+			for(int i = 0; i < ids.length; i++)
+				projection[i] = point[ids[i] - 1];
+
+			projectedPoints.add(projection);
+		}
+
+		System.out.println("=== Project the integer points (dimension: " + variables.size() + " -> " + ids.length + ", points: " + points.size() + " -> " + projectedPoints.size() + ", output: " + sTmpProjectedPOIFile + ")");
+		PortaFiles.writePoints(sTmpProjectedPOIFile, ids.length, projectedPoints.toList());
+
+		System.out.println("=== Get the facets of the projection (input: " + sTmpProjectedPOIFile + ", output: " + sTmpProjectedPOIFile + ".ieq)");
+		computeFacets(sTmpProjectedPOIFile, ids.length);
+
+		/* Express the facets with the porta ids of the original space */
+		List<LinearConstraint> facets = new ArrayList<>();
+
+		for(LinearConstraint facet: PortaFiles.readConstraints(sTmpProjectedPOIFile + ".ieq"))
+			facets.add(facet.renameVariables(ids));
+
+		String originalFacetsFile = sTmpProjectedPOIFile.replace(".poi", "_facets.ieq");
+		PortaFiles.writeConstraints(originalFacetsFile, variables.size(), null, null, facets);
+
+		System.out.println("=== Convert facets (input: " + originalFacetsFile + ", output: " + outputFile + ")");
+		convertIEQFile(originalFacetsFile, outputFile, true);
+	}
+
+	/**
+	 * Must be called by the implementations of generateIntegerPoints() once sTmpPOIFile has been rewritten (and by AnalysisPipeline when
+	 * the integer points of a previous run are reused): the structures computed from the previous integer points are discarded
+	 */
+	protected void integerPointsRewritten() {
+		clearIntegerPointsCaches();
+		integerPointsGenerated = true;
+	}
+
+	/**
+	 * Discard the structures computed from the integer points (the points themselves, the separator, the certifier and the incidences)
+	 */
+	protected void clearIntegerPointsCaches() {
+		cachedIntegerPoints = null;
+		separator = null;
+		certifier = null;
+		incidence = null;
+	}
+
+	/**
+	 * Get the integer points of the polytope.
+	 * The points are read only once, the next calls return the same list until the points are generated again (see integerPointsRewritten()).
+	 * @return The integer points (the value of the variable of porta id i is in position i-1)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	protected List<int[]> getIntegerPointsList() throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		if(cachedIntegerPoints == null) {
+			if(!integerPointsGenerated)
+				generateIntegerPoints();
+
+			cachedIntegerPoints = PortaFiles.readPoints(sTmpPOIFile);
+		}
+
+		return cachedIntegerPoints;
+	}
+
+	/**
+	 * Parse a constraint in which the variables are expressed with their original names (e.g., "2 y1 + x_1_2 <= 3")
+	 * @param constraint The constraint
+	 * @return The constraint expressed with the porta ids
+	 * @throws UnknownVariableName
+	 * @throws InvalidInequalityException If the constraint cannot be parsed
+	 */
+	public LinearConstraint parseConstraint(String constraint) throws UnknownVariableName, InvalidInequalityException {
+
+		initializeVariables();
+
+		/* Replace each original name by its porta name */
+		Matcher matcher = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*").matcher(constraint);
+		StringBuffer sb = new StringBuffer();
+
+		while(matcher.find())
+			matcher.appendReplacement(sb, portaName(matcher.group()));
+
+		matcher.appendTail(sb);
+
+		LinearConstraint result;
+
+		try {
+			result = LinearConstraint.parse(sb.toString());
+		} catch (InvalidIEQFileFormatException e) {
+			throw new InvalidInequalityException(e.getMessage());
+		}
+
+		if(result == null)
+			throw new InvalidInequalityException("No operator in constraint \"" + constraint + "\"");
+
+		return result;
+	}
+
+	/**
+	 * Extract the dimension and the facets of a face of the integer polytope.
+	 * The face is the set of the points of I(P) which satisfy all the given inequalities with equality.
+	 * @param inequalities Valid inequalities of I(P) expressed with the original names of the variables (e.g., "x1 + x2 <= 1"). Variable
+	 * fixings can be given as equations (e.g., "y3 = 1").
+	 * @return The dimension of the face followed by its facets
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws InvalidInequalityException If an inequality cannot be parsed, is not valid or if the face is empty
+	 * @throws IOException
+	 */
+	public String getFaceFacets(String... inequalities) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, InvalidInequalityException, IOException{
+
+		int dimension = writeFaceFacetsInFile(sTmpConvertedFaceFacetsFile, Arrays.asList(inequalities));
+
+		return "DIMENSION OF THE FACE : " + (dimension == -1 ? "?" : dimension) + "\n\n" + readInequalitiesSection(sTmpConvertedFaceFacetsFile);
+	}
+
+	/**
+	 * Extract the dimension and the facets of the face of the integer polytope obtained by fixing variables.
+	 * @param fixings Value of each fixed variable (indexed by the original names of the variables)
+	 * @return The dimension of the face followed by its facets
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws InvalidInequalityException If the face is empty
+	 * @throws IOException
+	 */
+	public String getFaceFacets(Map<String, Integer> fixings) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, InvalidInequalityException, IOException{
+
+		List<String> equations = new ArrayList<>();
+
+		for(Entry<String, Integer> fixing: fixings.entrySet())
+			equations.add(fixing.getKey() + " = " + fixing.getValue());
+
+		return getFaceFacets(equations.toArray(new String[0]));
+	}
+
+	/**
+	 * Compute the facets of a face of the integer polytope and write them in a file.
+	 * Only the integer points of the face are given to traf and they are expressed in a lattice basis of the affine hull of the face.
+	 * @param outputFile The file in which the facets are written
+	 * @param inequalities Valid inequalities of I(P) which define the face (expressed with the original names of the variables)
+	 * @return The dimension of the face; -1 if the affine hull of the face could not be computed (its facets are then computed without
+	 * the reduction)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws InvalidInequalityException If an inequality cannot be parsed, is not valid or if the face is empty
+	 * @throws IOException
+	 */
+	public int writeFaceFacetsInFile(String outputFile, List<String> inequalities) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, InvalidInequalityException, IOException{
+
+		List<LinearConstraint> constraints = new ArrayList<>();
+
+		for(String inequality: inequalities)
+			constraints.add(parseConstraint(inequality));
+
+		List<int[]> points = getIntegerPointsList();
+		List<int[]> tightPoints = new ArrayList<>();
+
+		for(int[] point: points) {
+			boolean isTight = true;
+
+			for(int i = 0; i < constraints.size(); i++) {
+				LinearConstraint c = constraints.get(i);
+
+				/* A variable fixing is not required to be valid (the face is then the set of points which satisfy it) */
+				if(c.sense != LinearConstraint.Sense.EQ && !c.isSatisfied(point))
+					throw new InvalidInequalityException("The inequality \"" + inequalities.get(i) + "\" is not valid for the integer polytope");
+
+				isTight = isTight && c.slack(point) == 0;
+			}
+
+			if(isTight)
+				tightPoints.add(point);
+		}
+
+		if(tightPoints.isEmpty())
+			throw new InvalidInequalityException("The face defined by " + inequalities + " does not contain any integer point");
+
+		System.out.println("=== Restrict the integer points to the face (points: " + points.size() + " -> " + tightPoints.size() + ", output: " + sTmpFacePOIFile + ")");
+		PortaFiles.writePoints(sTmpFacePOIFile, variables.size(), tightPoints);
+
+		AffineHullReduction hull = computeAffineHull(sTmpFacePOIFile, variables.size());
+		int dimension = hull == null ? -1 : hull.getIntrinsicDimension();
+		String faceFacetsFile = sTmpFacePOIFile + ".ieq";
+
+		System.out.println("=== Get the facets of the face (dimension: " + (dimension == -1 ? "?" : dimension) + ", input: " + sTmpFacePOIFile + ", output: " + faceFacetsFile + ")");
+
+		/* A face of dimension 0 is a point which is entirely described by the equations of its affine hull */
+		if(dimension == 0)
+			PortaFiles.writeConstraints(faceFacetsFile, variables.size(), null, null, hull.getEquations());
+
+		/* If the affine hull cannot be computed (e.g., because of an overflow), traf is applied on the points of the face */
+		else if(hull == null || !computeFacetsInAffineHull(sTmpFacePOIFile, variables.size(), hull))
+			computeFacets(sTmpFacePOIFile, variables.size());
+
+		System.out.println("=== Convert facets (input: " + faceFacetsFile + ", output: " + outputFile + ")");
+		convertIEQFile(faceFacetsFile, outputFile, true);
+
+		return dimension;
+	}
+
+	/**
+	 * Check solutions against a list of inequalities (e.g., a converted facets file)
+	 * @param solutionsFile File which contains the original names of the variables on its first line and one solution on each following
+	 * line (e.g., a .solEntieres file)
+	 * @param convertedFacetsFile File whose INEQUALITIES_SECTION contains inequalities expressed with the original names of the variables
+	 * @return One line per solution which contains the number of the inequalities it violates and of the inequalities it satisfies with
+	 * equality (the inequalities are numbered from 1 in their order in the file)
+	 * @throws UnknownVariableName
+	 * @throws InvalidInequalityException If an inequality cannot be parsed
+	 * @throws InvalidPOIFileFormatException If a solution is not integer
+	 * @throws IOException
+	 */
+	public String checkSolutions(String solutionsFile, String convertedFacetsFile) throws UnknownVariableName, InvalidInequalityException, InvalidPOIFileFormatException, IOException {
+
+		List<LinearConstraint> facets = new ArrayList<>();
+
+		for(String line: readInequalitiesSection(convertedFacetsFile).split("\n"))
+			if(!line.trim().isEmpty())
+				facets.add(parseConstraint(line));
+
+		List<int[]> solutions = readSolutionsFile(solutionsFile);
+
+		long start = System.currentTimeMillis();
+		FacetMatrix matrix = new FacetMatrix(variables.size(), facets);
+		FacetMatrix.PointStatus[] statuses = matrix.evaluateAll(solutions);
+
+		System.out.println("=== Check " + solutions.size() + " solutions against " + facets.size() + " inequalities (infeasible solutions: " + FacetMatrix.countInfeasible(statuses) + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+		StringBuilder sb = new StringBuilder();
+
+		for(int p = 0; p < statuses.length; p++)
+			sb.append("solution " + (p + 1) + ": violated " + toNumbers(statuses[p].violatedFacets) + ", tight " + toNumbers(statuses[p].tightFacets) + "\n");
+
+		return sb.toString();
+	}
+
+	private static String toNumbers(int[] indices) {
+
+		int[] numbers = new int[indices.length];
+
+		for(int i = 0; i < indices.length; i++)
+			numbers[i] = indices[i] + 1;
+
+		return Arrays.toString(numbers);
+	}
+
+	/**
+	 * Read a file of solutions.
+	 * The first line contains the original names of the variables and each following line contains the value of these variables in
+	 * a solution. The variables which do not appear in the file are equal to 0.
+	 * @param solutionsFile
+	 * @return The solutions (the value of the variable of porta id i is in position i-1)
+	 * @throws UnknownVariableName If a variable of the file is not registered
+	 * @throws InvalidPOIFileFormatException If a value is not integer or if a line does not contain one value per variable
+	 * @throws IOException
+	 */
+	public List<int[]> readSolutionsFile(String solutionsFile) throws UnknownVariableName, InvalidPOIFileFormatException, IOException{
+
+		initializeVariables();
+
+		List<int[]> solutions = new ArrayList<>();
+		int[] ids = null;
+
+		BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(solutionsFile)));
+		String line;
+
+		try {
+			while((line = br.readLine()) != null) {
+				line = line.trim();
+
+				if(line.isEmpty())
+					continue;
+
+				String[] sLine = line.split("\\s+");
+
+				/* If this is the first line */
+				if(ids == null) {
+					ids = new int[sLine.length];
+
+					for(int i = 0; i < sLine.length; i++) {
+						int id = variables.getId(sLine[i]);
+
+						if(id == -1)
+							throw new UnknownVariableName(sLine[i]);
+
+						ids[i] = id;
+					}
+				}
+				else {
+					if(sLine.length != ids.length)
+						throw new InvalidPOIFileFormatException("The solution \"" + line + "\" of file " + solutionsFile + " does not contain " + ids.length + " values");
+
+					int[] solution = new int[variables.size()];
+
+					for(int i = 0; i < sLine.length; i++) {
+						double value;
+
+						try {
+							value = Double.parseDouble(sLine[i]);
+						} catch(NumberFormatException e) {
+							throw new InvalidPOIFileFormatException("Invalid value \"" + sLine[i] + "\" in file " + solutionsFile);
+						}
+
+						if(!Utility.isInteger(value))
+							throw new InvalidPOIFileFormatException("The value \"" + sLine[i] + "\" in file " + solutionsFile + " is not integer");
+
+						solution[ids[i] - 1] = (int)Math.round(value);
+					}
+
+					solutions.add(solution);
+				}
+			}
+		}
+		finally {
+			br.close();
+		}
+
+		return solutions;
+	}
+
+	/**
+	 * Classify inequalities as facet-defining, valid but not facet-defining, invalid or equations of I(P)
+	 * @param inequalities Inequalities expressed with the original names of the variables
+	 * @return One line per inequality which contains its classification, the dimension of its face and the number of tight integer
+	 * points (or a most violated integer point if it is invalid)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws InvalidInequalityException If an inequality cannot be parsed
+	 * @throws IOException
+	 */
+	public String certifyInequalities(String... inequalities) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, InvalidInequalityException, IOException{
+
+		List<LinearConstraint> constraints = new ArrayList<>();
+
+		for(String inequality: inequalities)
+			constraints.add(parseConstraint(inequality));
+
+		return certificationReport(certify(constraints));
+	}
+
+	/**
+	 * Certify inequalities against the integer points of the polytope (in parallel)
+	 * @param inequalities Inequalities expressed with the porta ids
+	 * @return The certificate of each inequality
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public List<FacetCertifier.Certificate> certify(List<LinearConstraint> inequalities) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		FacetCertifier certifier = getCertifier();
+
+		long start = System.currentTimeMillis();
+		List<FacetCertifier.Certificate> certificates = certifier.certifyAll(inequalities);
+
+		System.out.println("=== Certify " + inequalities.size() + " inequalities (dimension of I(P): " + certifier.getPolytopeDimension() + ", integer points: " + cachedIntegerPoints.size() + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+		return certificates;
+	}
+
+	/**
+	 * Get the certifier of the integer points of the polytope (it is created at the first call)
+	 * @return
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException If the polytope does not contain any integer point
+	 */
+	protected FacetCertifier getCertifier() throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		if(certifier == null) {
+			List<int[]> points = getIntegerPointsList();
+
+			if(points.isEmpty())
+				throw new IOException("The polytope does not contain any integer point");
+
+			certifier = new FacetCertifier(variables.size(), points);
+		}
+
+		return certifier;
+	}
+
+	/**
+	 * Get a description of certificates with the original names of the variables
+	 * @param certificates
+	 * @return
+	 * @throws UnknownVariableName
+	 */
+	protected String certificationReport(List<FacetCertifier.Certificate> certificates) throws UnknownVariableName {
+
+		String output = "";
+
+		for(FacetCertifier.Certificate certificate: certificates) {
+			output += replacePortaVariablesInString(certificate.inequality.toString()).trim() + " : " + certificate.classification;
+
+			if(certificate.isValid())
+				output += " (face dimension: " + certificate.faceDimension + ", tight integer points: " + certificate.tightPointsNb + ")";
+			else {
+				String witness = "";
+
+				for(int i = 0; i < certificate.witness.length; i++)
+					if(certificate.witness[i] != 0)
+						witness += (witness.isEmpty() ? "" : ", ") + variables.get(i + 1).originalName + " = " + certificate.witness[i];
+
+				output += " (violation: " + (-certificate.minimumSlack) + ", violated by the integer point: " + (witness.isEmpty() ? "0" : witness) + ")";
+			}
+
+			output += "\n";
+		}
+
+		return output;
+	}
+
+	/**
+	 * Extract facets of the integer polytope within a time limit (see writeAnytimeFacetsInFile())
+	 * @param timeLimit Time limit in milliseconds
+	 * @return The certified facets found within the time limit
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public String getAnytimeIPFacets(long timeLimit) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		writeAnytimeFacetsInFile(sTmpConvertedFacetsFile, timeLimit);
+
+		return readInequalitiesSection(sTmpConvertedFacetsFile);
+	}
+
+	/**
+	 * Find facets of the integer polytope within a time limit and write them in a file.
+	 *
+	 * At each round, traf is applied on a sample of the integer points (the points which minimize or maximize each variable and random
+	 * points). Each inequality obtained is certified against all the integer points (see FacetCertifier) and it is kept only if it is a
+	 * facet of I(P). The size of the sample is doubled at each round until it contains all the points or until the time limit is reached.
+	 * The output file is updated after each round, thus it always contains a correct (possibly partial) list of facets.
+	 * @param outputFile The file in which the facets are written
+	 * @param timeLimit Time limit in milliseconds (a round which has started is always completed)
+	 * @return True if the list of facets is complete (i.e., if a round has been performed on all the integer points)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public boolean writeAnytimeFacetsInFile(String outputFile, long timeLimit) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		long start = System.currentTimeMillis();
+		List<int[]> points = getIntegerPointsList();
+		FacetCertifier certifier = getCertifier();
+		AffineHullReduction hull = certifier.getAffineHull();
+
+		/* The canonical forms of the facets are unique */
+		Set<LinearConstraint> facets = new LinkedHashSet<>(hull.getEquations());
+
+		boolean isComplete = certifier.getPolytopeDimension() == 0;
+		int sampleSize = Math.min(points.size(), anytimeInitialSampleSize);
+		Random random = new Random(0);
+		int round = 1;
+
+		while(!isComplete && System.currentTimeMillis() - start < timeLimit) {
+
+			List<int[]> sample = samplePoints(points, sampleSize, random);
+			PortaFiles.writePoints(sTmpSamplePOIFile, variables.size(), sample);
+			computeFacets(sTmpSamplePOIFile, variables.size());
+
+			/* The equations of the sample are split into two inequalities which may be facets of I(P) */
+			List<LinearConstraint> candidates = new ArrayList<>();
+
+			for(LinearConstraint c: PortaFiles.readConstraints(sTmpSamplePOIFile + ".ieq"))
+				if(c.sense == LinearConstraint.Sense.EQ) {
+					candidates.add(new LinearConstraint(c.ids, c.coefficients, LinearConstraint.Sense.LE, c.rhs));
+					candidates.add(new LinearConstraint(c.ids, c.coefficients, LinearConstraint.Sense.GE, c.rhs).toLessOrEqual());
+				}
+				else
+					candidates.add(c);
+
+			int newFacetsNb = 0;
+
+			for(FacetCertifier.Certificate certificate: certifier.certifyAll(candidates))
+				if(certifier.isFacet(certificate) && facets.add(hull.canonicalize(certificate.inequality)))
+					newFacetsNb++;
+
+			isComplete = sample.size() == points.size();
+
+			System.out.println("=== Round " + round + " of the anytime facet discovery (sample: " + sample.size() + "/" + points.size() + " points, candidates: " + candidates.size()
+				+ ", new certified facets: " + newFacetsNb + ", total: " + facets.size() + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+			writeAnytimeFacets(outputFile, facets);
+
+			sampleSize = Math.min(points.size(), 2 * sampleSize);
+			round++;
+		}
+
+		if(round == 1)
+			writeAnytimeFacets(outputFile, facets);
+
+		if(!isComplete)
+			System.out.println("=== Time limit reached, the list of facets may be incomplete");
+
+		return isComplete;
+	}
+
+	private void writeAnytimeFacets(String outputFile, Set<LinearConstraint> facets) throws IOException, UnknownVariableName {
+		PortaFiles.writeConstraints(sTmpAnytimeFacetsFile, variables.size(), null, null, new ArrayList<>(facets));
+		convertIEQFile(sTmpAnytimeFacetsFile, outputFile, true);
+	}
+
+	/**
+	 * Select a subset of points: the first points which minimize and maximize each variable, completed by random points
+	 * @param points The points
+	 * @param size Number of points to select
+	 * @param random
+	 * @return
+	 */
+	private List<int[]> samplePoints(List<int[]> points, int size, Random random){
+
+		if(size >= points.size())
+			return points;
+
+		int dimension = points.get(0).length;
+		Set<Integer> selected = new LinkedHashSet<>();
+
+		for(int i = 0; i < dimension && selected.size() < size; i++) {
+			int min = 0;
+			int max = 0;
+
+			for(int p = 1; p < points.size(); p++) {
+				if(points.get(p)[i] < points.get(min)[i])
+					min = p;
+				if(points.get(p)[i] > points.get(max)[i])
+					max = p;
+			}
+
+			selected.add(min);
+
+			if(selected.size() < size)
+				selected.add(max);
+		}
+
+		while(selected.size() < size)
+			selected.add(random.nextInt(points.size()));
+
+		List<int[]> sample = new ArrayList<>(size);
+
+		for(int p: selected)
+			sample.add(points.get(p));
+
+		return sample;
+	}
+
+	/**
+	 * Find a facet of the integer polytope violated by a (fractional) point.
+	 * The facet is obtained by solving an exact linear program over the integer points (see FacetSeparator), traf is not used.
+	 * @param point Value of the variables indexed by their original names (the missing variables are equal to 0)
+	 * @return A most violated facet expressed with the original names of the variables (or an equation of the affine hull of I(P) if the
+	 * point does not satisfy it); null if the point is in I(P)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	public String getViolatedFacet(Map<String, Double> point) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		initializeVariables();
+
+		Rational[] portaPoint = new Rational[variables.size()];
+		Arrays.fill(portaPoint, Rational.ZERO);
+
+		for(Entry<String, Double> entry: point.entrySet()) {
+			int id = variables.getId(entry.getKey());
+
+			if(id == -1)
+				throw new UnknownVariableName(entry.getKey());
+
+			portaPoint[id - 1] = Rational.valueOf(entry.getValue());
+		}
+
+		LinearConstraint facet = separateFacet(portaPoint);
+
+		return facet == null ? null : replacePortaVariablesInString(facet.toString()).trim();
+	}
+
+	/**
+	 * Find a facet of the integer polytope violated by a point
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return A most violated facet expressed with the porta ids; null if the point is in I(P)
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws InvalidPOIFileFormatException
+	 * @throws IOException
+	 */
+	protected LinearConstraint separateFacet(Rational[] point) throws UnknownVariableName, InvalidIEQFileFormatException, InvalidPOIFileFormatException, IOException{
+
+		if(separator == null) {
+			List<int[]> points = getIntegerPointsList();
+
+			if(points.isEmpty())
+				throw new IOException("The polytope does not contain any integer point");
+
+			separator = new FacetSeparator(variables.size(), points);
+		}
+
+		LinearConstraint facet = separator.separate(point);
+
+		if(facet == null)
+			System.out.println("=== Separate the point (the point is in the integer polytope)");
+		else if(separator.getViolation() == null)
+			System.out.println("=== Separate the point (the point is not in the affine hull of the integer polytope)");
+		else
+			System.out.println("=== Separate the point (violation of the facet normalized by the centroid: " + separator.getViolation() + ")");
+
+		return facet;
+	}
+
+	/**
+	 * Get the lines of the INEQUALITIES_SECTION of a file
+	 * @param file
+	 * @return
+	 */
+	String readInequalitiesSection(String file) {
+
+		String results = "";
+
+		try{
+			InputStream ips=new FileInputStream(file);
+			InputStreamReader ipsr=new InputStreamReader(ips);
+			BufferedReader br=new BufferedReader(ipsr);
+			String line;
+			String facetsSection = "INEQUALITIES_SECTION";
+			String endSection = "END";
+			boolean isInFacetsSection = false;
+
+			while ((line=br.readLine())!=null){
+
+				if(line.contains(facetsSection))
+					isInFacetsSection = true;
+				else if(line.contains(endSection))
+					isInFacetsSection = false;
+				else if(isInFacetsSection)
+					results += line + "\n";
+
+			}
+			br.close();
+		}catch(Exception e){
+			System.out.println(e.toString());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Compare the time required by traf to compute the facets of I(P) with each variable ordering heuristic
+	 * @return A summary of the running times
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public String benchmarkVariableOrderings() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		generateIntegerPoints();
+
+		VariableOrdering.Heuristic initialOrdering = variableOrdering;
+		String output = "";
+		long registrationTime = -1;
+
+		for(VariableOrdering.Heuristic heuristic: VariableOrdering.Heuristic.values()) {
+
+			System.out.println("=== Benchmark the variable ordering " + heuristic);
+			variableOrdering = heuristic;
+
+			long start = System.currentTimeMillis();
+			computeIPFacets();
+			long time = System.currentTimeMillis() - start;
+
+			if(heuristic == VariableOrdering.Heuristic.REGISTRATION)
+				registrationTime = time;
+
+			output += heuristic + ": " + time + "ms";
+
+			if(time > 0 && registrationTime >= 0)
+				output += " (speedup: " + nf.format((double)registrationTime / time) + ")";
+
+			output += ", facets: " + PortaFiles.readConstraints(sTmpPOIFile + ".ieq").size() + "\n";
+		}
+
+		variableOrdering = initialOrdering;
+
+		return output;
+	}
+
+	/**
+	 * Run analysis stages of the polytope, the independent stages being run concurrently (see AnalysisPipeline)
+	 * @param stages The required stages (all the stages if none is specified)
+	 * @return The results of the stages
+	 * @throws IOException If a stage fails
+	 */
+	public AnalysisPipeline.AnalysisResult analyze(AnalysisPipeline.Stage... stages) throws IOException {
+		return new AnalysisPipeline(this).run(stages);
+	}
+
+	/**
+	 * Use porta to get the dimension and the hyperplanes which include the convex hull of the integer points of the polytope
+	 * @return The dimension and the hyperplanes which include porta; null if an error occurred
+	 * @throws UnknownVariableName 
+	 * @throws InvalidIEQFileFormatException 
+	 */
+	public String getIPDimension() throws UnknownVariableName, InvalidIEQFileFormatException{
+
+		generateIntegerPoints();
+
+		return computeIPDimension();
+	}
+
+	/**
+	 * Use porta to get the dimension and the hyperplanes which include the convex hull of the integer points in sTmpPOIFile
+	 * @return The dimension and the hyperplanes which include porta; null if an error occurred
+	 * @throws UnknownVariableName
+	 */
+	protected String computeIPDimension() throws UnknownVariableName{
+
+		String output = null;
+
+		System.out.println("=== Get the dimension");
+		System.out.println("INITIAL DIMENSION : " + variables.size());
+
+		FixedVariablesReduction reduction = null;
+		AffineHullReduction hull = null;
+
+		if(reduceToAffineHull)
+			hull = computeAffineHull(sTmpPOIFile, variables.size());
+		else if(eliminateFixedVariables)
+			reduction = reduceIntegerPointsFile(sTmpPOIFile, variables.size());
+
+		/* The affine hull directly provides the dimension and the equations */
+		if(hull != null) {
+			output = "DIMENSION OF THE INTEGER POLYHEDRON : " + hull.getIntrinsicDimension() + "\n\nEQUATIONS OF THE AFFINE HULL\n";
+
+			int number = 1;
+
+			for(LinearConstraint equation: hull.getEquations())
+				output += "(" + number++ + ") " + equation + "\n";
+		}
+		else if(reduction == null)
+			output = runDim(this.sTmpPOIFile);
+		else {
+			output = reduction.expandPortaNames(runDim(this.sTmpReducedPOIFile));
+			output += "\nFIXED VARIABLES\n";
+
+			for(LinearConstraint equation: reduction.getFixingEquations())
+				output += equation + "\n";
+		}
+
+		output = replacePortaVariablesInString(output);
+
+		return output;
+
+	}
+	
+
+	public String getIntegerPoints() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		String results = "";
+
+		generateIntegerPoints();
+
+		convertPOIFile(sTmpPOIFile, sTmpConvertedIntegerPointsFile);
+
+		try{
+			InputStream ips=new FileInputStream(sTmpConvertedIntegerPointsFile);
+			InputStreamReader ipsr=new InputStreamReader(ips);
+			BufferedReader br=new BufferedReader(ipsr);
+			String line;
+
+			while ((line=br.readLine())!=null)
+				results += line + "\n";
+
+			br.close();
+		}catch(Exception e){
+			System.out.println(e.toString());
+		}
+
+		return results;
+	}
+	
+
+	
+
+	/**
+	 * Use porta to get the extreme points of a polytope associated to this formulation and write them in a file
+	 * @param outputFile The file in which the facets will be added; null if an error occurred
+	 * @param isIntegerPoltyope True if we consider the integer polytope; false if we consider the relaxation polytope
+	 * @throws UnknownVariableName 
+	 * @throws InvalidIEQFileFormatException 
+	 * @throws IOException 
+	 */
+	public void writeExtremePointsInFile(String outputFile, boolean isIntegerPolytope) throws UnknownVariableName, InvalidIEQFileFormatException, IOException{
+
+		String formulationFile;
+		
 		if(isIntegerPolytope)
 			formulationFile = generateIPFormulation();
 		else
@@ -679,10 +2259,16 @@ public abstract class AbstractPolytope {
 			
 		String lastTrafOutputFile = formulationFile + ".poi";
 		System.out.println("=== Get the extreme points (input: " + formulationFile + ", output: " + lastTrafOutputFile + ")");
-		traf(formulationFile);
+		runTraf(formulationFile);
 
 		System.out.println("=== Convert extreme points (input: " + lastTrafOutputFile + ", output: " + outputFile + ")");
 		convertPOIFile(lastTrafOutputFile, outputFile);
+
+		/* The integer points have been replaced by the converted extreme points */
+		if(new File(outputFile).getAbsoluteFile().equals(new File(sTmpPOIFile).getAbsoluteFile())) {
+			clearIntegerPointsCaches();
+			integerPointsGenerated = false;
+		}
 	}
 	
 	public String getIPExtremePoints() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
@@ -737,7 +2323,7 @@ public abstract class AbstractPolytope {
 
 		String output = sTmpPOIFile + ".ieq";
 		System.out.println("=== Generate the integer polytope (output: " + output + ")");
-		traf(sTmpPOIFile);
+		computeIPFacets();
 		
 		return output;
 		
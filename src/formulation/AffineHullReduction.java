@@ -0,0 +1,436 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-parameterization of integer points in a lattice basis of their affine hull.
+ *
+ * Let p0 be the first point and L the lattice generated by the vectors p - p0.
+ * A basis B = (b_1, ..., b_k) of L is computed in row echelon form (each vector b_r has a positive pivot coefficient in column j_r and
+ * zero coefficients in the columns lower than j_r). Each point p is then uniquely expressed as
+ *
+ * p = p0 + sum_r lambda_r b_r with lambda integer
+ *
+ * so that the points lambda are full-dimensional in dimension k = dim(aff(points)).
+ *
+ * An inequality of the original space is canonical if its coefficients are zero for all the non-pivot variables and if its coefficients are coprime.
+ * Two inequalities are equivalent on the affine hull if and only if their canonical forms are equal.
+ *
+ * All the computations are exact (an ArithmeticException is thrown in case of overflow).
+ * @author zach
+ *
+ */
+public class AffineHullReduction {
+
+	/** Number of variables in the original space */
+	int dimension;
+
+	/** Reference point p0 */
+	int[] origin;
+
+	/** Lattice basis of the affine hull (one vector per line, in row echelon form) */
+	long[][] basis;
+
+	/** Pivot column of each vector of the basis (starting from 0) */
+	int[] pivots;
+
+	/** True if a column is the pivot column of a vector of the basis */
+	boolean[] isPivot;
+
+	/** Product of the pivot coefficients */
+	long determinant;
+
+	/** Equations of the affine hull (one per non-pivot column) */
+	List<LinearConstraint> equations;
+
+	/** Equation associated to each non-pivot column (null for the pivot columns) */
+	LinearConstraint[] equationOfColumn;
+
+	private AffineHullReduction(int dimension, int[] origin, List<long[]> basisVectors) {
+
+		this.dimension = dimension;
+		this.origin = origin;
+		this.basis = basisVectors.toArray(new long[basisVectors.size()][]);
+
+		pivots = new int[basis.length];
+		isPivot = new boolean[dimension];
+		determinant = 1;
+
+		for(int r = 0; r < basis.length; r++) {
+			pivots[r] = firstNonZero(basis[r]);
+			isPivot[pivots[r]] = true;
+			determinant = Math.multiplyExact(determinant, basis[r][pivots[r]]);
+		}
+
+		computeEquations();
+	}
+
+	/**
+	 * Compute the lattice basis of the affine hull of a set of points
+	 * @param dimension Number of variables
+	 * @param points The points (the value of the variable of porta id i is in position i-1); at least one point is required
+	 * @return
+	 */
+	public static AffineHullReduction fromPoints(int dimension, List<int[]> points) {
+
+		int[] origin = points.get(0).clone();
+
+		/* Vectors of the basis ordered by increasing pivot column */
+		List<long[]> basis = new ArrayList<>();
+
+		for(int[] point: points) {
+
+			long[] v = new long[dimension];
+
+			for(int i = 0; i < dimension; i++)
+				v[i] = point[i] - origin[i];
+
+			insert(basis, v);
+		}
+
+		reduceAbovePivots(basis);
+
+		return new AffineHullReduction(dimension, origin, basis);
+	}
+
+	/**
+	 * Add a vector to the lattice generated by a basis in row echelon form (through unimodular operations only)
+	 * @param basis The basis (ordered by increasing pivot column)
+	 * @param v The vector (modified by the method)
+	 */
+	private static void insert(List<long[]> basis, long[] v) {
+
+		int vPivot = firstNonZero(v);
+		int r = 0;
+
+		while(vPivot != -1 && r < basis.size()) {
+
+			long[] b = basis.get(r);
+			int bPivot = firstNonZero(b);
+
+			/* If v must be inserted before b */
+			if(vPivot < bPivot) {
+				basis.add(r, positivePivot(v, vPivot));
+				return;
+			}
+
+			/* If v and b have the same pivot, combine them with the extended Euclidean algorithm */
+			if(vPivot == bPivot) {
+
+				long[] bezout = extendedGcd(b[bPivot], v[vPivot]);
+				long g = bezout[0];
+				long bFactor = b[bPivot] / g;
+				long vFactor = v[vPivot] / g;
+
+				long[] newB = new long[b.length];
+				long[] newV = new long[b.length];
+
+				for(int i = bPivot; i < b.length; i++) {
+					newB[i] = Math.addExact(Math.multiplyExact(bezout[1], b[i]), Math.multiplyExact(bezout[2], v[i]));
+					newV[i] = Math.subtractExact(Math.multiplyExact(bFactor, v[i]), Math.multiplyExact(vFactor, b[i]));
+				}
+
+				basis.set(r, positivePivot(newB, bPivot));
+				v = newV;
+				vPivot = firstNonZero(v);
+			}
+
+			r++;
+		}
+
+		if(vPivot != -1)
+			basis.add(positivePivot(v, vPivot));
+	}
+
+	/**
+	 * Reduce the coefficients of the basis vectors located above the pivots (0 <= b_s[j_r] < b_r[j_r] for all s < r) to limit their growth
+	 * @param basis
+	 */
+	private static void reduceAbovePivots(List<long[]> basis) {
+
+		for(int r = 1; r < basis.size(); r++) {
+
+			long[] b = basis.get(r);
+			int pivot = firstNonZero(b);
+
+			for(int s = 0; s < r; s++) {
+				long[] other = basis.get(s);
+				long q = Math.floorDiv(other[pivot], b[pivot]);
+
+				if(q != 0)
+					for(int i = pivot; i < b.length; i++)
+						other[i] = Math.subtractExact(other[i], Math.multiplyExact(q, b[i]));
+			}
+		}
+	}
+
+	/**
+	 * Compute one equation of the affine hull for each non-pivot column j.
+	 * The equation has a coefficient -det on x_j, a coefficient y_r on each pivot variable x_{j_r} and no other non-zero coefficient, where
+	 * y = det B_J^{-1} B_{.,j} (B_J is the upper triangular matrix of the pivot columns).
+	 */
+	private void computeEquations() {
+
+		equations = new ArrayList<>();
+		equationOfColumn = new LinearConstraint[dimension];
+
+		for(int j = 0; j < dimension; j++)
+			if(!isPivot[j]) {
+
+				long[] column = new long[basis.length];
+
+				for(int r = 0; r < basis.length; r++)
+					column[r] = basis[r][j];
+
+				long[] y = solveScaled(column);
+
+				long[] coefficients = new long[dimension];
+				coefficients[j] = -determinant;
+
+				for(int r = 0; r < basis.length; r++)
+					coefficients[pivots[r]] = y[r];
+
+				long rhs = 0;
+
+				for(int i = 0; i < dimension; i++)
+					rhs = Math.addExact(rhs, Math.multiplyExact(coefficients[i], origin[i]));
+
+				LinearConstraint equation = new LinearConstraint(coefficients, LinearConstraint.Sense.EQ, rhs).normalize();
+
+				/* The coefficient of x_j must be positive */
+				if(equation.getCoefficient(j + 1) < 0)
+					equation = negate(equation);
+
+				equations.add(equation);
+				equationOfColumn[j] = equation;
+			}
+	}
+
+	/**
+	 * Solve the system y B_J^T = det * c (i.e., sum_{s >= r} b_r[j_s] y_s = det c_r for each r) by back substitution.
+	 * The solution is integer since det B_J^{-1} is the adjugate matrix of B_J.
+	 * @param c Vector of size k
+	 * @return y
+	 */
+	private long[] solveScaled(long[] c) {
+
+		int k = basis.length;
+		long[] y = new long[k];
+
+		for(int r = k - 1; r >= 0; r--) {
+
+			long value = Math.multiplyExact(determinant, c[r]);
+
+			for(int s = r + 1; s < k; s++)
+				value = Math.subtractExact(value, Math.multiplyExact(basis[r][pivots[s]], y[s]));
+
+			y[r] = value / basis[r][pivots[r]];
+		}
+
+		return y;
+	}
+
+	/** Dimension of the affine hull of the points */
+	public int getIntrinsicDimension() {
+		return basis.length;
+	}
+
+	/** Number of variables of the original space */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Get the equations of the affine hull in the original space
+	 * @return
+	 */
+	public List<LinearConstraint> getEquations(){
+		return equations;
+	}
+
+	/**
+	 * Get the coordinates lambda of a point of the affine lattice (i.e., p = p0 + sum_r lambda_r b_r)
+	 * @param point A point of the original space
+	 * @return The integer coordinates lambda; null if the point is not in the affine lattice
+	 */
+	public int[] reduce(int[] point) {
+
+		int k = basis.length;
+		long[] lambda = new long[k];
+
+		/* Forward substitution on the pivot columns: (p - p0)_{j_s} = sum_{r <= s} lambda_r b_r[j_s] */
+		for(int s = 0; s < k; s++) {
+
+			long value = point[pivots[s]] - origin[pivots[s]];
+
+			for(int r = 0; r < s; r++)
+				value = Math.subtractExact(value, Math.multiplyExact(lambda[r], basis[r][pivots[s]]));
+
+			if(value % basis[s][pivots[s]] != 0)
+				return null;
+
+			lambda[s] = value / basis[s][pivots[s]];
+		}
+
+		/* Check the non-pivot columns */
+		for(int j = 0; j < dimension; j++)
+			if(!isPivot[j]) {
+				long value = origin[j];
+
+				for(int r = 0; r < k; r++)
+					value = Math.addExact(value, Math.multiplyExact(lambda[r], basis[r][j]));
+
+				if(value != point[j])
+					return null;
+			}
+
+		int[] result = new int[k];
+
+		for(int r = 0; r < k; r++)
+			result[r] = Math.toIntExact(lambda[r]);
+
+		return result;
+	}
+
+	/**
+	 * Get the point of the original space associated to coordinates lambda
+	 * @param lambda
+	 * @return p0 + sum_r lambda_r b_r
+	 */
+	public int[] expand(int[] lambda) {
+
+		int[] result = new int[dimension];
+
+		for(int i = 0; i < dimension; i++) {
+			long value = origin[i];
+
+			for(int r = 0; r < basis.length; r++)
+				value = Math.addExact(value, Math.multiplyExact(lambda[r], basis[r][i]));
+
+			result[i] = Math.toIntExact(value);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Express a constraint of the reduced space (on the coordinates lambda) as a canonical constraint of the original space
+	 * @param reducedConstraint A constraint f lambda (sense) g
+	 * @return The canonical constraint h x_J (sense) det g + h p0_J with h = det B_J^{-1} f
+	 */
+	public LinearConstraint expand(LinearConstraint reducedConstraint) {
+
+		long[] f = reducedConstraint.toDense(basis.length);
+		long[] h = solveScaled(f);
+
+		long[] coefficients = new long[dimension];
+		long rhs = Math.multiplyExact(determinant, reducedConstraint.rhs);
+
+		for(int r = 0; r < basis.length; r++) {
+			coefficients[pivots[r]] = h[r];
+			rhs = Math.addExact(rhs, Math.multiplyExact(h[r], origin[pivots[r]]));
+		}
+
+		/* The determinant is positive since all the pivots are positive, the sense of the constraint is unchanged */
+		return new LinearConstraint(coefficients, reducedConstraint.sense, rhs).normalize();
+	}
+
+	/**
+	 * Get the canonical form of a constraint of the original space (i.e., use the equations of the affine hull to remove the non-pivot variables)
+	 * @param constraint
+	 * @return A new constraint equivalent to {@code constraint} on the affine hull
+	 */
+	public LinearConstraint canonicalize(LinearConstraint constraint) {
+
+		LinearConstraint c = constraint.toLessOrEqual();
+		long[] coefficients = c.toDense(dimension);
+		long rhs = c.rhs;
+
+		for(int j = 0; j < dimension; j++)
+			if(!isPivot[j] && coefficients[j] != 0) {
+
+				LinearConstraint equation = equationOfColumn[j];
+
+				/* Positive coefficient of x_j in the equation */
+				long ej = equation.getCoefficient(j + 1);
+				long cj = coefficients[j];
+
+				for(int i = 0; i < dimension; i++)
+					coefficients[i] = Math.multiplyExact(ej, coefficients[i]);
+
+				rhs = Math.multiplyExact(ej, rhs);
+
+				for(int i = 0; i < equation.ids.length; i++) {
+					int id = equation.ids[i] - 1;
+					coefficients[id] = Math.subtractExact(coefficients[id], Math.multiplyExact(cj, equation.coefficients[i]));
+				}
+
+				rhs = Math.subtractExact(rhs, Math.multiplyExact(cj, equation.rhs));
+			}
+
+		LinearConstraint result = new LinearConstraint(coefficients, c.sense, rhs).normalize();
+
+		/* The sign of an equation is arbitrary: the first coefficient is made positive */
+		if(result.sense == LinearConstraint.Sense.EQ && result.coefficients.length > 0 && result.coefficients[0] < 0)
+			result = negate(result);
+
+		return result;
+	}
+
+	private static LinearConstraint negate(LinearConstraint c) {
+
+		long[] coefficients = new long[c.coefficients.length];
+
+		for(int i = 0; i < coefficients.length; i++)
+			coefficients[i] = -c.coefficients[i];
+
+		return new LinearConstraint(c.ids.clone(), coefficients, c.sense.opposite(), -c.rhs);
+	}
+
+	private static int firstNonZero(long[] v) {
+
+		for(int i = 0; i < v.length; i++)
+			if(v[i] != 0)
+				return i;
+
+		return -1;
+	}
+
+	private static long[] positivePivot(long[] v, int pivot) {
+
+		if(v[pivot] < 0)
+			for(int i = pivot; i < v.length; i++)
+				v[i] = -v[i];
+
+		return v;
+	}
+
+	/**
+	 * Extended Euclidean algorithm
+	 * @return {g, u, v} such that g = gcd(a, b) = u a + v b and g > 0
+	 */
+	private static long[] extendedGcd(long a, long b) {
+
+		long oldR = a, r = b;
+		long oldS = 1, s = 0;
+		long oldT = 0, t = 1;
+
+		while(r != 0) {
+			long q = oldR / r;
+			long tmp;
+
+			tmp = r; r = oldR - q * r; oldR = tmp;
+			tmp = s; s = oldS - q * s; oldS = tmp;
+			tmp = t; t = oldT - q * t; oldT = tmp;
+		}
+
+		if(oldR < 0) {
+			oldR = -oldR;
+			oldS = -oldS;
+			oldT = -oldT;
+		}
+
+		return new long[] {oldR, oldS, oldT};
+	}
+}
@@ -0,0 +1,149 @@
+package formulation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import utils.Utility;
+
+/**
+ * Record of the completed stages of the analyses of a batch of instances, used to resume the batch after an interruption.
+ *
+ * Each line of the manifest file describes a completed stage of an instance:
+ * <instance>	<stage>	<hash of the instance file>	<output file>	<hash of the output file>	<running time in ms>
+ *
+ * A stage is considered completed if it is recorded, if the instance file has not been modified since and if its output file still has
+ * the recorded hash (i.e., it has not been partially written or modified). The file is rewritten after each record, through a
+ * temporary file so that an interruption cannot corrupt it.
+ * @author zach
+ *
+ */
+public class AnalysisManifest {
+
+	/**
+	 * Completed stage of an instance
+	 */
+	static class Entry{
+		String instanceHash;
+		String outputFile;
+		String outputHash;
+		long time;
+	}
+
+	String manifestFile;
+
+	/** Entries indexed by <instance>\t<stage> */
+	Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * Create a manifest or load it if the file exists
+	 * @param manifestFile Path of the manifest file
+	 * @throws IOException
+	 */
+	public AnalysisManifest(String manifestFile) throws IOException {
+
+		this.manifestFile = manifestFile;
+
+		if(!new File(manifestFile).exists())
+			return;
+
+		for(String line: Files.readAllLines(Paths.get(manifestFile))) {
+			String[] sLine = line.split("\t");
+
+			/* Ignore the invalid lines */
+			if(sLine.length != 6)
+				continue;
+
+			Entry entry = new Entry();
+			entry.instanceHash = sLine[2];
+			entry.outputFile = sLine[3];
+			entry.outputHash = sLine[4];
+
+			try {
+				entry.time = Long.parseLong(sLine[5]);
+			} catch(NumberFormatException e) {
+				continue;
+			}
+
+			entries.put(sLine[0] + "\t" + sLine[1], entry);
+		}
+	}
+
+	/**
+	 * Test if a stage of an instance is completed
+	 * @param instance Name of the instance
+	 * @param stage Name of the stage
+	 * @param instanceHash Current hash of the instance file
+	 * @return True if the stage is recorded for this version of the instance and if its output file is unchanged
+	 */
+	public synchronized boolean isCompleted(String instance, String stage, String instanceHash) {
+
+		Entry entry = entries.get(instance + "\t" + stage);
+
+		if(entry == null || !entry.instanceHash.equals(instanceHash) || !new File(entry.outputFile).exists())
+			return false;
+
+		try {
+			return entry.outputHash.equals(Utility.hashFile(entry.outputFile));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get the output file of a completed stage
+	 * @param instance
+	 * @param stage
+	 * @return The path of the file; null if the stage is not recorded
+	 */
+	public synchronized String getOutputFile(String instance, String stage) {
+
+		Entry entry = entries.get(instance + "\t" + stage);
+
+		return entry == null ? null : entry.outputFile;
+	}
+
+	/**
+	 * Record a completed stage and save the manifest
+	 * @param instance Name of the instance
+	 * @param stage Name of the stage
+	 * @param instanceHash Hash of the instance file
+	 * @param outputFile Path of the output file of the stage
+	 * @param time Running time of the stage (in milliseconds)
+	 * @throws IOException
+	 */
+	public synchronized void record(String instance, String stage, String instanceHash, String outputFile, long time) throws IOException {
+
+		Entry entry = new Entry();
+		entry.instanceHash = instanceHash;
+		entry.outputFile = outputFile;
+		entry.outputHash = Utility.hashFile(outputFile);
+		entry.time = time;
+
+		entries.put(instance + "\t" + stage, entry);
+
+		save();
+	}
+
+	private void save() throws IOException {
+
+		String tmpFile = manifestFile + ".tmp";
+
+		PortaFiles.createParentFolder(manifestFile);
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(tmpFile))) {
+			for(Map.Entry<String, Entry> e: entries.entrySet()) {
+				Entry entry = e.getValue();
+				bw.write(e.getKey() + "\t" + entry.instanceHash + "\t" + entry.outputFile + "\t" + entry.outputHash + "\t" + entry.time + "\n");
+			}
+		}
+
+		Files.move(Paths.get(tmpFile), Paths.get(manifestFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
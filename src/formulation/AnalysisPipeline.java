@@ -0,0 +1,497 @@
+package formulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import exception.InvalidIEQFileFormatException;
+import exception.UnknownVariableName;
+import utils.Command;
+import utils.Utility;
+
+/**
+ * Analysis of a polytope represented as a graph of stages in which the stages which do not depend on each other are run concurrently.
+ *
+ * Each stage is run at most once per analysis (its result is shared by all the stages which depend on it):
+ * - INTEGER_POINTS: generate the integer points in sTmpPOIFile (vint for a formulation)
+ * - DIMENSION: dim on the integer points
+ * - FACETS: traf on the integer points (or the block decomposition if it is enabled, in which case the stage does not wait for the
+ * integer points of the whole formulation)
+ * - CONVERTED_FACETS: conversion of the facets with the original names of the variables (and computation of the incidences with the
+ * integer points if enabled)
+ * - CONVERTED_INTEGER_POINTS: conversion of the integer points with the original names of the variables
+ * - RELAXATION_EXTREME_POINTS: traf on the formulation (written in sTmpRelaxationIEQFile) and conversion of the extreme points. If the
+ * polytope is defined by its integer points, P = I(P) and this stage applies traf on the facets.
+ *
+ * Since the fixed variables reduction of dim and traf are written in the same file, DIMENSION waits for FACETS if this reduction is enabled.
+ * RELAXATION_EXTREME_POINTS does not wait for INTEGER_POINTS (which also generates the formulation): the constraints of a formulation are
+ * generated by one stage at a time (see AbstractFormulation.getConstraintRows()) and the relaxation is written in its own file, so that
+ * the relaxation can be analyzed again without running vint.
+ *
+ * If a stage fails, the stages which have not started are not run and the porta processes of the running stages are destroyed.
+ *
+ * If a manifest is set, each completed stage is recorded with the hash of its output file and a stage whose output is still valid is
+ * not run again (nor are the stages on which it depends, unless another stage requires them). The stages are assumed to be
+ * deterministic.
+ * @author zach
+ *
+ */
+public class AnalysisPipeline {
+
+	public enum Stage{
+		INTEGER_POINTS,
+		DIMENSION,
+		FACETS,
+		CONVERTED_FACETS,
+		CONVERTED_INTEGER_POINTS,
+		RELAXATION_EXTREME_POINTS
+	}
+
+	/**
+	 * Results of an analysis (the results of the stages which have not been run are null)
+	 */
+	public static class AnalysisResult{
+
+		/** Output of dim with the original names of the variables */
+		public String dimension;
+
+		/** Inequalities of the converted facets file */
+		public String facets;
+
+		/** Content of the converted integer points file */
+		public String integerPoints;
+
+		/** Content of the converted extreme points file of the relaxation */
+		public String relaxationExtremePoints;
+
+		/** Running time of each stage which has been run (in milliseconds) */
+		public Map<Stage, Long> stageTimes = Collections.synchronizedMap(new EnumMap<>(Stage.class));
+	}
+
+	/**
+	 * Listener notified when a stage is completed (it is called by the thread which ran the stage)
+	 */
+	public interface StageListener{
+		void stageCompleted(Stage stage, long time);
+	}
+
+	/**
+	 * Body of a stage
+	 */
+	private interface StageTask{
+		void run() throws Exception;
+	}
+
+	AbstractPolytope polytope;
+
+	/** Maximal number of stages run concurrently */
+	int threadsNb;
+
+	/** Permits shared by the pipelines which limit the number of stages run concurrently by all of them (null if there is no limit) */
+	Semaphore portaPermits = null;
+
+	/** Listener notified after each stage (null if none) */
+	StageListener listener = null;
+
+	/** Manifest in which the completed stages are recorded (null if the stages are not recorded) */
+	AnalysisManifest manifest = null;
+
+	/** Name and hash of the instance in the manifest */
+	String instance;
+	String instanceHash;
+
+	ExecutorService executor;
+	AnalysisResult result;
+
+	/** Threads of the executor (their porta processes are destroyed if a stage fails) */
+	Set<Thread> workers;
+
+	/** First failure of the current analysis (null as long as no stage failed) */
+	AtomicReference<Throwable> failure;
+
+	/** True if the facets of the current analysis are computed by decomposing the formulation into blocks */
+	boolean facetsByBlocks;
+
+	/** Future of each stage which has been scheduled in the current analysis */
+	Map<Stage, CompletableFuture<Void>> futures;
+
+	/**
+	 * @param polytope The analyzed polytope
+	 */
+	public AnalysisPipeline(AbstractPolytope polytope) {
+		this(polytope, Stage.values().length);
+	}
+
+	/**
+	 * @param polytope The analyzed polytope
+	 * @param threadsNb Maximal number of stages run concurrently (i.e., of concurrent porta processes)
+	 */
+	public AnalysisPipeline(AbstractPolytope polytope, int threadsNb) {
+		this.polytope = polytope;
+		this.threadsNb = Math.max(1, threadsNb);
+	}
+
+	/**
+	 * @param polytope The analyzed polytope
+	 * @param threadsNb Maximal number of stages run concurrently by this pipeline
+	 * @param portaPermits Permits acquired by each stage while it runs (shared by several pipelines to limit the number of concurrent
+	 * porta processes)
+	 */
+	public AnalysisPipeline(AbstractPolytope polytope, int threadsNb, Semaphore portaPermits) {
+		this(polytope, threadsNb);
+		this.portaPermits = portaPermits;
+	}
+
+	public void setStageListener(StageListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Record the completed stages in a manifest and skip the stages already completed by a previous run.
+	 * The output files of the stages must be specific to the instance (see AbstractPolytope.setTmpFolder()).
+	 * @param manifest The manifest
+	 * @param instance Name of the instance in the manifest
+	 * @param instanceFile File which defines the instance (the recorded stages are ignored if it is modified)
+	 * @throws IOException If the instance file cannot be read
+	 */
+	public void setManifest(AnalysisManifest manifest, String instance, String instanceFile) throws IOException {
+		this.manifest = manifest;
+		this.instance = instance;
+		this.instanceHash = Utility.hashFile(instanceFile);
+	}
+
+	/**
+	 * Run stages and the stages on which they depend
+	 * @param stages The required stages (all the stages if none is specified)
+	 * @return
+	 * @throws IOException If a stage fails
+	 */
+	public AnalysisResult run(Stage... stages) throws IOException {
+
+		if(stages.length == 0)
+			stages = Stage.values();
+
+		/* The variables are shared by all the stages and must be created before they start */
+		polytope.initializeVariables();
+		facetsByBlocks = usesBlockDecomposition();
+
+		polytope.profiler.reset();
+		result = new AnalysisResult();
+		futures = new EnumMap<>(Stage.class);
+		failure = new AtomicReference<>();
+		workers = ConcurrentHashMap.newKeySet();
+		executor = Executors.newFixedThreadPool(threadsNb, runnable -> {
+			Thread worker = new Thread(runnable);
+			workers.add(worker);
+			return worker;
+		});
+
+		long start = System.currentTimeMillis();
+
+		try {
+			List<CompletableFuture<Void>> required = new ArrayList<>();
+
+			for(Stage stage: stages)
+				required.add(schedule(stage));
+
+			CompletableFuture.allOf(required.toArray(new CompletableFuture<?>[0])).get();
+
+		} catch (InterruptedException e) {
+			cancel(e);
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+
+			/* The stages cancelled after the failure also fail, the first failure is reported */
+			Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+			throw new IOException("The analysis failed (" + cause.getMessage() + ")", cause);
+		} finally {
+			executor.shutdown();
+		}
+
+		System.out.println("=== Analysis completed (stages: " + result.stageTimes + ", total time: " + (System.currentTimeMillis() - start) + "ms)");
+		polytope.printProfile();
+
+		return result;
+	}
+
+	/**
+	 * Get the future of a stage (the stage and the stages on which it depends are scheduled if they are not already)
+	 * @param stage
+	 * @return
+	 */
+	private CompletableFuture<Void> schedule(Stage stage) {
+
+		CompletableFuture<Void> future = futures.get(stage);
+
+		if(future != null)
+			return future;
+
+		/* If the stage has been completed by a previous run, its dependencies are not required */
+		if(manifest != null && manifest.isCompleted(instance, stage.toString(), instanceHash)) {
+
+			try {
+				loadResult(stage);
+				System.out.println("=== Skip the stage " + stage + " of " + instance + " (completed by a previous run)");
+				future = CompletableFuture.completedFuture(null);
+			} catch (IOException e) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(new IOException(stage + ": " + e.getMessage(), e));
+			}
+
+			futures.put(stage, future);
+			return future;
+		}
+
+		List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+
+		for(Stage dependency: dependencies(stage))
+			dependencies.add(schedule(dependency));
+
+		future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+
+			if(failure.get() != null)
+				throw new CompletionException(new IOException(stage + ": cancelled since another stage failed"));
+
+			long start = System.currentTimeMillis();
+
+			try {
+				if(portaPermits != null)
+					portaPermits.acquire();
+
+				try {
+					task(stage).run();
+				} finally {
+					if(portaPermits != null)
+						portaPermits.release();
+				}
+			} catch (Exception e) {
+				IOException stageFailure = new IOException(stage + ": " + e.getMessage(), e);
+				cancel(stageFailure);
+				throw new CompletionException(stageFailure);
+			}
+
+			/* The output of a stage whose porta process has been destroyed is incomplete */
+			if(failure.get() != null)
+				throw new CompletionException(new IOException(stage + ": cancelled since another stage failed"));
+
+			long time = System.currentTimeMillis() - start;
+			result.stageTimes.put(stage, time);
+
+			if(manifest != null)
+				try {
+					manifest.record(instance, stage.toString(), instanceHash, outputFile(stage), time);
+				} catch (IOException e) {
+					System.err.println("Error: unable to record the stage " + stage + " of " + instance + " in the manifest: " + e.getMessage());
+				}
+
+			if(listener != null)
+				listener.stageCompleted(stage, time);
+
+		}, executor);
+
+		futures.put(stage, future);
+
+		return future;
+	}
+
+	/**
+	 * Stop the current analysis after a failure: the stages which have not started are not run and the porta processes of the
+	 * running stages are destroyed
+	 * @param cause The failure
+	 */
+	private void cancel(Throwable cause) {
+
+		if(!failure.compareAndSet(null, cause))
+			return;
+
+		for(Thread worker: workers)
+			if(worker != Thread.currentThread())
+				Command.destroyProcessOf(worker);
+	}
+
+	/**
+	 * Get the stages which must be completed before a stage starts
+	 * @param stage
+	 * @return
+	 */
+	List<Stage> dependencies(Stage stage){
+
+		switch(stage) {
+		case DIMENSION:
+			return polytope.eliminateFixedVariables ? Arrays.asList(Stage.INTEGER_POINTS, Stage.FACETS) : Arrays.asList(Stage.INTEGER_POINTS);
+		case FACETS:
+			return facetsByBlocks ? Collections.emptyList() : Arrays.asList(Stage.INTEGER_POINTS);
+		case CONVERTED_INTEGER_POINTS:
+			return Arrays.asList(Stage.INTEGER_POINTS);
+		case CONVERTED_FACETS:
+			return polytope.computeIncidence ? Arrays.asList(Stage.FACETS, Stage.INTEGER_POINTS) : Arrays.asList(Stage.FACETS);
+		case RELAXATION_EXTREME_POINTS:
+			return polytope instanceof AbstractFormulation ? Collections.emptyList() : Arrays.asList(Stage.FACETS);
+		default:
+			return Collections.emptyList();
+		}
+	}
+
+	private StageTask task(Stage stage) {
+
+		switch(stage) {
+		case INTEGER_POINTS:
+			return polytope::generateIntegerPoints;
+		case DIMENSION:
+			return () -> {
+				result.dimension = polytope.computeIPDimension();
+				PortaFiles.createParentFolder(outputFile(stage));
+				Files.write(Paths.get(outputFile(stage)), (result.dimension == null ? "" : result.dimension).getBytes());
+			};
+		case FACETS:
+			return this::computeFacets;
+		case CONVERTED_FACETS:
+			return this::convertFacets;
+		case CONVERTED_INTEGER_POINTS:
+			return () -> {
+				polytope.convertPOIFile(polytope.sTmpPOIFile, polytope.sTmpConvertedIntegerPointsFile);
+				result.integerPoints = readFile(polytope.sTmpConvertedIntegerPointsFile);
+			};
+		default:
+			return this::computeRelaxationExtremePoints;
+		}
+	}
+
+	/**
+	 * Get the file in which a stage writes its output
+	 * @param stage
+	 * @return
+	 */
+	String outputFile(Stage stage) {
+
+		switch(stage) {
+		case INTEGER_POINTS:
+			return polytope.sTmpPOIFile;
+		case DIMENSION:
+			return polytope.sTmpFolder + "/" + polytope.sTmpFileCanonicName + ".dim";
+		case FACETS:
+			return polytope.sTmpPOIFile + ".ieq";
+		case CONVERTED_FACETS:
+			return polytope.sTmpConvertedFacetsFile;
+		case CONVERTED_INTEGER_POINTS:
+			return polytope.sTmpConvertedIntegerPointsFile;
+		default:
+			return (polytope instanceof AbstractFormulation ? polytope.sTmpRelaxationIEQFile : polytope.sTmpPOIFile + ".ieq") + ".poi_converted";
+		}
+	}
+
+	/**
+	 * Read the result of a stage from its output file
+	 * @param stage
+	 * @throws IOException
+	 */
+	private void loadResult(Stage stage) throws IOException {
+
+		switch(stage) {
+		case INTEGER_POINTS:
+
+			/* The points of sTmpPOIFile are read by the next stages instead of being generated again (e.g., for the incidences) */
+			polytope.integerPointsRewritten();
+			break;
+		case DIMENSION:
+			result.dimension = readFile(outputFile(stage));
+			break;
+		case CONVERTED_FACETS:
+			result.facets = polytope.readInequalitiesSection(outputFile(stage));
+			break;
+		case CONVERTED_INTEGER_POINTS:
+			result.integerPoints = readFile(outputFile(stage));
+			break;
+		case RELAXATION_EXTREME_POINTS:
+			result.relaxationExtremePoints = readFile(outputFile(stage));
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Test if the facets are computed by decomposing the formulation into blocks
+	 * @return True if the block decomposition is enabled and if the formulation contains several blocks
+	 */
+	private boolean usesBlockDecomposition() {
+
+		if(!(polytope instanceof AbstractFormulation) || !((AbstractFormulation)polytope).decomposeIntoBlocks)
+			return false;
+
+		try {
+			return ((AbstractFormulation)polytope).getBlockDecomposition() != null;
+		} catch (UnknownVariableName | InvalidIEQFileFormatException e) {
+			System.err.println("Error: unable to decompose the formulation into blocks (" + e.getMessage() + "), the facets are computed from the integer points");
+			return false;
+		}
+	}
+
+	private void computeFacets() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		String outputTrafFile = polytope.sTmpPOIFile + ".ieq";
+
+		/* The integer points have not been generated, so traf cannot be applied on them if the decomposition fails */
+		if(facetsByBlocks) {
+			if(!((AbstractFormulation)polytope).computeIPFacetsByBlocks())
+				throw new IOException("unable to compute the facets of the blocks");
+
+			return;
+		}
+
+		System.out.println("=== Get the facets (input: " + polytope.sTmpPOIFile + ", output: " + outputTrafFile + ")");
+		polytope.computeIPFacets();
+	}
+
+	private void convertFacets() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		String outputTrafFile = polytope.sTmpPOIFile + ".ieq";
+
+		System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + polytope.sTmpConvertedFacetsFile + ")");
+		polytope.convertIEQFile(outputTrafFile, polytope.sTmpConvertedFacetsFile, true);
+
+		if(polytope.computeIncidence)
+			polytope.writeIncidenceMatrix(outputTrafFile, polytope.sTmpConvertedFacetsFile + ".incidence");
+
+		result.facets = polytope.readInequalitiesSection(polytope.sTmpConvertedFacetsFile);
+	}
+
+	private void computeRelaxationExtremePoints() throws UnknownVariableName, IOException {
+
+		String formulationFile;
+
+		if(polytope instanceof AbstractFormulation)
+			formulationFile = ((AbstractFormulation)polytope).generateFormulation(polytope.sTmpRelaxationIEQFile);
+		else
+			formulationFile = polytope.sTmpPOIFile + ".ieq";
+
+		String extremePointsFile = formulationFile + ".poi";
+		String convertedFile = outputFile(Stage.RELAXATION_EXTREME_POINTS);
+
+		System.out.println("=== Get the extreme points (input: " + formulationFile + ", output: " + extremePointsFile + ")");
+		polytope.runTraf(formulationFile);
+
+		polytope.convertPOIFile(extremePointsFile, convertedFile);
+		result.relaxationExtremePoints = readFile(convertedFile);
+	}
+
+	private static String readFile(String file) throws IOException {
+		return new String(Files.readAllBytes(Paths.get(file)));
+	}
+}
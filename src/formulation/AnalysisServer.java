@@ -0,0 +1,389 @@
+package formulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import utils.Utility;
+
+/**
+ * Server which analyzes polytopes submitted through a local socket.
+ *
+ * Running the analyses in a single JVM avoids the startup of a JVM and the scan of the PATH for the porta commands at each analysis and
+ * keeps the compiled code, the multiprecision registry and the results of the previous analyses in memory.
+ *
+ * A client sends one job per connection as a single line:
+ * <priority> <stages> LP <lp file>
+ * <priority> <stages> POINTS <integer points file> (see IntegerPointsReader)
+ * <priority> <stages> CLASS <name of a class which extends AbstractPolytope> <instance file> (the class must have a constructor with a
+ * String parameter)
+ * in which <stages> is ALL or a list of stages separated by commas (see AnalysisPipeline.Stage).
+ *
+ * The jobs with the highest priority are run first (in the order of submission for equal priorities). The server answers:
+ * - "QUEUED <job id>" when the job is added to the queue;
+ * - "STARTED <job id>" when the job starts;
+ * - "STAGE <stage> <time>ms" when a stage is completed;
+ * - "BEGIN <stage>", the result of the stage and "END <stage>" for each required stage;
+ * - "DONE <job id> <time>ms" or "FAILED <job id> <message>".
+ *
+ * Each job writes its temporary files in its own folder, which is deleted once its results are sent. All the jobs share the
+ * multiprecision registry of the server folder.
+ *
+ * The line "SHUTDOWN" stops the server: no new job is accepted and the server exits once the queued jobs are completed.
+ * @author zach
+ *
+ */
+public class AnalysisServer {
+
+	/** Maximal number of results kept in memory */
+	public static int resultCacheSize = 100;
+
+	/** Folder which contains the temporary folder of each job and the multiprecision registry */
+	public static String tmpFolder = "./.tmp";
+
+	/**
+	 * Analysis submitted by a client
+	 */
+	class Job implements Comparable<Job>{
+
+		long id;
+		int priority;
+		AnalysisPipeline.Stage[] stages;
+		String type;
+		String[] arguments;
+		PrintWriter out;
+
+		/** Socket of the client (closed once the job is completed) */
+		Socket socket;
+
+		@Override
+		public int compareTo(Job job) {
+			return priority != job.priority ? Integer.compare(job.priority, priority) : Long.compare(id, job.id);
+		}
+	}
+
+	int port;
+
+	/** Number of jobs run concurrently */
+	int workersNb;
+
+	/** Maximal number of porta processes run concurrently by all the jobs */
+	Semaphore portaPermits;
+
+	PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>();
+	AtomicLong jobsNb = new AtomicLong();
+	volatile boolean isRunning = true;
+
+	/** Results of the previous jobs indexed by their type, their input files hash and their stages */
+	Map<String, AnalysisPipeline.AnalysisResult> results = Collections.synchronizedMap(new LinkedHashMap<String, AnalysisPipeline.AnalysisResult>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, AnalysisPipeline.AnalysisResult> eldest) {
+			return size() > resultCacheSize;
+		}
+	});
+
+	/**
+	 * @param port Port of the socket (on the loopback address)
+	 * @param workersNb Number of jobs run concurrently
+	 * @param portaProcessesNb Maximal number of porta processes run concurrently
+	 */
+	public AnalysisServer(int port, int workersNb, int portaProcessesNb) {
+		this.port = port;
+		this.workersNb = Math.max(1, workersNb);
+		this.portaPermits = new Semaphore(Math.max(1, portaProcessesNb), true);
+	}
+
+	/**
+	 * Accept the jobs until a client sends "SHUTDOWN"
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+
+		ExecutorService workers = Executors.newFixedThreadPool(workersNb);
+
+		for(int w = 0; w < workersNb; w++)
+			workers.submit(this::work);
+
+		try(ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+
+			System.out.println("=== Analysis server listening on port " + server.getLocalPort() + " (workers: " + workersNb + ", porta processes: " + portaPermits.availablePermits() + ")");
+
+			while(isRunning) {
+				Socket socket = server.accept();
+
+				try {
+					submit(socket);
+				} catch (IOException e) {
+					System.err.println("Error: unable to read a job: " + e.getMessage());
+					socket.close();
+				}
+			}
+		}
+		finally {
+			isRunning = false;
+			workers.shutdown();
+
+			try {
+				workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Read the job sent through a socket and add it to the queue
+	 * @param socket
+	 * @throws IOException
+	 */
+	private void submit(Socket socket) throws IOException {
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+		String line = in.readLine();
+
+		if(line == null) {
+			socket.close();
+			return;
+		}
+
+		line = line.trim();
+
+		if("SHUTDOWN".equals(line)) {
+			isRunning = false;
+			out.println("SHUTDOWN");
+			socket.close();
+			return;
+		}
+
+		Job job = new Job();
+		job.id = jobsNb.incrementAndGet();
+		job.out = out;
+		job.socket = socket;
+
+		try {
+			String[] sLine = line.split("\\s+");
+
+			if(sLine.length < 4)
+				throw new IllegalArgumentException("expected \"<priority> <stages> <type> <file> [<instance file>]\"");
+
+			job.priority = Integer.parseInt(sLine[0]);
+			job.stages = "ALL".equalsIgnoreCase(sLine[1]) ? AnalysisPipeline.Stage.values() : parseStages(sLine[1]);
+			job.type = sLine[2].toUpperCase();
+			job.arguments = Arrays.copyOfRange(sLine, 3, sLine.length);
+
+			if(!Arrays.asList("LP", "POINTS", "CLASS").contains(job.type))
+				throw new IllegalArgumentException("unknown job type " + job.type);
+
+			if("CLASS".equals(job.type) && job.arguments.length < 2)
+				throw new IllegalArgumentException("a CLASS job requires a class name and an instance file");
+
+		} catch(IllegalArgumentException e) {
+			out.println("FAILED " + job.id + " invalid job: " + e.getMessage());
+			socket.close();
+			return;
+		}
+
+		out.println("QUEUED " + job.id);
+		queue.add(job);
+	}
+
+	private static AnalysisPipeline.Stage[] parseStages(String stages) {
+
+		List<AnalysisPipeline.Stage> result = new ArrayList<>();
+
+		for(String stage: stages.split(","))
+			result.add(AnalysisPipeline.Stage.valueOf(stage.trim().toUpperCase()));
+
+		return result.toArray(new AnalysisPipeline.Stage[0]);
+	}
+
+	/**
+	 * Run the jobs of the queue until the server is stopped and the queue is empty
+	 */
+	private void work() {
+
+		try {
+			while(isRunning || !queue.isEmpty()) {
+				Job job = queue.poll(1, TimeUnit.SECONDS);
+
+				if(job == null)
+					continue;
+
+				try {
+					runJob(job);
+				} finally {
+					try {
+						job.socket.close();
+					} catch (IOException e) {
+						System.err.println("Error: unable to close the connection of job " + job.id + ": " + e.getMessage());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void runJob(Job job) {
+
+		long start = System.currentTimeMillis();
+		String jobFolder = tmpFolder + "/job" + job.id;
+		job.out.println("STARTED " + job.id);
+
+		try {
+			String key = jobKey(job);
+			AnalysisPipeline.AnalysisResult result = results.get(key);
+
+			if(result == null) {
+				AbstractPolytope polytope = createPolytope(job);
+
+				/* Each job uses its own temporary files but the inputs which required the multiprecision arithmetic are shared */
+				polytope.setTmpFolder(jobFolder, tmpFolder + "/" + MultiprecisionRegistry.REGISTRY_FILE_NAME);
+				Files.createDirectories(Paths.get(jobFolder));
+
+				AnalysisPipeline pipeline = new AnalysisPipeline(polytope, AnalysisPipeline.Stage.values().length, portaPermits);
+				pipeline.setStageListener((stage, time) -> job.out.println("STAGE " + stage + " " + time + "ms"));
+
+				result = pipeline.run(job.stages);
+				results.put(key, result);
+			}
+			else
+				job.out.println("CACHED " + job.id);
+
+			for(AnalysisPipeline.Stage stage: job.stages) {
+				String output = output(result, stage);
+
+				if(output != null) {
+					job.out.println("BEGIN " + stage);
+					job.out.print(output.endsWith("\n") || output.isEmpty() ? output : output + "\n");
+					job.out.println("END " + stage);
+				}
+			}
+
+			job.out.println("DONE " + job.id + " " + (System.currentTimeMillis() - start) + "ms");
+
+		} catch (Exception e) {
+			job.out.println("FAILED " + job.id + " " + e.getMessage());
+		} finally {
+
+			/* The results are kept in memory (or have been sent), the temporary files are no longer used */
+			try {
+				deleteFolder(jobFolder);
+			} catch (IOException e) {
+				System.err.println("Error: unable to delete the temporary folder of job " + job.id + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Delete a folder and its content (if it exists)
+	 * @param folder
+	 * @throws IOException
+	 */
+	private static void deleteFolder(String folder) throws IOException {
+
+		Path path = Paths.get(folder);
+
+		if(!Files.exists(path))
+			return;
+
+		try(Stream<Path> paths = Files.walk(path)) {
+			for(Path p: paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(p);
+		}
+	}
+
+	/**
+	 * Get the key of a job in the results cache
+	 * @param job
+	 * @return
+	 * @throws IOException If an input file cannot be read
+	 */
+	private static String jobKey(Job job) throws IOException {
+
+		String key = job.type + " " + Arrays.toString(job.stages);
+
+		if("CLASS".equals(job.type))
+			return key + " " + job.arguments[0] + " " + Utility.hashFile(job.arguments[1]);
+		else
+			return key + " " + Utility.hashFile(job.arguments[0]);
+	}
+
+	private static AbstractPolytope createPolytope(Job job) throws Exception {
+
+		switch(job.type) {
+		case "LP":
+			return new LPReader(job.arguments[0]);
+		case "POINTS":
+			return new IntegerPointsReader(job.arguments[0]);
+		default:
+			Object polytope = Class.forName(job.arguments[0]).getConstructor(String.class).newInstance(job.arguments[1]);
+
+			if(!(polytope instanceof AbstractPolytope))
+				throw new IllegalArgumentException(job.arguments[0] + " does not extend AbstractPolytope");
+
+			return (AbstractPolytope)polytope;
+		}
+	}
+
+	private static String output(AnalysisPipeline.AnalysisResult result, AnalysisPipeline.Stage stage) {
+
+		switch(stage) {
+		case DIMENSION:
+			return result.dimension;
+		case CONVERTED_FACETS:
+			return result.facets;
+		case CONVERTED_INTEGER_POINTS:
+			return result.integerPoints;
+		case RELAXATION_EXTREME_POINTS:
+			return result.relaxationExtremePoints;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Start a server
+	 * @param args Port (default: 7070), number of jobs run concurrently (default: 2) and maximal number of porta processes run
+	 * concurrently (default: number of processors)
+	 */
+	public static void main(String[] args) {
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+		int workersNb = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int portaProcessesNb = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		try {
+			new AnalysisServer(port, workersNb, portaProcessesNb).run();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
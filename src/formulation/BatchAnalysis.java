@@ -0,0 +1,73 @@
+package formulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analysis of a batch of instances which can be resumed after an interruption.
+ *
+ * The files of each instance are written in the folder <output folder>/<instance name> and the completed stages are recorded in the
+ * manifest <output folder>/manifest.txt (see AnalysisManifest). When the batch is run again, the completed stages whose outputs are
+ * unchanged are skipped and only the missing stages are run.
+ * @author zach
+ *
+ */
+public class BatchAnalysis {
+
+	/**
+	 * Creation of the polytope associated to an instance file
+	 */
+	public interface PolytopeFactory{
+		AbstractPolytope create(String instanceFile) throws Exception;
+	}
+
+	PolytopeFactory factory;
+	String outputFolder;
+	AnalysisManifest manifest;
+
+	/**
+	 * @param factory Creation of the polytope of each instance
+	 * @param outputFolder Folder of the output files and of the manifest
+	 * @throws IOException If the manifest cannot be read
+	 */
+	public BatchAnalysis(PolytopeFactory factory, String outputFolder) throws IOException {
+		this.factory = factory;
+		this.outputFolder = outputFolder;
+		this.manifest = new AnalysisManifest(outputFolder + "/manifest.txt");
+	}
+
+	/**
+	 * Analyze instances (an instance which fails does not stop the batch)
+	 * @param instanceFiles Paths of the instance files
+	 * @param stages The required stages (all the stages if none is specified)
+	 * @return The result of each instance which has been successfully analyzed, indexed by its name
+	 */
+	public Map<String, AnalysisPipeline.AnalysisResult> run(List<String> instanceFiles, AnalysisPipeline.Stage... stages){
+
+		Map<String, AnalysisPipeline.AnalysisResult> results = new LinkedHashMap<>();
+
+		for(String instanceFile: instanceFiles) {
+			String instance = new File(instanceFile).getName();
+
+			System.out.println("=== Analyze the instance " + instance);
+
+			try {
+				AbstractPolytope polytope = factory.create(instanceFile);
+				polytope.setTmpFolder(outputFolder + "/" + instance);
+
+				AnalysisPipeline pipeline = new AnalysisPipeline(polytope);
+				pipeline.setManifest(manifest, instance, instanceFile);
+
+				results.put(instance, pipeline.run(stages));
+
+			} catch (Exception e) {
+				System.err.println("Error: unable to analyze the instance " + instance + ": " + e.getMessage());
+			}
+		}
+
+		return results;
+	}
+}
@@ -0,0 +1,184 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decomposition of a formulation into independent blocks.
+ *
+ * Two variables are in the same block if they are linked by a sequence of constraints (i.e., the blocks are the connected components of the
+ * graph whose vertices are the variables and in which two variables are adjacent if they appear in the same constraint).
+ * The integer polytope of the formulation is then the Cartesian product of the integer polytopes of the blocks and its facets are the union
+ * of the facets of the blocks.
+ * @author zach
+ *
+ */
+public class BlockDecomposition {
+
+	/**
+	 * Variables and constraints of one block.
+	 * In a block, the variables are renumbered from 1 (local porta ids) in increasing order of their original porta id.
+	 */
+	public static class Block{
+
+		/** Original porta id of each variable of the block (the variable of local id i is in position i-1) */
+		public int[] variables;
+
+		/** Constraints of the block expressed with the local porta ids */
+		public List<LinearConstraint> constraints = new ArrayList<>();
+
+		/** Local porta id of each variable of the original space (0 if the variable is not in the block) */
+		int[] localId;
+
+		Block(int[] variables, int dimension){
+			this.variables = variables;
+			localId = new int[dimension];
+
+			for(int i = 0; i < variables.length; i++)
+				localId[variables[i] - 1] = i + 1;
+		}
+
+		/** Number of variables in the block */
+		public int size() {
+			return variables.length;
+		}
+
+		/**
+		 * Express a constraint of the original space with the local porta ids of the block
+		 * @param constraint A constraint which only contains variables of the block
+		 * @return
+		 */
+		public LinearConstraint toLocal(LinearConstraint constraint) {
+
+			int[] ids = new int[constraint.ids.length];
+
+			for(int i = 0; i < ids.length; i++)
+				ids[i] = localId[constraint.ids[i] - 1];
+
+			return new LinearConstraint(ids, constraint.coefficients.clone(), constraint.sense, constraint.rhs);
+		}
+
+		/**
+		 * Express a constraint of the block with the original porta ids
+		 * @param localConstraint
+		 * @return
+		 */
+		public LinearConstraint toOriginal(LinearConstraint localConstraint) {
+
+			int[] ids = new int[localConstraint.ids.length];
+
+			for(int i = 0; i < ids.length; i++)
+				ids[i] = variables[localConstraint.ids[i] - 1];
+
+			return new LinearConstraint(ids, localConstraint.coefficients.clone(), localConstraint.sense, localConstraint.rhs);
+		}
+
+		/**
+		 * Restrict a vector of the original space to the variables of the block
+		 * @param values Value associated to each variable (the variable of porta id i is in position i-1)
+		 * @return
+		 */
+		public int[] toLocal(int[] values) {
+
+			int[] result = new int[variables.length];
+
+			for(int i = 0; i < variables.length; i++)
+				result[i] = values[variables[i] - 1];
+
+			return result;
+		}
+	}
+
+	List<Block> blocks;
+
+	private BlockDecomposition(List<Block> blocks) {
+		this.blocks = blocks;
+	}
+
+	/**
+	 * Compute the blocks of a formulation
+	 * @param dimension Number of variables
+	 * @param constraints Constraints of the formulation
+	 * @return
+	 */
+	public static BlockDecomposition fromConstraints(int dimension, List<LinearConstraint> constraints) {
+
+		/* Union-find structure over the variables */
+		int[] parent = new int[dimension];
+
+		for(int i = 0; i < dimension; i++)
+			parent[i] = i;
+
+		for(LinearConstraint c: constraints)
+			for(int i = 1; i < c.ids.length; i++) {
+				int root1 = find(parent, c.ids[0] - 1);
+				int root2 = find(parent, c.ids[i] - 1);
+
+				if(root1 != root2)
+					parent[Math.max(root1, root2)] = Math.min(root1, root2);
+			}
+
+		/* Number the blocks in increasing order of their first variable */
+		int[] blockOfRoot = new int[dimension];
+		int[] blockSize = new int[dimension];
+		int blocksNb = 0;
+
+		for(int i = 0; i < dimension; i++) {
+			int root = find(parent, i);
+
+			if(root == i)
+				blockOfRoot[i] = blocksNb++;
+
+			blockSize[blockOfRoot[root]]++;
+		}
+
+		int[][] variables = new int[blocksNb][];
+		int[] position = new int[blocksNb];
+
+		for(int b = 0; b < blocksNb; b++)
+			variables[b] = new int[blockSize[b]];
+
+		for(int i = 0; i < dimension; i++) {
+			int b = blockOfRoot[find(parent, i)];
+			variables[b][position[b]++] = i + 1;
+		}
+
+		List<Block> blocks = new ArrayList<>();
+
+		for(int b = 0; b < blocksNb; b++)
+			blocks.add(new Block(variables[b], dimension));
+
+		for(LinearConstraint c: constraints)
+			if(c.ids.length > 0) {
+				Block block = blocks.get(blockOfRoot[find(parent, c.ids[0] - 1)]);
+				block.constraints.add(block.toLocal(c));
+			}
+
+		return new BlockDecomposition(blocks);
+	}
+
+	private static int find(int[] parent, int i) {
+
+		int root = i;
+
+		while(parent[root] != root)
+			root = parent[root];
+
+		/* Path compression */
+		while(parent[i] != root) {
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
+		}
+
+		return root;
+	}
+
+	public int getBlocksNb() {
+		return blocks.size();
+	}
+
+	public List<Block> getBlocks(){
+		return blocks;
+	}
+}
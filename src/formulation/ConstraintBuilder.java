@@ -0,0 +1,197 @@
+package formulation;
+
+import java.util.Arrays;
+
+import exception.UnknownVariableName;
+import formulation.LinearConstraint.Sense;
+
+/**
+ * Build the constraints of a formulation term by term and send each of them to a ConstraintSink as soon as it is complete.
+ *
+ * Ex: 2 x1 + x4 - x3 <= 1
+ * builder.add(2, 1).add(1, 4).add(-1, 3).emit(Sense.LE, 1);
+ *
+ * The terms of a constraint can be added in any order and a variable can be added several times (its coefficients are summed).
+ * The builder is reused for all the constraints so that generating a constraint does not create any intermediary string.
+ * @author zach
+ *
+ */
+public class ConstraintBuilder {
+
+	ConstraintSink sink;
+
+	/** Terms of the current constraint */
+	int[] ids = new int[16];
+	long[] coefficients = new long[16];
+	int termsNb;
+
+	Sense sense = Sense.LE;
+	long rhs;
+
+	/** Number of constraints emitted */
+	long rowsNb;
+
+	public ConstraintBuilder(ConstraintSink sink) {
+		this.sink = sink;
+	}
+
+	/**
+	 * Add a term to the current constraint
+	 * @param coefficient
+	 * @param portaId Id of the variable in porta (e.g., obtained with VariableFamily.id())
+	 * @return The builder
+	 * @throws UnknownVariableName If the id is not the id of a registered variable (e.g., -1 for an unregistered cell of a family)
+	 */
+	public ConstraintBuilder add(long coefficient, int portaId) throws UnknownVariableName {
+
+		if(portaId < 1)
+			throw new UnknownVariableName("x" + portaId);
+
+		if(termsNb == ids.length) {
+			ids = Arrays.copyOf(ids, 2 * termsNb);
+			coefficients = Arrays.copyOf(coefficients, 2 * termsNb);
+		}
+
+		ids[termsNb] = portaId;
+		coefficients[termsNb] = coefficient;
+		termsNb++;
+
+		return this;
+	}
+
+	/**
+	 * Add a term whose coefficient is 1 to the current constraint
+	 * @param portaId Id of the variable in porta
+	 * @return The builder
+	 * @throws UnknownVariableName
+	 */
+	public ConstraintBuilder add(int portaId) throws UnknownVariableName {
+		return add(1, portaId);
+	}
+
+	/**
+	 * Set the operator of the current constraint
+	 * @param sense
+	 * @return The builder
+	 */
+	public ConstraintBuilder sense(Sense sense) {
+		this.sense = sense;
+		return this;
+	}
+
+	/**
+	 * Set the right-hand side of the current constraint
+	 * @param rhs
+	 * @return The builder
+	 */
+	public ConstraintBuilder rhs(long rhs) {
+		this.rhs = rhs;
+		return this;
+	}
+
+	/**
+	 * Send the current constraint to the sink and start a new one
+	 */
+	public void emit() {
+
+		/* Sort the terms by id and sum the coefficients of each variable */
+		if(!isSorted())
+			sortTerms();
+
+		int size = 0;
+
+		for(int i = 0; i < termsNb; i++) {
+			if(size > 0 && ids[size - 1] == ids[i])
+				coefficients[size - 1] += coefficients[i];
+			else {
+				ids[size] = ids[i];
+				coefficients[size] = coefficients[i];
+				size++;
+			}
+		}
+
+		int nonZeroNb = 0;
+
+		for(int i = 0; i < size; i++)
+			if(coefficients[i] != 0) {
+				ids[nonZeroNb] = ids[i];
+				coefficients[nonZeroNb] = coefficients[i];
+				nonZeroNb++;
+			}
+
+		sink.add(new LinearConstraint(Arrays.copyOf(ids, nonZeroNb), Arrays.copyOf(coefficients, nonZeroNb), sense, rhs));
+		rowsNb++;
+
+		termsNb = 0;
+		sense = Sense.LE;
+		rhs = 0;
+	}
+
+	/**
+	 * Set the operator and the right-hand side of the current constraint, send it to the sink and start a new one
+	 * @param sense
+	 * @param rhs
+	 */
+	public void emit(Sense sense, long rhs) {
+		sense(sense).rhs(rhs).emit();
+	}
+
+	/**
+	 * Get the number of constraints emitted with this builder
+	 * @return
+	 */
+	public long getRowsNb() {
+		return rowsNb;
+	}
+
+	private boolean isSorted() {
+
+		for(int i = 1; i < termsNb; i++)
+			if(ids[i - 1] > ids[i])
+				return false;
+
+		return true;
+	}
+
+	/** Sort the terms by id (insertion sort for the short constraints, sort of the packed (id, term) pairs otherwise) */
+	private void sortTerms() {
+
+		if(termsNb > 32) {
+			long[] packed = new long[termsNb];
+
+			/* Sort the indices of the terms by id, the index of each term is in the low bits */
+			for(int i = 0; i < termsNb; i++)
+				packed[i] = ((long)ids[i] << 32) | i;
+
+			Arrays.sort(packed);
+
+			int[] sortedIds = new int[ids.length];
+			long[] sortedCoefficients = new long[coefficients.length];
+
+			for(int i = 0; i < termsNb; i++) {
+				int term = (int)packed[i];
+				sortedIds[i] = ids[term];
+				sortedCoefficients[i] = coefficients[term];
+			}
+
+			ids = sortedIds;
+			coefficients = sortedCoefficients;
+			return;
+		}
+
+		for(int i = 1; i < termsNb; i++) {
+			int id = ids[i];
+			long coefficient = coefficients[i];
+			int j = i - 1;
+
+			while(j >= 0 && ids[j] > id) {
+				ids[j + 1] = ids[j];
+				coefficients[j + 1] = coefficients[j];
+				j--;
+			}
+
+			ids[j + 1] = id;
+			coefficients[j + 1] = coefficient;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package formulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+import exception.InvalidIEQFileFormatException;
+
+/**
+ * Destination of the constraints generated by a formulation (see AbstractFormulation.generateConstraints()), e.g., the
+ * INEQUALITIES_SECTION of a .ieq file or a list of sparse rows.
+ * @author zach
+ *
+ */
+public interface ConstraintSink {
+
+	/**
+	 * Add a constraint
+	 * @param row
+	 */
+	void add(LinearConstraint row);
+
+	/**
+	 * Add constraints given in the text format of AbstractFormulation.getConstraints() (one constraint per line).
+	 * By default, each line is parsed.
+	 * @param constraints
+	 * @throws InvalidIEQFileFormatException If a line is not a valid constraint
+	 */
+	default void add(String constraints) throws InvalidIEQFileFormatException {
+
+		for(String line: constraints.split("\n")) {
+			LinearConstraint row = LinearConstraint.parse(line);
+
+			if(row != null)
+				add(row);
+		}
+	}
+
+	/**
+	 * Get a sink which adds the constraints to a list
+	 * @param rows
+	 * @return
+	 */
+	static ConstraintSink toList(List<LinearConstraint> rows) {
+		return rows::add;
+	}
+
+	/**
+	 * Get a sink which writes the constraints in a writer, one per line (the constraints given as text are written unchanged).
+	 * The IOExceptions of the writer are thrown as UncheckedIOExceptions.
+	 * @param writer
+	 * @return
+	 */
+	static ConstraintSink toWriter(Writer writer) {
+
+		return new ConstraintSink() {
+
+			@Override
+			public void add(LinearConstraint row) {
+				write(row.toString());
+				write("\n");
+			}
+
+			@Override
+			public void add(String constraints) {
+				write(constraints);
+
+				if(!constraints.isEmpty() && !constraints.endsWith("\n"))
+					write("\n");
+			}
+
+			private void write(String s) {
+				try {
+					writer.write(s);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,216 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enumeration of the faces of a polytope from the incidences between its integer points and its facets.
+ *
+ * Each face is represented by the bitset of its vertices. The facets of a face G are the maximal sets among the non-empty intersections
+ * G & F of G with the facets F of the polytope which do not contain G. The faces are thus enumerated level by level from the facets of
+ * the polytope (level 1) down to the vertices (level dim(P)), the faces of level k being of dimension dim(P) - k. The subtrees of the
+ * faces of a level are expanded in parallel and a face reached from several subtrees is only stored once.
+ *
+ * The enumeration stops after a maximal number of levels or as soon as the memory used by the faces of the level being expanded
+ * exceeds a limit.
+ * @author zach
+ *
+ */
+public class FaceLattice {
+
+	/** Estimation of the memory used to store a face in addition to its bitset (in bytes) */
+	static final int FACE_OVERHEAD = 64;
+
+	/**
+	 * Face represented by the bitset of its vertices
+	 */
+	private static final class Face{
+
+		long[] vertices;
+
+		Face(long[] vertices){
+			this.vertices = vertices;
+		}
+
+		boolean isSubsetOf(Face face) {
+
+			for(int w = 0; w < vertices.length; w++)
+				if((vertices[w] & ~face.vertices[w]) != 0)
+					return false;
+
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(vertices);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Face && Arrays.equals(vertices, ((Face)o).vertices);
+		}
+	}
+
+	int polytopeDimension;
+
+	/** fVector[j] is the number of faces of dimension j (-1 if they have not been enumerated) */
+	long[] fVector;
+
+	/** True if the faces of all the dimensions have been enumerated */
+	boolean isComplete = true;
+
+	/**
+	 * @param incidence Incidences between the integer points and the facets of the polytope
+	 * @param polytopeDimension Dimension of the polytope
+	 * @param maxDepth Maximal number of levels enumerated (the faces of dimension lower than dim(P) - maxDepth are not enumerated)
+	 * @param maxMemory Maximal memory used by the faces of a level (in bytes); the expansion of a level stops as soon as it exceeds it
+	 */
+	public FaceLattice(IncidenceMatrix incidence, int polytopeDimension, int maxDepth, long maxMemory) {
+
+		this.polytopeDimension = polytopeDimension;
+
+		fVector = new long[polytopeDimension + 1];
+		Arrays.fill(fVector, -1);
+		fVector[polytopeDimension] = 1;
+
+		int wordsNb = IncidenceMatrix.wordsNb(incidence.getPointsNb());
+		long[] vertexMask = new long[wordsNb];
+
+		for(int v: VertexGraph.computeVertices(incidence))
+			vertexMask[v >>> 6] |= 1L << v;
+
+		Face polytope = new Face(vertexMask);
+
+		/* Vertices of each facet (the equations and the inequalities which are not facet-defining are removed) */
+		List<Face> facets = new ArrayList<>();
+
+		for(int f = 0; f < incidence.getFacetsNb(); f++) {
+			long[] vertices = incidence.getPointsBitset(f).clone();
+
+			for(int w = 0; w < wordsNb; w++)
+				vertices[w] &= vertexMask[w];
+
+			facets.add(new Face(vertices));
+		}
+
+		facets = new ArrayList<>(maximalFaces(polytope, facets));
+
+		List<Face> level = Arrays.asList(polytope);
+		long faceMemory = 8L * wordsNb + FACE_OVERHEAD;
+
+		for(int depth = 1; depth <= polytopeDimension; depth++) {
+
+			if(depth > maxDepth) {
+				isComplete = false;
+				break;
+			}
+
+			List<Face> polytopeFacets = facets;
+			Set<Face> nextLevel = ConcurrentHashMap.newKeySet();
+
+			/* The faces are counted as they are added so that the expansion stops as soon as the level exceeds the memory limit */
+			AtomicLong facesNb = new AtomicLong();
+			AtomicBoolean isTooLarge = new AtomicBoolean(false);
+
+			level.parallelStream().forEach(face -> {
+
+				if(isTooLarge.get())
+					return;
+
+				for(Face subface: maximalFaces(face, polytopeFacets))
+					if(nextLevel.add(subface) && facesNb.incrementAndGet() * faceMemory > maxMemory) {
+						isTooLarge.set(true);
+						return;
+					}
+			});
+
+			if(isTooLarge.get()) {
+				isComplete = false;
+				break;
+			}
+
+			fVector[polytopeDimension - depth] = nextLevel.size();
+			level = new ArrayList<>(nextLevel);
+		}
+	}
+
+	/**
+	 * Get the facets of a face
+	 * @param face
+	 * @param facets Facets of the polytope
+	 * @return The maximal sets among the non-empty intersections of the face with the facets which do not contain it
+	 */
+	private static Set<Face> maximalFaces(Face face, List<Face> facets) {
+
+		Set<Face> candidates = new HashSet<>();
+
+		for(Face facet: facets)
+			if(!face.isSubsetOf(facet)) {
+				long[] intersection = face.vertices.clone();
+				boolean isEmpty = true;
+
+				for(int w = 0; w < intersection.length; w++) {
+					intersection[w] &= facet.vertices[w];
+					isEmpty &= intersection[w] == 0;
+				}
+
+				if(!isEmpty)
+					candidates.add(new Face(intersection));
+			}
+
+		Set<Face> maximal = new HashSet<>();
+
+		for(Face candidate: candidates) {
+			boolean isMaximal = true;
+
+			for(Face other: candidates)
+				if(other != candidate && candidate.isSubsetOf(other)) {
+					isMaximal = false;
+					break;
+				}
+
+			if(isMaximal)
+				maximal.add(candidate);
+		}
+
+		return maximal;
+	}
+
+	/**
+	 * Get the number of faces of each dimension
+	 * @return The number of faces of dimension j in position j (-1 if the faces of this dimension have not been enumerated)
+	 */
+	public long[] getFVector() {
+		return fVector;
+	}
+
+	public int getPolytopeDimension() {
+		return polytopeDimension;
+	}
+
+	/**
+	 * Test if the faces of all the dimensions have been enumerated
+	 * @return False if the enumeration has been stopped by the depth or the memory limit
+	 */
+	public boolean isComplete() {
+		return isComplete;
+	}
+
+	@Override
+	public String toString() {
+
+		String output = "";
+
+		for(int j = 0; j <= polytopeDimension; j++)
+			output += (j == 0 ? "" : ", ") + (fVector[j] == -1 ? "?" : fVector[j]);
+
+		return "(" + output + ")" + (isComplete ? "" : " incomplete");
+	}
+}
@@ -0,0 +1,158 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Certification of inequalities against the integer points of a polytope.
+ *
+ * An inequality is valid if all the points satisfy it. A valid inequality defines the face which contains its tight points and the
+ * dimension of this face is the dimension of the affine hull of the tight points (computed exactly, see AffineHullReduction). A valid
+ * inequality is facet-defining if the dimension of its face is equal to the dimension of the polytope minus 1.
+ *
+ * The inequalities are independent, thus a list of inequalities is certified in parallel.
+ * @author zach
+ *
+ */
+public class FacetCertifier {
+
+	public enum Classification{
+
+		/* At least one point violates the inequality */
+		INVALID,
+
+		/* The inequality is valid and its face is of dimension dim(P) - 1 */
+		FACET,
+
+		/* The inequality is valid but its face is of dimension lower than dim(P) - 1 (or empty) */
+		VALID_NOT_FACET,
+
+		/* All the points satisfy the inequality with equality (its face is the whole polytope) */
+		EQUATION
+	}
+
+	/**
+	 * Result of the certification of an inequality
+	 */
+	public static class Certificate{
+
+		/** The certified inequality */
+		public LinearConstraint inequality;
+
+		public Classification classification;
+
+		/** A most violated point (null if the inequality is valid) */
+		public int[] witness;
+
+		/** Minimal slack of the points (negative if the inequality is not valid; for an equation, opposite of the largest absolute slack) */
+		public long minimumSlack = Long.MAX_VALUE;
+
+		/** Number of points which satisfy the inequality with equality */
+		public int tightPointsNb;
+
+		/** Dimension of the face defined by the inequality (-1 if the face is empty or if the inequality is not valid) */
+		public int faceDimension = -1;
+
+		Certificate(LinearConstraint inequality){
+			this.inequality = inequality;
+		}
+
+		public boolean isValid() {
+			return witness == null;
+		}
+	}
+
+	int dimension;
+	List<int[]> points;
+	AffineHullReduction hull;
+
+	/**
+	 * @param dimension Number of variables
+	 * @param points The integer points of the polytope (at least one)
+	 */
+	public FacetCertifier(int dimension, List<int[]> points) {
+		this.dimension = dimension;
+		this.points = points;
+		this.hull = AffineHullReduction.fromPoints(dimension, points);
+	}
+
+	/**
+	 * Dimension of the polytope
+	 * @return
+	 */
+	public int getPolytopeDimension() {
+		return hull.getIntrinsicDimension();
+	}
+
+	public AffineHullReduction getAffineHull() {
+		return hull;
+	}
+
+	/**
+	 * Certify an inequality
+	 * @param inequality The inequality (expressed with the porta ids)
+	 * @return
+	 */
+	public Certificate certify(LinearConstraint inequality) {
+
+		Certificate certificate = new Certificate(inequality);
+		List<int[]> tightPoints = new ArrayList<>();
+		boolean isEquation = inequality.sense == LinearConstraint.Sense.EQ;
+
+		for(int[] point: points) {
+			long slack = inequality.slack(point);
+
+			if(isEquation)
+				slack = -Math.abs(slack);
+
+			if(slack < certificate.minimumSlack) {
+				certificate.minimumSlack = slack;
+
+				if(slack < 0)
+					certificate.witness = point;
+			}
+
+			if(slack == 0)
+				tightPoints.add(point);
+		}
+
+		if(certificate.witness != null) {
+			certificate.classification = Classification.INVALID;
+			return certificate;
+		}
+
+		certificate.tightPointsNb = tightPoints.size();
+
+		if(tightPoints.size() == points.size()) {
+			certificate.faceDimension = getPolytopeDimension();
+			certificate.classification = Classification.EQUATION;
+			return certificate;
+		}
+
+		if(!tightPoints.isEmpty())
+			certificate.faceDimension = AffineHullReduction.fromPoints(dimension, tightPoints).getIntrinsicDimension();
+
+		certificate.classification = !tightPoints.isEmpty() && certificate.faceDimension == getPolytopeDimension() - 1 ? Classification.FACET : Classification.VALID_NOT_FACET;
+
+		return certificate;
+	}
+
+	/**
+	 * Certify inequalities in parallel
+	 * @param inequalities The inequalities (expressed with the porta ids)
+	 * @return The certificates (in the same order as the inequalities)
+	 */
+	public List<Certificate> certifyAll(List<LinearConstraint> inequalities){
+		return inequalities.parallelStream().map(this::certify).collect(Collectors.toList());
+	}
+
+	/**
+	 * Test if a certified inequality is facet-defining
+	 * @param certificate
+	 * @return
+	 */
+	public boolean isFacet(Certificate certificate) {
+		return certificate.classification == Classification.FACET;
+	}
+}
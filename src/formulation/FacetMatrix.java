@@ -0,0 +1,213 @@
+package formulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Inequality system stored as a matrix to evaluate large sets of points.
+ *
+ * The coefficients are stored in a dense row-major array if the system is dense enough and in a compressed sparse row format otherwise.
+ * Both kernels are simple loops over primitive arrays (which the JIT compiler can vectorize) and the points are evaluated in parallel.
+ * @author zach
+ *
+ */
+public class FacetMatrix {
+
+	/** The dense format is used if the proportion of non-zero coefficients is at least this value */
+	public static double denseThreshold = 0.25;
+
+	/**
+	 * Position of a point with respect to the inequalities
+	 */
+	public static class PointStatus{
+
+		/** Indices of the violated inequalities (starting from 0) */
+		public int[] violatedFacets;
+
+		/** Indices of the inequalities satisfied with equality (starting from 0) */
+		public int[] tightFacets;
+
+		public boolean isFeasible() {
+			return violatedFacets.length == 0;
+		}
+	}
+
+	int dimension;
+	int rowsNb;
+
+	/** True for the rows which are equations */
+	boolean[] isEquation;
+
+	/** Right-hand side of each row (all the inequalities are expressed with a "<=" operator) */
+	long[] rhs;
+
+	/** Coefficients in the dense format (row i is in positions [i * dimension, (i+1) * dimension[); null if the sparse format is used */
+	long[] dense;
+
+	/** Sparse format: the non-zero coefficients of row i are in positions [rowStart[i], rowStart[i+1][ of columns and values */
+	int[] rowStart;
+	int[] columns;
+	long[] values;
+
+	/**
+	 * @param dimension Number of variables
+	 * @param facets The inequalities (expressed with the porta ids)
+	 */
+	public FacetMatrix(int dimension, List<LinearConstraint> facets) {
+
+		this.dimension = dimension;
+		this.rowsNb = facets.size();
+
+		isEquation = new boolean[rowsNb];
+		rhs = new long[rowsNb];
+
+		long nonZeros = 0;
+
+		for(LinearConstraint facet: facets)
+			nonZeros += facet.ids.length;
+
+		long cellsNb = (long)rowsNb * dimension;
+
+		/* The dense format is only used if all the coefficients fit in one array */
+		boolean isDense = rowsNb > 0 && dimension > 0 && cellsNb <= Integer.MAX_VALUE - 8 && nonZeros >= denseThreshold * cellsNb;
+
+		if(isDense)
+			dense = new long[(int)cellsNb];
+		else {
+			rowStart = new int[rowsNb + 1];
+			columns = new int[Math.toIntExact(nonZeros)];
+			values = new long[Math.toIntExact(nonZeros)];
+		}
+
+		int position = 0;
+
+		for(int i = 0; i < rowsNb; i++) {
+			LinearConstraint facet = facets.get(i).toLessOrEqual();
+			isEquation[i] = facet.sense == LinearConstraint.Sense.EQ;
+			rhs[i] = facet.rhs;
+
+			if(isDense)
+				for(int k = 0; k < facet.ids.length; k++)
+					dense[i * dimension + facet.ids[k] - 1] = facet.coefficients[k];
+			else {
+				rowStart[i] = position;
+
+				for(int k = 0; k < facet.ids.length; k++) {
+					columns[position] = facet.ids[k] - 1;
+					values[position] = facet.coefficients[k];
+					position++;
+				}
+			}
+		}
+
+		if(!isDense)
+			rowStart[rowsNb] = position;
+	}
+
+	public int getRowsNb() {
+		return rowsNb;
+	}
+
+	public boolean isDense() {
+		return dense != null;
+	}
+
+	/**
+	 * Compute the slack of a point for each inequality
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @param slacks Array in which the slacks are written (rhs - lhs for each row)
+	 */
+	public void slacks(int[] point, long[] slacks) {
+
+		if(dense != null) {
+			long[] x = new long[dimension];
+
+			for(int j = 0; j < dimension; j++)
+				x[j] = point[j];
+
+			for(int i = 0; i < rowsNb; i++) {
+				int offset = i * dimension;
+				long lhs = 0;
+
+				for(int j = 0; j < dimension; j++)
+					lhs += dense[offset + j] * x[j];
+
+				slacks[i] = rhs[i] - lhs;
+			}
+		}
+		else
+			for(int i = 0; i < rowsNb; i++) {
+				long lhs = 0;
+
+				for(int k = rowStart[i]; k < rowStart[i + 1]; k++)
+					lhs += values[k] * point[columns[k]];
+
+				slacks[i] = rhs[i] - lhs;
+			}
+	}
+
+	/**
+	 * Find the inequalities violated and satisfied with equality by a point
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return
+	 */
+	public PointStatus evaluate(int[] point) {
+		return evaluate(point, new long[rowsNb]);
+	}
+
+	private PointStatus evaluate(int[] point, long[] slacks) {
+
+		slacks(point, slacks);
+
+		int violatedNb = 0;
+		int tightNb = 0;
+
+		for(int i = 0; i < rowsNb; i++)
+			if(slacks[i] == 0)
+				tightNb++;
+			else if(slacks[i] < 0 || isEquation[i])
+				violatedNb++;
+
+		PointStatus status = new PointStatus();
+		status.violatedFacets = new int[violatedNb];
+		status.tightFacets = new int[tightNb];
+
+		violatedNb = 0;
+		tightNb = 0;
+
+		for(int i = 0; i < rowsNb; i++)
+			if(slacks[i] == 0)
+				status.tightFacets[tightNb++] = i;
+			else if(slacks[i] < 0 || isEquation[i])
+				status.violatedFacets[violatedNb++] = i;
+
+		return status;
+	}
+
+	/**
+	 * Evaluate points in parallel
+	 * @param points The points (the value of the variable of porta id i is in position i-1)
+	 * @return The status of each point (in the same order as the points)
+	 */
+	public PointStatus[] evaluateAll(List<int[]> points) {
+
+		PointStatus[] result = new PointStatus[points.size()];
+
+		/* One slack buffer per thread */
+		ThreadLocal<long[]> buffer = ThreadLocal.withInitial(() -> new long[rowsNb]);
+
+		IntStream.range(0, points.size()).parallel().forEach(p -> result[p] = evaluate(points.get(p), buffer.get()));
+
+		return result;
+	}
+
+	/**
+	 * Count the points which violate at least one inequality
+	 * @param statuses
+	 * @return
+	 */
+	public static long countInfeasible(PointStatus[] statuses) {
+		return Arrays.stream(statuses).filter(s -> !s.isFeasible()).count();
+	}
+}
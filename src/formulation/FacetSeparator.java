@@ -0,0 +1,152 @@
+package formulation;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import utils.LinearProgram;
+import utils.Rational;
+
+/**
+ * Separation of a point from the convex hull of a set of integer points by a facet.
+ *
+ * Let J be the pivot columns of the affine hull of the points (see AffineHullReduction). The projection x -> x_J is a bijection between
+ * the affine hull and R^k, thus the problem is solved in the projected space in which the convex hull is full-dimensional.
+ *
+ * Let c be the centroid of the points (it is in the interior of their convex hull). Each facet can be written a (x - c) <= 1 and the
+ * vectors a of the facets are the vertices of the polar polyhedron {a | a (v - c) <= 1 for all the points v}. A most violated facet of a
+ * point x* (for this normalization) is thus obtained from an optimal vertex of
+ *
+ * max a (x* - c) s.t. a (v - c) <= 1 for all the points v.
+ *
+ * This program is solved through its dual min sum_v mu_v s.t. sum_v mu_v (v - c) = x* - c, mu >= 0 (which is always feasible): the
+ * optimal dual solution of the simplex is associated to a basis of k points, thus it is a vertex of the polar polyhedron and directly
+ * provides a facet (no tilting is required). The point x* is in the convex hull if and only if the optimal value is at most 1.
+ * @author zach
+ *
+ */
+public class FacetSeparator {
+
+	int dimension;
+	AffineHullReduction hull;
+
+	/** Points minus the centroid, projected on the pivot columns (one column of the linear program per point) */
+	Rational[][] translatedPoints;
+
+	/** Centroid of the points projected on the pivot columns */
+	Rational[] centroid;
+
+	/** Value of a (x* - c) for the last separated facet (the point is cut off if it is greater than 1) */
+	Rational violation;
+
+	/**
+	 * @param dimension Number of variables
+	 * @param points The integer points (at least one)
+	 */
+	public FacetSeparator(int dimension, List<int[]> points) {
+
+		this.dimension = dimension;
+		hull = AffineHullReduction.fromPoints(dimension, points);
+
+		int k = hull.getIntrinsicDimension();
+		centroid = new Rational[k];
+
+		for(int r = 0; r < k; r++) {
+			long sum = 0;
+
+			for(int[] point: points)
+				sum = Math.addExact(sum, point[hull.pivots[r]]);
+
+			centroid[r] = Rational.valueOf(sum, points.size());
+		}
+
+		translatedPoints = new Rational[k][points.size()];
+
+		for(int r = 0; r < k; r++)
+			for(int p = 0; p < points.size(); p++)
+				translatedPoints[r][p] = Rational.valueOf(points.get(p)[hull.pivots[r]]).subtract(centroid[r]);
+	}
+
+	/**
+	 * Find a facet of the convex hull of the points violated by a point
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return A most violated facet (or an equation of the affine hull if the point does not belong to it, oriented so that the point
+	 * violates it); null if the point is in the convex hull
+	 */
+	public LinearConstraint separate(Rational[] point) {
+
+		violation = null;
+
+		/* Equations of the affine hull */
+		for(LinearConstraint equation: hull.getEquations()) {
+			Rational lhs = Rational.ZERO;
+
+			for(int i = 0; i < equation.ids.length; i++)
+				lhs = lhs.add(point[equation.ids[i] - 1].multiply(Rational.valueOf(equation.coefficients[i])));
+
+			int comparison = lhs.compareTo(Rational.valueOf(equation.rhs));
+
+			if(comparison != 0)
+				return new LinearConstraint(equation.ids.clone(), equation.coefficients.clone(), comparison > 0 ? LinearConstraint.Sense.LE : LinearConstraint.Sense.GE, equation.rhs);
+		}
+
+		int k = hull.getIntrinsicDimension();
+
+		/* The convex hull is a single point which satisfies all the equations */
+		if(k == 0)
+			return null;
+
+		Rational[] direction = new Rational[k];
+
+		for(int r = 0; r < k; r++)
+			direction[r] = point[hull.pivots[r]].subtract(centroid[r]);
+
+		Rational[] costs = new Rational[translatedPoints[0].length];
+
+		for(int p = 0; p < costs.length; p++)
+			costs[p] = Rational.ONE;
+
+		LinearProgram lp = new LinearProgram(translatedPoints, direction, costs);
+
+		if(lp.solve() != LinearProgram.Status.OPTIMAL)
+			throw new ArithmeticException("Unexpected status of the separation program: " + lp.getStatus());
+
+		violation = lp.getObjectiveValue();
+
+		if(violation.compareTo(Rational.ONE) <= 0)
+			return null;
+
+		/* Facet a x_J <= 1 + a c, multiplied by the least common multiple of the denominators */
+		Rational[] a = lp.getDuals();
+		Rational rhs = Rational.ONE;
+
+		for(int r = 0; r < k; r++)
+			rhs = rhs.add(a[r].multiply(centroid[r]));
+
+		BigInteger lcm = rhs.getDenominator();
+
+		for(int r = 0; r < k; r++)
+			lcm = lcm.divide(lcm.gcd(a[r].getDenominator())).multiply(a[r].getDenominator());
+
+		long[] coefficients = new long[dimension];
+
+		for(int r = 0; r < k; r++)
+			coefficients[hull.pivots[r]] = a[r].getNumerator().multiply(lcm).divide(a[r].getDenominator()).longValueExact();
+
+		long integerRhs = rhs.getNumerator().multiply(lcm).divide(rhs.getDenominator()).longValueExact();
+
+		return hull.canonicalize(new LinearConstraint(coefficients, LinearConstraint.Sense.LE, integerRhs));
+	}
+
+	/**
+	 * Get the violation of the last separated facet
+	 * @return The value a (x* - c) of the facet a (x - c) <= 1 (greater than 1 if the point is cut off); null if the last separated
+	 * constraint is an equation of the affine hull
+	 */
+	public Rational getViolation() {
+		return violation;
+	}
+
+	public AffineHullReduction getAffineHull() {
+		return hull;
+	}
+}
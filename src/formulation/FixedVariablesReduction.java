@@ -0,0 +1,241 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Projection of the fixed variables out of the files given to porta.
+ *
+ * A variable is fixed if its lower bound is equal to its upper bound or if it takes the same value in all the integer points.
+ * Such variables do not change the structure of the polytope but they increase the dimension of the problem solved by porta.
+ *
+ * The reduced space contains the non-fixed variables in the same order as in the original space.
+ * Once porta has been used in the reduced space, the results are expanded back in the original space:
+ * - the porta names of the variables are converted (xi in the reduced space becomes xj in the original space);
+ * - the fixed values are added back (in the points or as equations).
+ * @author zach
+ *
+ */
+public class FixedVariablesReduction {
+
+	/** Number of variables in the original space */
+	int dimension;
+
+	/** True if the variable is fixed (the variable of porta id i is in position i-1) */
+	boolean[] isFixed;
+
+	/** Value of the variable if it is fixed (the variable of porta id i is in position i-1) */
+	int[] fixedValue;
+
+	/** Porta id in the original space of each variable of the reduced space (the variable of porta id i in the reduced space is in position i-1) */
+	int[] reducedToOriginal;
+
+	/** Porta id in the reduced space of each variable of the original space (0 if the variable is fixed) */
+	int[] originalToReduced;
+
+	private static final Pattern PORTA_VARIABLE = Pattern.compile("(?<![A-Za-z_])x(\\d+)");
+
+	private FixedVariablesReduction(boolean[] isFixed, int[] fixedValue) {
+
+		this.dimension = isFixed.length;
+		this.isFixed = isFixed;
+		this.fixedValue = fixedValue;
+
+		int reducedDimension = 0;
+
+		for(boolean fixed: isFixed)
+			if(!fixed)
+				reducedDimension++;
+
+		reducedToOriginal = new int[reducedDimension];
+		originalToReduced = new int[dimension];
+
+		int reducedId = 0;
+
+		for(int i = 0; i < dimension; i++)
+			if(!isFixed[i]) {
+				reducedToOriginal[reducedId] = i + 1;
+				reducedId++;
+				originalToReduced[i] = reducedId;
+			}
+	}
+
+	/**
+	 * Find the variables whose lower bound is equal to their upper bound
+	 * @param lowerBounds Lower bound of each variable (the variable of porta id i is in position i-1)
+	 * @param upperBounds Upper bound of each variable
+	 * @return The reduction
+	 */
+	public static FixedVariablesReduction fromBounds(int[] lowerBounds, int[] upperBounds) {
+
+		boolean[] isFixed = new boolean[lowerBounds.length];
+		int[] fixedValue = new int[lowerBounds.length];
+
+		for(int i = 0; i < lowerBounds.length; i++)
+			if(lowerBounds[i] == upperBounds[i]) {
+				isFixed[i] = true;
+				fixedValue[i] = lowerBounds[i];
+			}
+
+		return new FixedVariablesReduction(isFixed, fixedValue);
+	}
+
+	/**
+	 * Find the variables which have the same value in all the points
+	 * @param dimension Number of variables
+	 * @param points The points (the value of the variable of porta id i is in position i-1)
+	 * @return The reduction
+	 */
+	public static FixedVariablesReduction fromPoints(int dimension, List<int[]> points) {
+
+		boolean[] isFixed = new boolean[dimension];
+		int[] fixedValue = new int[dimension];
+
+		/* If there is no point, no variable can be considered as fixed */
+		if(points.size() > 0) {
+
+			int[] first = points.get(0);
+
+			for(int i = 0; i < dimension; i++) {
+				isFixed[i] = true;
+				fixedValue[i] = first[i];
+			}
+
+			for(int[] point: points)
+				for(int i = 0; i < dimension; i++)
+					if(isFixed[i] && point[i] != fixedValue[i])
+						isFixed[i] = false;
+		}
+
+		return new FixedVariablesReduction(isFixed, fixedValue);
+	}
+
+	/** Number of variables in the reduced space */
+	public int getReducedDimension() {
+		return reducedToOriginal.length;
+	}
+
+	/** Number of fixed variables */
+	public int getFixedVariablesNb() {
+		return dimension - reducedToOriginal.length;
+	}
+
+	/** True if no variable is fixed */
+	public boolean isTrivial() {
+		return getFixedVariablesNb() == 0;
+	}
+
+	/**
+	 * Project a point of the original space in the reduced space
+	 * @param point
+	 * @return
+	 */
+	public int[] reduce(int[] point) {
+
+		int[] result = new int[reducedToOriginal.length];
+
+		for(int i = 0; i < result.length; i++)
+			result[i] = point[reducedToOriginal[i] - 1];
+
+		return result;
+	}
+
+	/**
+	 * Get the point of the original space associated to a point of the reduced space
+	 * @param reducedPoint
+	 * @return
+	 */
+	public int[] expand(int[] reducedPoint) {
+
+		int[] result = new int[dimension];
+
+		for(int i = 0; i < dimension; i++)
+			result[i] = isFixed[i] ? fixedValue[i] : reducedPoint[originalToReduced[i] - 1];
+
+		return result;
+	}
+
+	/**
+	 * Substitute the fixed variables by their value in a constraint of the original space
+	 * @param constraint
+	 * @return The constraint in the reduced space
+	 */
+	public LinearConstraint reduce(LinearConstraint constraint) {
+
+		int size = 0;
+		long rhs = constraint.rhs;
+
+		for(int i = 0; i < constraint.ids.length; i++)
+			if(isFixed[constraint.ids[i] - 1])
+				rhs -= constraint.coefficients[i] * fixedValue[constraint.ids[i] - 1];
+			else
+				size++;
+
+		int[] ids = new int[size];
+		long[] coefficients = new long[size];
+		int pos = 0;
+
+		for(int i = 0; i < constraint.ids.length; i++)
+			if(!isFixed[constraint.ids[i] - 1]) {
+				ids[pos] = originalToReduced[constraint.ids[i] - 1];
+				coefficients[pos] = constraint.coefficients[i];
+				pos++;
+			}
+
+		return new LinearConstraint(ids, coefficients, constraint.sense, rhs);
+	}
+
+	/**
+	 * Express a constraint of the reduced space in the original space
+	 * @param reducedConstraint
+	 * @return
+	 */
+	public LinearConstraint expand(LinearConstraint reducedConstraint) {
+
+		int[] ids = new int[reducedConstraint.ids.length];
+
+		for(int i = 0; i < ids.length; i++)
+			ids[i] = reducedToOriginal[reducedConstraint.ids[i] - 1];
+
+		return new LinearConstraint(ids, reducedConstraint.coefficients.clone(), reducedConstraint.sense, reducedConstraint.rhs);
+	}
+
+	/**
+	 * Get the equations which fix the value of the fixed variables (e.g., "x3 == 1")
+	 * @return
+	 */
+	public List<LinearConstraint> getFixingEquations(){
+
+		List<LinearConstraint> result = new ArrayList<>();
+
+		for(int i = 0; i < dimension; i++)
+			if(isFixed[i])
+				result.add(new LinearConstraint(new int[] {i + 1}, new long[] {1}, LinearConstraint.Sense.EQ, fixedValue[i]));
+
+		return result;
+	}
+
+	/**
+	 * Replace the porta names of the reduced space by the porta names of the original space in a porta output (e.g., the output of the command dim)
+	 * @param s
+	 * @return
+	 */
+	public String expandPortaNames(String s) {
+
+		Matcher m = PORTA_VARIABLE.matcher(s);
+		StringBuffer sb = new StringBuffer();
+
+		while(m.find()) {
+			int reducedId = Integer.parseInt(m.group(1));
+
+			if(reducedId >= 1 && reducedId <= reducedToOriginal.length)
+				m.appendReplacement(sb, "x" + reducedToOriginal[reducedId - 1]);
+		}
+
+		m.appendTail(sb);
+
+		return sb.toString();
+	}
+}
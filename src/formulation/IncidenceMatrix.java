@@ -0,0 +1,239 @@
+package formulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Incidences between the integer points of a polytope and its facets.
+ *
+ * The incidences are stored twice as bitsets: for each facet, the set of the points which satisfy it with equality and, for each point,
+ * the set of the facets which it satisfies with equality (bit i of a set is bit i % 64 of the word i / 64).
+ * The points and the facets are numbered from 0 in the order of the .poi file and of the .ieq file.
+ * @author zach
+ *
+ */
+public class IncidenceMatrix {
+
+	/** Header of the files written by write() */
+	static final int FILE_HEADER = 0x494E4344;
+
+	int pointsNb;
+	int facetsNb;
+
+	/** pointsOfFacet[f] is the set of the points which satisfy facet f with equality */
+	long[][] pointsOfFacet;
+
+	/** facetsOfPoint[p] is the set of the facets which point p satisfies with equality */
+	long[][] facetsOfPoint;
+
+	private IncidenceMatrix(int pointsNb, int facetsNb) {
+		this.pointsNb = pointsNb;
+		this.facetsNb = facetsNb;
+		pointsOfFacet = new long[facetsNb][wordsNb(pointsNb)];
+		facetsOfPoint = new long[pointsNb][wordsNb(facetsNb)];
+	}
+
+	/**
+	 * Compute the incidences in parallel
+	 * @param dimension Number of variables
+	 * @param points The integer points (the value of the variable of porta id i is in position i-1)
+	 * @param facets The facets (expressed with the porta ids)
+	 * @return
+	 */
+	public static IncidenceMatrix compute(int dimension, List<int[]> points, List<LinearConstraint> facets) {
+
+		IncidenceMatrix incidence = new IncidenceMatrix(points.size(), facets.size());
+		FacetMatrix matrix = new FacetMatrix(dimension, facets);
+
+		/* One slack buffer per thread */
+		ThreadLocal<long[]> buffer = ThreadLocal.withInitial(() -> new long[facets.size()]);
+
+		IntStream.range(0, points.size()).parallel().forEach(p -> {
+			long[] slacks = buffer.get();
+			matrix.slacks(points.get(p), slacks);
+
+			for(int f = 0; f < slacks.length; f++)
+				if(slacks[f] == 0)
+					incidence.facetsOfPoint[p][f >>> 6] |= 1L << f;
+		});
+
+		incidence.fillPointsOfFacet();
+
+		return incidence;
+	}
+
+	/**
+	 * Fill pointsOfFacet from facetsOfPoint.
+	 * Each task handles the 64 facets of a word, thus no two tasks write in the same bitset.
+	 */
+	private void fillPointsOfFacet() {
+
+		IntStream.range(0, wordsNb(facetsNb)).parallel().forEach(w -> {
+			for(int p = 0; p < pointsNb; p++) {
+				long word = facetsOfPoint[p][w];
+
+				while(word != 0) {
+					int f = (w << 6) + Long.numberOfTrailingZeros(word);
+					pointsOfFacet[f][p >>> 6] |= 1L << p;
+					word &= word - 1;
+				}
+			}
+		});
+	}
+
+	static int wordsNb(int bitsNb) {
+		return (bitsNb + 63) >>> 6;
+	}
+
+	/**
+	 * Get the indices of the bits set in a bitset
+	 * @param bitset
+	 * @return The indices in increasing order
+	 */
+	static int[] toIndices(long[] bitset) {
+
+		int[] indices = new int[cardinality(bitset)];
+		int position = 0;
+
+		for(int w = 0; w < bitset.length; w++) {
+			long word = bitset[w];
+
+			while(word != 0) {
+				indices[position++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+
+		return indices;
+	}
+
+	static int cardinality(long[] bitset) {
+
+		int cardinality = 0;
+
+		for(long word: bitset)
+			cardinality += Long.bitCount(word);
+
+		return cardinality;
+	}
+
+	public int getPointsNb() {
+		return pointsNb;
+	}
+
+	public int getFacetsNb() {
+		return facetsNb;
+	}
+
+	/**
+	 * Test if a point satisfies a facet with equality
+	 * @param point Index of the point
+	 * @param facet Index of the facet
+	 * @return
+	 */
+	public boolean isTight(int point, int facet) {
+		return (facetsOfPoint[point][facet >>> 6] & (1L << facet)) != 0;
+	}
+
+	/**
+	 * Get the points which satisfy a facet with equality
+	 * @param facet Index of the facet
+	 * @return The indices of the points in increasing order
+	 */
+	public int[] getTightPoints(int facet) {
+		return toIndices(pointsOfFacet[facet]);
+	}
+
+	/**
+	 * Get the facets satisfied with equality by a point
+	 * @param point Index of the point
+	 * @return The indices of the facets in increasing order
+	 */
+	public int[] getTightFacets(int point) {
+		return toIndices(facetsOfPoint[point]);
+	}
+
+	public int getTightPointsNb(int facet) {
+		return cardinality(pointsOfFacet[facet]);
+	}
+
+	public int getTightFacetsNb(int point) {
+		return cardinality(facetsOfPoint[point]);
+	}
+
+	/**
+	 * Get the bitset of the points which satisfy a facet with equality (the array is not copied and must not be modified)
+	 * @param facet Index of the facet
+	 * @return
+	 */
+	public long[] getPointsBitset(int facet) {
+		return pointsOfFacet[facet];
+	}
+
+	/**
+	 * Get the bitset of the facets satisfied with equality by a point (the array is not copied and must not be modified)
+	 * @param point Index of the point
+	 * @return
+	 */
+	public long[] getFacetsBitset(int point) {
+		return facetsOfPoint[point];
+	}
+
+	/**
+	 * Write the incidences in a binary file (only the bitsets of the facets are written)
+	 * @param file Path of the file
+	 * @throws IOException
+	 */
+	public void write(String file) throws IOException {
+
+		PortaFiles.createParentFolder(file);
+
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_HEADER);
+			out.writeInt(pointsNb);
+			out.writeInt(facetsNb);
+
+			for(long[] bitset: pointsOfFacet)
+				for(long word: bitset)
+					out.writeLong(word);
+		}
+	}
+
+	/**
+	 * Read incidences written by write()
+	 * @param file Path of the file
+	 * @return
+	 * @throws IOException If the file is not an incidence file
+	 */
+	public static IncidenceMatrix read(String file) throws IOException {
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if(in.readInt() != FILE_HEADER)
+				throw new IOException("The file " + file + " is not an incidence file");
+
+			IncidenceMatrix incidence = new IncidenceMatrix(in.readInt(), in.readInt());
+
+			for(int f = 0; f < incidence.facetsNb; f++)
+				for(int w = 0; w < incidence.pointsOfFacet[f].length; w++) {
+					long word = in.readLong();
+					incidence.pointsOfFacet[f][w] = word;
+
+					while(word != 0) {
+						int p = (w << 6) + Long.numberOfTrailingZeros(word);
+						incidence.facetsOfPoint[p][f >>> 6] |= 1L << f;
+						word &= word - 1;
+					}
+				}
+
+			return incidence;
+		}
+	}
+}
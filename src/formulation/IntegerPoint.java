@@ -20,7 +20,7 @@ public class IntegerPoint{
 	}
 	
 	public void setVariable(String varName, int value) throws UnknownVariableName {
-		int id = polytope.variablesBis.get(varName);
+		int id = polytope.variables.getId(varName);
 				
 		if(id != -1) 
 			this.coordinates[id - 1] =  value;
@@ -28,6 +28,15 @@ public class IntegerPoint{
 			throw new UnknownVariableName(varName);
 	}
 	
+	/**
+	 * Set the value of a variable from its id (e.g., obtained with VariableFamily.id())
+	 * @param portaId Id of the variable in porta
+	 * @param value
+	 */
+	public void setVariable(int portaId, int value) {
+		this.coordinates[portaId - 1] = value;
+	}
+
 	@Override
 	public String toString() {
 		String result = "";
@@ -0,0 +1,127 @@
+package formulation;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import exception.InvalidPOIFileFormatException;
+import exception.UnknownCommandException;
+import exception.UnknownVariableName;
+import utils.Utility;
+
+/**
+ * Polytope defined by the integer points of a file.
+ * The first line of the file contains the names of the variables and each following line contains the value of these variables in
+ * an integer point (the values are separated by spaces).
+ * The bounds of each variable are its minimal and maximal values in the points.
+ * @author zach
+ *
+ */
+public class IntegerPointsReader extends AbstractIntegerPoints{
+
+	public String inputFile;
+
+	/** Names of the variables in the order of the file */
+	String[] names;
+
+	/** Values of the points in the order of the file */
+	List<int[]> values = new ArrayList<>();
+
+	/**
+	 * @param pointsFile Path of the file
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException If a value is not integer or if a line does not contain one value per variable
+	 * @throws UnknownCommandException
+	 * @throws InterruptedException
+	 */
+	public IntegerPointsReader(String pointsFile) throws IOException, InvalidPOIFileFormatException, UnknownCommandException, InterruptedException {
+		super();
+		this.inputFile = pointsFile;
+		readPointsFile();
+	}
+
+	private void readPointsFile() throws IOException, InvalidPOIFileFormatException {
+
+		try(BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(inputFile)))) {
+			String line;
+
+			while((line = br.readLine()) != null) {
+				line = line.trim();
+
+				if(line.isEmpty())
+					continue;
+
+				String[] sLine = line.split("\\s+");
+
+				/* If this is the first line */
+				if(names == null) {
+					names = sLine;
+					continue;
+				}
+
+				if(sLine.length != names.length)
+					throw new InvalidPOIFileFormatException("Line \"" + line + "\" of file " + inputFile + " contains " + sLine.length + " values instead of " + names.length);
+
+				int[] point = new int[names.length];
+
+				for(int i = 0; i < sLine.length; i++) {
+					double value;
+
+					try {
+						value = Double.parseDouble(sLine[i]);
+					} catch(NumberFormatException e) {
+						throw new InvalidPOIFileFormatException("Value \"" + sLine[i] + "\" of file " + inputFile + " is not a number");
+					}
+
+					if(!Utility.isInteger(value))
+						throw new InvalidPOIFileFormatException("Value \"" + sLine[i] + "\" of file " + inputFile + " is not integer");
+
+					point[i] = (int)Math.round(value);
+				}
+
+				values.add(point);
+			}
+		}
+
+		if(names == null)
+			throw new InvalidPOIFileFormatException("The file " + inputFile + " does not contain the names of the variables");
+	}
+
+	@Override
+	protected void createVariables() {
+
+		for(int i = 0; i < names.length; i++) {
+			int lowerBound = Integer.MAX_VALUE;
+			int upperBound = Integer.MIN_VALUE;
+
+			for(int[] point: values) {
+				lowerBound = Math.min(lowerBound, point[i]);
+				upperBound = Math.max(upperBound, point[i]);
+			}
+
+			/* Default bounds if the file does not contain any point */
+			if(values.isEmpty()) {
+				lowerBound = 0;
+				upperBound = 0;
+			}
+
+			registerVariable(new Variable(names[i], lowerBound, upperBound));
+		}
+	}
+
+	@Override
+	public void createIntegerPoints() throws UnknownVariableName {
+
+		for(int[] point: values) {
+			IntegerPoint integerPoint = new IntegerPoint(this);
+
+			for(int i = 0; i < names.length; i++)
+				integerPoint.setVariable(names[i], point[i]);
+
+			addIntegerPoint(integerPoint);
+		}
+	}
+}
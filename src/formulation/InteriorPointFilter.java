@@ -0,0 +1,260 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import utils.IntArrayHashSet;
+import utils.LinearProgram;
+import utils.Rational;
+
+/**
+ * Removal of the integer points which are not vertices of their convex hull.
+ *
+ * The facets of the convex hull of a set of points only depend on its vertices. When the variables are not binary, most of the integer
+ * points are not vertices and removing them before calling traf can significantly reduce its running time.
+ *
+ * A point p is removed if it is proved not to be extreme by one of the following tests (each test is a certificate, thus no vertex is
+ * ever removed):
+ * - segment tests: p - d and p + d are in the set for a direction d equal to a unit vector or to the sum or the difference of two unit
+ * vectors;
+ * - midpoint test: 2p - q is in the set for another point q of the set;
+ * - linear program: p is a convex combination of the other remaining points (exact simplex).
+ *
+ * Each point is tested independently, thus the tests are performed in parallel.
+ * @author zach
+ *
+ */
+public class InteriorPointFilter {
+
+	/** The segment tests with the directions e_i + e_j and e_i - e_j are only performed if the dimension is at most this value */
+	public static int maxPairDirectionsDimension = 40;
+
+	/** The midpoint test is only performed if the number of points is at most this value */
+	public static int maxMidpointTestPoints = 5000;
+
+	/** The linear programs are only solved if the number of remaining points is at most this value (it is not performed if the value is 0) */
+	public static int maxLinearProgramPoints = 2000;
+
+	int dimension;
+	List<int[]> points;
+	IntArrayHashSet set;
+
+	int removedDuplicates;
+	int removedBySegmentTests;
+	int removedByMidpointTest;
+	int removedByLinearPrograms;
+	boolean linearProgramsSkipped;
+	long time;
+
+	/**
+	 * @param dimension Number of coordinates of the points
+	 * @param points Points (the copies of a point are removed, otherwise each copy would be the midpoint of itself and of another copy)
+	 */
+	public InteriorPointFilter(int dimension, List<int[]> points) {
+		this.dimension = dimension;
+		this.points = new ArrayList<>(points.size());
+
+		set = new IntArrayHashSet(dimension, points.size());
+
+		for(int[] point: points)
+			if(set.add(point))
+				this.points.add(point);
+
+		removedDuplicates = points.size() - this.points.size();
+	}
+
+	/**
+	 * Get the points which may be vertices of the convex hull
+	 * @return The candidate vertices (in the same order as in the original list)
+	 */
+	public List<int[]> filter(){
+
+		long start = System.currentTimeMillis();
+		int pointsNb = points.size();
+
+		/* 1 - Segment tests */
+		boolean[] isCandidate = new boolean[pointsNb];
+		boolean pairDirections = dimension <= maxPairDirectionsDimension;
+
+		IntStream.range(0, pointsNb).parallel().forEach(i -> isCandidate[i] = !isOnSegment(points.get(i).clone(), pairDirections));
+
+		removedBySegmentTests = pointsNb - count(isCandidate);
+
+		/* 2 - Midpoint test */
+		if(pointsNb <= maxMidpointTestPoints) {
+			IntStream.range(0, pointsNb).parallel().filter(i -> isCandidate[i]).forEach(i -> isCandidate[i] = !isMidpoint(points.get(i)));
+			removedByMidpointTest = pointsNb - removedBySegmentTests - count(isCandidate);
+		}
+
+		/* 3 - Linear programs
+		 * A vertex of the convex hull is never removed by the previous tests, thus a remaining point is not a vertex iff it is a convex
+		 * combination of the other remaining points */
+		List<int[]> candidates = select(isCandidate);
+		int candidatesNb = candidates.size();
+
+		if(candidatesNb > maxLinearProgramPoints)
+			linearProgramsSkipped = true;
+		else {
+			boolean[] isVertex = new boolean[candidatesNb];
+			IntStream.range(0, candidatesNb).parallel().forEach(i -> isVertex[i] = !isConvexCombination(candidates, i));
+
+			List<int[]> vertices = new ArrayList<>();
+
+			for(int i = 0; i < candidatesNb; i++)
+				if(isVertex[i])
+					vertices.add(candidates.get(i));
+
+			removedByLinearPrograms = candidatesNb - vertices.size();
+			time = System.currentTimeMillis() - start;
+
+			return vertices;
+		}
+
+		time = System.currentTimeMillis() - start;
+
+		return candidates;
+	}
+
+	/**
+	 * Test if p - d and p + d are in the set for one of the considered directions d
+	 * @param p The point (it is modified during the test and restored at the end)
+	 * @param pairDirections True if the directions e_i + e_j and e_i - e_j are considered
+	 * @return
+	 */
+	private boolean isOnSegment(int[] p, boolean pairDirections) {
+
+		for(int i = 0; i < dimension; i++) {
+			p[i]--;
+			boolean minus = set.contains(p);
+			p[i] += 2;
+			boolean plus = minus && set.contains(p);
+			p[i]--;
+
+			if(plus)
+				return true;
+		}
+
+		if(pairDirections)
+			for(int i = 0; i < dimension; i++)
+				for(int j = i + 1; j < dimension; j++)
+					for(int s = -1; s <= 1; s += 2) {
+
+						/* d = e_i + s e_j */
+						p[i]--; p[j] -= s;
+						boolean minus = set.contains(p);
+						p[i] += 2; p[j] += 2 * s;
+						boolean plus = minus && set.contains(p);
+						p[i]--; p[j] -= s;
+
+						if(plus)
+							return true;
+					}
+
+		return false;
+	}
+
+	/**
+	 * Test if p is the middle of two other points of the set
+	 * @param p
+	 * @return
+	 */
+	private boolean isMidpoint(int[] p) {
+
+		int[] symmetric = new int[dimension];
+
+		for(int[] q: points)
+			if(q != p) {
+				for(int i = 0; i < dimension; i++)
+					symmetric[i] = 2 * p[i] - q[i];
+
+				if(set.contains(symmetric))
+					return true;
+			}
+
+		return false;
+	}
+
+	/**
+	 * Test if a point is a convex combination of the other points of a list
+	 * (i.e., if there exists lambda >= 0 such that sum_q lambda_q q = p and sum_q lambda_q = 1)
+	 * @param candidates The list
+	 * @param index Index of the point in the list
+	 * @return
+	 */
+	private boolean isConvexCombination(List<int[]> candidates, int index) {
+
+		int columns = candidates.size() - 1;
+
+		if(columns == 0)
+			return false;
+
+		int[] p = candidates.get(index);
+		long[][] A = new long[dimension + 1][columns];
+		long[] b = new long[dimension + 1];
+
+		int column = 0;
+
+		for(int k = 0; k < candidates.size(); k++)
+			if(k != index) {
+				int[] q = candidates.get(k);
+
+				for(int i = 0; i < dimension; i++)
+					A[i][column] = q[i];
+
+				A[dimension][column] = 1;
+				column++;
+			}
+
+		for(int i = 0; i < dimension; i++)
+			b[i] = p[i];
+
+		b[dimension] = 1;
+
+		return new LinearProgram(LinearProgram.toRational(A), LinearProgram.toRational(b), (Rational[])null).solve() != LinearProgram.Status.INFEASIBLE;
+	}
+
+	private List<int[]> select(boolean[] isSelected){
+
+		List<int[]> result = new ArrayList<>();
+
+		for(int i = 0; i < points.size(); i++)
+			if(isSelected[i])
+				result.add(points.get(i));
+
+		return result;
+	}
+
+	private static int count(boolean[] a) {
+
+		int result = 0;
+
+		for(boolean value: a)
+			if(value)
+				result++;
+
+		return result;
+	}
+
+	public int getRemovedPointsNb() {
+		return removedDuplicates + removedBySegmentTests + removedByMidpointTest + removedByLinearPrograms;
+	}
+
+	/**
+	 * Get a summary of the points removed by each test
+	 * @return
+	 */
+	public String getReport() {
+
+		String report = "points: " + (points.size() + removedDuplicates) + ", candidate vertices: " + (points.size() + removedDuplicates - getRemovedPointsNb())
+				+ " (duplicates: " + removedDuplicates
+				+ ", removed by the segment tests: " + removedBySegmentTests
+				+ ", by the midpoint test: " + removedByMidpointTest
+				+ ", by the linear programs: " + removedByLinearPrograms + ")";
+
+		if(linearProgramsSkipped)
+			report += ", linear programs skipped (too many points)";
+
+		return report + ", time: " + time + "ms";
+	}
+}
@@ -0,0 +1,453 @@
+package formulation;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import exception.InvalidPOIFileFormatException;
+import utils.LinearProgram;
+import utils.Rational;
+
+/**
+ * Watch mode which analyzes an lp file again each time it is modified.
+ *
+ * The new version of the file is compared to the previous one (variables, bounds and constraints expressed with the names of the
+ * variables, the objective being ignored) and only the stages affected by the differences are run again:
+ * - if the variables or their bounds change, all the stages are run again;
+ * - a removed constraint a x <= b does not change the integer points if max {a x | x in the new relaxation} is at most b (rounded
+ * down since the coefficients and the integer points are integer), and does not change the relaxation if this maximum is at most b;
+ * - an added constraint does not change the integer points if all the previous integer points satisfy it, and does not change the
+ * relaxation if it is implied by the previous relaxation.
+ * If the integer points do not change, only the extreme points of the relaxation may have to be computed again.
+ *
+ * The redundancy tests are exact linear programs and are only used if the formulation has at most maxRedundancyTestSize variables
+ * and constraints (otherwise all the stages are run again).
+ * @author zach
+ *
+ */
+public class LPWatcher {
+
+	/** Maximal number of variables plus constraints for which the redundancy of the modified constraints is tested */
+	public static int maxRedundancyTestSize = 300;
+
+	/**
+	 * Formulation of a version of the lp file
+	 */
+	static class Snapshot{
+
+		/** Name and bounds of each variable in the order of the porta ids */
+		List<String> variables = new ArrayList<>();
+		long[] lowerBounds;
+		long[] upperBounds;
+
+		/** True if all the bounds are integer */
+		boolean hasIntegerBounds = true;
+
+		List<LinearConstraint> rows;
+
+		/** Number of occurrences of each constraint indexed by its description with the names of the variables */
+		Map<String, Integer> rowKeys = new HashMap<>();
+
+		/** One constraint for each description */
+		Map<String, LinearConstraint> rowsByKey = new HashMap<>();
+
+		Snapshot(LPReader formulation) throws Exception {
+
+			formulation.initializeVariables();
+
+			int n = formulation.variables.size();
+			lowerBounds = new long[n];
+			upperBounds = new long[n];
+
+			for(int id = 1; id <= n; id++) {
+				Variable v = formulation.variables.get(id);
+				variables.add(v.originalName + " " + v.lowerBoundNumerator + "/" + v.lowerBoundDenominator + " " + v.upperBoundNumerator + "/" + v.upperBoundDenominator);
+				lowerBounds[id - 1] = v.lowerBoundNumerator;
+				upperBounds[id - 1] = v.upperBoundNumerator;
+				hasIntegerBounds &= v.lowerBoundDenominator == 1 && v.upperBoundDenominator == 1;
+			}
+
+			rows = formulation.getConstraintRows();
+
+			for(LinearConstraint row: rows) {
+				String key = key(row, formulation);
+				rowKeys.merge(key, 1, Integer::sum);
+				rowsByKey.put(key, row);
+			}
+		}
+
+		/**
+		 * Get the description of a constraint with the names of the variables (which does not depend on the order of its terms)
+		 * @param row
+		 * @param formulation
+		 * @return
+		 */
+		private static String key(LinearConstraint row, LPReader formulation) {
+
+			LinearConstraint lessOrEqual = row.toLessOrEqual();
+			TreeMap<String, Long> terms = new TreeMap<>();
+
+			for(int i = 0; i < lessOrEqual.ids.length; i++)
+				terms.merge(formulation.variables.get(lessOrEqual.ids[i]).originalName, lessOrEqual.coefficients[i], Long::sum);
+
+			return terms + " " + lessOrEqual.sense + " " + lessOrEqual.rhs;
+		}
+
+		/**
+		 * Get the constraints of this snapshot which are not in another one (with their multiplicity)
+		 * @param other
+		 * @return
+		 */
+		List<LinearConstraint> rowsNotIn(Snapshot other){
+
+			List<LinearConstraint> result = new ArrayList<>();
+
+			for(Map.Entry<String, Integer> entry: rowKeys.entrySet()) {
+				int difference = entry.getValue() - other.rowKeys.getOrDefault(entry.getKey(), 0);
+
+				for(int i = 0; i < difference; i++)
+					result.add(rowsByKey.get(entry.getKey()));
+			}
+
+			return result;
+		}
+	}
+
+	String lpFile;
+	String tmpFolder;
+	AnalysisPipeline.Stage[] stages;
+
+	Snapshot snapshot;
+	AnalysisPipeline.AnalysisResult result;
+
+	/**
+	 * @param lpFile Path of the lp file
+	 * @param tmpFolder Folder of the temporary files of the analyses (they are kept between two versions of the file)
+	 * @param stages The stages of each analysis (all the stages if none is specified)
+	 */
+	public LPWatcher(String lpFile, String tmpFolder, AnalysisPipeline.Stage... stages) {
+		this.lpFile = lpFile;
+		this.tmpFolder = tmpFolder;
+		this.stages = stages.length == 0 ? AnalysisPipeline.Stage.values() : stages;
+	}
+
+	/**
+	 * Analyze the lp file and analyze it again each time it is modified (until the thread is interrupted)
+	 * @throws IOException
+	 */
+	public void watch() throws IOException {
+
+		update();
+
+		Path file = Paths.get(lpFile).toAbsolutePath();
+
+		try(WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+
+			System.out.println("=== Watch " + lpFile);
+
+			while(!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watcher.take();
+				boolean isModified = false;
+
+				for(WatchEvent<?> event: key.pollEvents())
+					isModified |= file.getFileName().equals(event.context());
+
+				key.reset();
+
+				if(isModified) {
+
+					/* Wait for the end of the writing and ignore the events it generated */
+					Thread.sleep(100);
+					WatchKey pendingKey = watcher.poll();
+
+					if(pendingKey != null) {
+						pendingKey.pollEvents();
+						pendingKey.reset();
+					}
+
+					try {
+						update();
+					} catch (IOException e) {
+						System.err.println("Error: unable to analyze " + lpFile + ": " + e.getMessage());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Read the lp file and run the stages affected by its modifications since the last call
+	 * @return The stages which have been run
+	 * @throws IOException
+	 */
+	public Set<AnalysisPipeline.Stage> update() throws IOException {
+
+		long start = System.currentTimeMillis();
+
+		LPReader formulation;
+		Snapshot newSnapshot;
+
+		try {
+			formulation = new LPReader(lpFile);
+			formulation.setTmpFolder(tmpFolder);
+			newSnapshot = new Snapshot(formulation);
+		} catch (Exception e) {
+			throw new IOException("Unable to read " + lpFile + ": " + e.getMessage(), e);
+		}
+
+		Set<AnalysisPipeline.Stage> affectedStages = affectedStages(newSnapshot, formulation);
+
+		if(!affectedStages.isEmpty()) {
+			AnalysisPipeline.AnalysisResult newResult;
+
+			try {
+				newResult = new AnalysisPipeline(formulation).run(affectedStages.toArray(new AnalysisPipeline.Stage[0]));
+			} catch (IOException e) {
+
+				/* The results no longer correspond to any version of the file, the next version is analyzed entirely */
+				snapshot = null;
+				throw e;
+			}
+
+			result = result == null ? newResult : merge(result, newResult);
+		}
+
+		/* The snapshot is only replaced once its results are available so that a failed analysis is run again on the next version */
+		snapshot = newSnapshot;
+
+		System.out.println("=== Update of " + lpFile + " (stages run: " + affectedStages + ", time: " + (System.currentTimeMillis() - start) + "ms)");
+
+		return affectedStages;
+	}
+
+	/**
+	 * Get the results of the last analysis
+	 * @return
+	 */
+	public AnalysisPipeline.AnalysisResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Find the stages affected by the differences between the current snapshot and a new one
+	 * @param newSnapshot
+	 * @param formulation Formulation of the new snapshot
+	 * @return The stages to run (among the watched stages)
+	 */
+	private Set<AnalysisPipeline.Stage> affectedStages(Snapshot newSnapshot, LPReader formulation) {
+
+		Set<AnalysisPipeline.Stage> affected = new LinkedHashSet<>();
+
+		if(snapshot == null || result == null || !snapshot.variables.equals(newSnapshot.variables) || !newSnapshot.hasIntegerBounds) {
+			affected.addAll(Arrays.asList(stages));
+			return affected;
+		}
+
+		List<LinearConstraint> removedRows = snapshot.rowsNotIn(newSnapshot);
+		List<LinearConstraint> addedRows = newSnapshot.rowsNotIn(snapshot);
+
+		if(removedRows.isEmpty() && addedRows.isEmpty())
+			return affected;
+
+		boolean integerPointsChanged = false;
+		boolean relaxationChanged = false;
+
+		int size = newSnapshot.variables.size() + Math.max(snapshot.rows.size(), newSnapshot.rows.size());
+
+		if(size > maxRedundancyTestSize)
+			integerPointsChanged = true;
+		else {
+
+			/* A removed constraint changes I(P) if it cuts integer points of the new relaxation */
+			for(LinearConstraint row: removedRows)
+				for(LinearConstraint half: halves(row)) {
+					Rational max = maximum(half, newSnapshot);
+
+					if(max == null || max.compareTo(Rational.valueOf(half.rhs)) > 0) {
+						relaxationChanged = true;
+
+						if(max == null || floor(max) > half.rhs)
+							integerPointsChanged = true;
+					}
+				}
+
+			/* An added constraint changes I(P) if it cuts previous integer points */
+			List<int[]> points = null;
+
+			try {
+				points = PortaFiles.readPoints(formulation.sTmpPOIFile);
+			} catch (IOException | InvalidPOIFileFormatException e) {
+				integerPointsChanged = true;
+			}
+
+			for(LinearConstraint row: addedRows) {
+				if(points != null)
+					for(int[] point: points)
+						if(!row.isSatisfied(point))
+							integerPointsChanged = true;
+
+				for(LinearConstraint half: halves(row)) {
+					Rational max = maximum(half, snapshot);
+
+					if(max == null || max.compareTo(Rational.valueOf(half.rhs)) > 0)
+						relaxationChanged = true;
+				}
+			}
+		}
+
+		System.out.println("=== Modification of " + lpFile + " (removed constraints: " + removedRows.size() + ", added constraints: " + addedRows.size()
+				+ ", integer points changed: " + integerPointsChanged + ", relaxation changed: " + relaxationChanged + ")");
+
+		if(integerPointsChanged)
+			affected.addAll(Arrays.asList(stages));
+		else if(relaxationChanged && Arrays.asList(stages).contains(AnalysisPipeline.Stage.RELAXATION_EXTREME_POINTS))
+			affected.add(AnalysisPipeline.Stage.RELAXATION_EXTREME_POINTS);
+
+		return affected;
+	}
+
+	/**
+	 * Express a constraint as one or two "<=" constraints
+	 * @param row
+	 * @return
+	 */
+	private static List<LinearConstraint> halves(LinearConstraint row){
+
+		LinearConstraint lessOrEqual = row.toLessOrEqual();
+
+		if(lessOrEqual.sense == LinearConstraint.Sense.LE)
+			return Arrays.asList(lessOrEqual);
+
+		return Arrays.asList(new LinearConstraint(row.ids.clone(), row.coefficients.clone(), LinearConstraint.Sense.LE, row.rhs),
+				new LinearConstraint(row.ids.clone(), row.coefficients.clone(), LinearConstraint.Sense.GE, row.rhs).toLessOrEqual());
+	}
+
+	private static long floor(Rational r) {
+		return r.getNumerator().subtract(r.getNumerator().mod(r.getDenominator())).divide(r.getDenominator()).longValueExact();
+	}
+
+	/**
+	 * Maximize the left-hand side of a constraint over the relaxation of a snapshot.
+	 * With y = x - lb, the relaxation is {y >= 0 | y + t = ub - lb, a y + s = b - a lb for the inequalities, a y = b - a lb for the
+	 * equations, t >= 0, s >= 0}.
+	 * @param objective The constraint whose left-hand side is maximized
+	 * @param snapshot
+	 * @return The maximum; null if the relaxation is unbounded; the rhs of the constraint minus 1 if the relaxation is empty
+	 */
+	static Rational maximum(LinearConstraint objective, Snapshot snapshot) {
+
+		int n = snapshot.variables.size();
+		int inequalitiesNb = 0;
+
+		for(LinearConstraint row: snapshot.rows)
+			if(row.sense != LinearConstraint.Sense.EQ)
+				inequalitiesNb++;
+
+		int rowsNb = n + snapshot.rows.size();
+		int columnsNb = 2 * n + inequalitiesNb;
+
+		long[][] A = new long[rowsNb][columnsNb];
+		long[] b = new long[rowsNb];
+		long[] c = new long[columnsNb];
+
+		/* Bounds */
+		for(int j = 0; j < n; j++) {
+			A[j][j] = 1;
+			A[j][n + j] = 1;
+			b[j] = snapshot.upperBounds[j] - snapshot.lowerBounds[j];
+		}
+
+		int slack = 2 * n;
+
+		for(int i = 0; i < snapshot.rows.size(); i++) {
+			LinearConstraint row = snapshot.rows.get(i).toLessOrEqual();
+			int r = n + i;
+			b[r] = row.rhs;
+
+			for(int k = 0; k < row.ids.length; k++) {
+				A[r][row.ids[k] - 1] += row.coefficients[k];
+				b[r] -= row.coefficients[k] * snapshot.lowerBounds[row.ids[k] - 1];
+			}
+
+			if(row.sense == LinearConstraint.Sense.LE)
+				A[r][slack++] = 1;
+		}
+
+		long offset = 0;
+
+		for(int k = 0; k < objective.ids.length; k++) {
+			c[objective.ids[k] - 1] -= objective.coefficients[k];
+			offset += objective.coefficients[k] * snapshot.lowerBounds[objective.ids[k] - 1];
+		}
+
+		LinearProgram lp = new LinearProgram(A, b, c);
+
+		switch(lp.solve()) {
+		case OPTIMAL:
+			return lp.getObjectiveValue().negate().add(Rational.valueOf(offset));
+		case INFEASIBLE:
+			return Rational.valueOf(objective.rhs - 1);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Replace the results of the stages which have been run again
+	 * @param previous
+	 * @param update
+	 * @return
+	 */
+	private static AnalysisPipeline.AnalysisResult merge(AnalysisPipeline.AnalysisResult previous, AnalysisPipeline.AnalysisResult update) {
+
+		if(update.dimension != null)
+			previous.dimension = update.dimension;
+
+		if(update.facets != null)
+			previous.facets = update.facets;
+
+		if(update.integerPoints != null)
+			previous.integerPoints = update.integerPoints;
+
+		if(update.relaxationExtremePoints != null)
+			previous.relaxationExtremePoints = update.relaxationExtremePoints;
+
+		previous.stageTimes.putAll(update.stageTimes);
+
+		return previous;
+	}
+
+	/**
+	 * Watch an lp file
+	 * @param args Path of the lp file and folder of the temporary files (default: ./.tmp/watch)
+	 */
+	public static void main(String[] args) {
+
+		if(args.length == 0) {
+			System.err.println("Error: the path of the lp file is required");
+			return;
+		}
+
+		try {
+			new LPWatcher(args[0], args.length > 1 ? args[1] : "./.tmp/watch").watch();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,498 @@
+package formulation;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import exception.InvalidIEQFileFormatException;
+
+/**
+ * Sparse representation of a linear constraint expressed with porta variables names (x1, x2, ...).
+ * All the variables are on the left-hand side and the right-hand side is an integer:
+ *
+ * sum_i coefficients[i] x_{ids[i]} (sense) rhs
+ *
+ * @author zach
+ *
+ */
+public class LinearConstraint {
+
+	/**
+	 * Possible operators of a constraint
+	 */
+	public enum Sense{
+		LE("<="), GE(">="), EQ("==");
+
+		public String operator;
+
+		Sense(String operator){
+			this.operator = operator;
+		}
+
+		/** Sense obtained when both sides of the constraint are multiplied by -1 */
+		public Sense opposite() {
+			return this == LE ? GE : this == GE ? LE : EQ;
+		}
+	}
+
+	/** Porta id (starting from 1) of the variables which appear in the constraint (in increasing order) */
+	public int[] ids;
+
+	/** Coefficient of each variable in {@code ids} (never 0) */
+	public long[] coefficients;
+
+	public Sense sense;
+
+	public long rhs;
+
+	public LinearConstraint(int[] ids, long[] coefficients, Sense sense, long rhs) {
+		this.ids = ids;
+		this.coefficients = coefficients;
+		this.sense = sense;
+		this.rhs = rhs;
+	}
+
+	/**
+	 * Create a constraint from a dense vector of coefficients
+	 * @param denseCoefficients Coefficient of each variable (the coefficient of the variable of porta id i is in position i-1)
+	 * @param sense
+	 * @param rhs
+	 */
+	public LinearConstraint(long[] denseCoefficients, Sense sense, long rhs) {
+
+		int size = 0;
+
+		for(long c: denseCoefficients)
+			if(c != 0)
+				size++;
+
+		ids = new int[size];
+		coefficients = new long[size];
+
+		int pos = 0;
+
+		for(int i = 0; i < denseCoefficients.length; i++)
+			if(denseCoefficients[i] != 0) {
+				ids[pos] = i + 1;
+				coefficients[pos] = denseCoefficients[i];
+				pos++;
+			}
+
+		this.sense = sense;
+		this.rhs = rhs;
+	}
+
+	/**
+	 * Value of the left-hand side of the constraint for a given point
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return
+	 */
+	public long evaluate(int[] point) {
+
+		long result = 0;
+
+		for(int i = 0; i < ids.length; i++)
+			result += coefficients[i] * point[ids[i] - 1];
+
+		return result;
+	}
+
+	/**
+	 * Slack of a point (i.e., distance between the right-hand side and the left-hand side).
+	 * The slack is non-negative if and only if the point satisfies the inequality (for an equation, only 0 is satisfying).
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return rhs - lhs for a "<=" or a "==" constraint; lhs - rhs for a ">=" constraint
+	 */
+	public long slack(int[] point) {
+		long lhs = evaluate(point);
+		return sense == Sense.GE ? lhs - rhs : rhs - lhs;
+	}
+
+	/**
+	 * Test if a point satisfies the constraint
+	 * @param point Value of each variable (the value of the variable of porta id i is in position i-1)
+	 * @return
+	 */
+	public boolean isSatisfied(int[] point) {
+		long slack = slack(point);
+		return sense == Sense.EQ ? slack == 0 : slack >= 0;
+	}
+
+	/**
+	 * Get the coefficients of the constraint in a dense vector
+	 * @param dimension Number of variables
+	 * @return A vector in which the coefficient of the variable of porta id i is in position i-1
+	 */
+	public long[] toDense(int dimension) {
+
+		long[] result = new long[dimension];
+
+		for(int i = 0; i < ids.length; i++)
+			result[ids[i] - 1] = coefficients[i];
+
+		return result;
+	}
+
+	/**
+	 * Get the coefficient of a variable in the constraint
+	 * @param id Porta id of the variable
+	 * @return The coefficient (0 if the variable does not appear)
+	 */
+	public long getCoefficient(int id) {
+
+		for(int i = 0; i < ids.length; i++)
+			if(ids[i] == id)
+				return coefficients[i];
+
+		return 0;
+	}
+
+	/**
+	 * Change the porta ids of the variables of the constraint
+	 * @param newIds New porta id of each variable (the new id of the variable of porta id i is in position i-1)
+	 * @return A new constraint in which the variables are ordered by increasing new id
+	 */
+	public LinearConstraint renameVariables(int[] newIds) {
+
+		TreeMap<Integer, Long> terms = new TreeMap<>();
+
+		for(int i = 0; i < ids.length; i++)
+			terms.merge(newIds[ids[i] - 1], coefficients[i], Long::sum);
+
+		terms.values().removeIf(c -> c == 0);
+
+		int[] renamedIds = new int[terms.size()];
+		long[] renamedCoefficients = new long[terms.size()];
+		int pos = 0;
+
+		for(Entry<Integer, Long> entry: terms.entrySet()) {
+			renamedIds[pos] = entry.getKey();
+			renamedCoefficients[pos] = entry.getValue();
+			pos++;
+		}
+
+		return new LinearConstraint(renamedIds, renamedCoefficients, sense, rhs);
+	}
+
+	/**
+	 * Express the constraint with a "<=" or a "==" operator (i.e., multiply the constraint by -1 if its sense is ">=")
+	 * @return The constraint itself if its sense is not ">="; a new constraint otherwise
+	 */
+	public LinearConstraint toLessOrEqual() {
+
+		if(sense != Sense.GE)
+			return this;
+
+		long[] newCoefficients = new long[coefficients.length];
+
+		for(int i = 0; i < coefficients.length; i++)
+			newCoefficients[i] = -coefficients[i];
+
+		return new LinearConstraint(ids.clone(), newCoefficients, Sense.LE, -rhs);
+	}
+
+	/**
+	 * Divide the coefficients and the right-hand side by their greatest common divisor
+	 * @return The constraint itself
+	 */
+	public LinearConstraint normalize() {
+
+		long gcd = gcd(0, rhs);
+
+		for(long c: coefficients)
+			gcd = gcd(gcd, c);
+
+		if(gcd > 1) {
+			for(int i = 0; i < coefficients.length; i++)
+				coefficients[i] /= gcd;
+
+			rhs /= gcd;
+		}
+
+		return this;
+	}
+
+	public static long gcd(long a, long b) {
+
+		a = Math.abs(a);
+		b = Math.abs(b);
+
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+
+		return a;
+	}
+
+	/**
+	 * Parse a constraint in which the variables are expressed with their porta name.
+	 * Examples of valid constraints:
+	 * "(  3) -x1+2x3 <= 4"
+	 * "2 x9  +  x4 - x1 - x2 - x3  <= 0"
+	 * "x6 >= x1 + x2 - 1"
+	 * "1/2 x1 + 0.5 x2 == 1"
+	 *
+	 * The variables and the constants can appear on both sides of the operator.
+	 * Non integer coefficients are removed by multiplying the constraint by the least common multiple of their denominators.
+	 *
+	 * @param constraint The constraint
+	 * @return The constraint; null if the string does not contain any operator (e.g., an empty line)
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static LinearConstraint parse(String constraint) throws InvalidIEQFileFormatException {
+
+		String s = constraint.trim();
+
+		/* Remove the number of the constraint (e.g., "( 12)") */
+		if(s.startsWith("(")) {
+			int bracketIndex = s.indexOf(')');
+
+			if(bracketIndex == -1)
+				throw new InvalidIEQFileFormatException("Missing ')' in constraint \"" + constraint + "\"");
+
+			s = s.substring(bracketIndex + 1);
+		}
+
+		/* Find the operator */
+		String[] operators = {"<=", ">=", "==", "=<", "=>", "<", ">", "="};
+		Sense[] senses = {Sense.LE, Sense.GE, Sense.EQ, Sense.LE, Sense.GE, Sense.LE, Sense.GE, Sense.EQ};
+
+		int operatorIndex = -1;
+		int operatorLength = 0;
+		Sense sense = null;
+
+		for(int i = 0; i < operators.length && operatorIndex == -1; i++) {
+			int index = s.indexOf(operators[i]);
+
+			if(index != -1) {
+				operatorIndex = index;
+				operatorLength = operators[i].length();
+				sense = senses[i];
+			}
+		}
+
+		if(operatorIndex == -1)
+			return null;
+
+		/* Coefficient of each variable (after moving all the variables on the left-hand side) */
+		TreeMap<Integer, BigInteger[]> terms = new TreeMap<>();
+
+		/* Constant term (after moving all the constants on the right-hand side) */
+		BigInteger[] constant = {BigInteger.ZERO, BigInteger.ONE};
+
+		parseSide(s.substring(0, operatorIndex), true, terms, constant, constraint);
+		parseSide(s.substring(operatorIndex + operatorLength), false, terms, constant, constraint);
+
+		/* Least common multiple of the denominators */
+		BigInteger lcm = constant[1];
+
+		for(BigInteger[] c: terms.values())
+			lcm = lcm.divide(lcm.gcd(c[1])).multiply(c[1]);
+
+		int size = 0;
+		for(BigInteger[] c: terms.values())
+			if(c[0].signum() != 0)
+				size++;
+
+		int[] ids = new int[size];
+		long[] coefficients = new long[size];
+		int pos = 0;
+
+		try {
+			for(Entry<Integer, BigInteger[]> entry: terms.entrySet())
+				if(entry.getValue()[0].signum() != 0) {
+					ids[pos] = entry.getKey();
+					coefficients[pos] = entry.getValue()[0].multiply(lcm).divide(entry.getValue()[1]).longValueExact();
+					pos++;
+				}
+
+			long rhs = constant[0].multiply(lcm).divide(constant[1]).longValueExact();
+
+			return new LinearConstraint(ids, coefficients, sense, rhs);
+		}
+		catch(ArithmeticException e) {
+			throw new InvalidIEQFileFormatException("The coefficients of constraint \"" + constraint + "\" are too large");
+		}
+	}
+
+	/**
+	 * Parse one side of a constraint and add its terms to the current terms
+	 * @param side The string which contains the side
+	 * @param isLeftHandSide True if it is the left-hand side
+	 * @param terms The coefficients of the variables (each coefficient is a fraction {numerator, denominator})
+	 * @param constant The constant term of the right-hand side (fraction {numerator, denominator})
+	 * @param constraint The whole constraint (used in error messages)
+	 * @throws InvalidIEQFileFormatException
+	 */
+	private static void parseSide(String side, boolean isLeftHandSide, TreeMap<Integer, BigInteger[]> terms, BigInteger[] constant, String constraint) throws InvalidIEQFileFormatException {
+
+		int i = 0;
+		int length = side.length();
+
+		while(i < length) {
+
+			/* Read the sign of the term */
+			boolean isPositive = true;
+			boolean hasSign = false;
+
+			while(i < length && (side.charAt(i) == '+' || side.charAt(i) == '-' || Character.isWhitespace(side.charAt(i)))) {
+				if(side.charAt(i) == '-') {
+					isPositive = !isPositive;
+					hasSign = true;
+				}
+				else if(side.charAt(i) == '+')
+					hasSign = true;
+				i++;
+			}
+
+			if(i == length) {
+				if(hasSign)
+					throw new InvalidIEQFileFormatException("Missing term after a sign in constraint \"" + constraint + "\"");
+				break;
+			}
+
+			/* Read the coefficient of the term if any */
+			BigInteger[] coefficient = {BigInteger.ONE, BigInteger.ONE};
+			boolean hasCoefficient = false;
+
+			int start = i;
+			while(i < length && (Character.isDigit(side.charAt(i)) || side.charAt(i) == '.'))
+				i++;
+
+			if(i > start) {
+				hasCoefficient = true;
+				BigDecimal value = new BigDecimal(side.substring(start, i));
+
+				if(value.scale() > 0)
+					coefficient = new BigInteger[] {value.unscaledValue(), BigInteger.TEN.pow(value.scale())};
+				else
+					coefficient = new BigInteger[] {value.toBigIntegerExact(), BigInteger.ONE};
+
+				/* Fraction */
+				int j = skipWhitespaces(side, i);
+
+				if(j < length && side.charAt(j) == '/') {
+					j = skipWhitespaces(side, j + 1);
+					start = j;
+
+					while(j < length && Character.isDigit(side.charAt(j)))
+						j++;
+
+					if(j == start || new BigInteger(side.substring(start, j)).signum() == 0)
+						throw new InvalidIEQFileFormatException("Invalid fraction in constraint \"" + constraint + "\"");
+
+					coefficient[1] = coefficient[1].multiply(new BigInteger(side.substring(start, j)));
+					i = j;
+				}
+
+				coefficient = addFractions(coefficient, new BigInteger[] {BigInteger.ZERO, BigInteger.ONE});
+			}
+
+			i = skipWhitespaces(side, i);
+
+			/* Read the variable of the term if any */
+			int id = -1;
+
+			if(i < length && side.charAt(i) == 'x') {
+				start = ++i;
+
+				while(i < length && Character.isDigit(side.charAt(i)))
+					i++;
+
+				if(i == start)
+					throw new InvalidIEQFileFormatException("Invalid variable name in constraint \"" + constraint + "\"");
+
+				id = Integer.parseInt(side.substring(start, i));
+			}
+			else if(!hasCoefficient)
+				throw new InvalidIEQFileFormatException("Unexpected character '" + side.charAt(i) + "' in constraint \"" + constraint + "\"");
+
+			/* The variables are moved on the left-hand side and the constants on the right-hand side */
+			boolean isAdded = isPositive == (isLeftHandSide == (id != -1));
+
+			if(!isAdded)
+				coefficient[0] = coefficient[0].negate();
+
+			if(id != -1) {
+				BigInteger[] current = terms.get(id);
+
+				if(current == null)
+					terms.put(id, coefficient);
+				else
+					terms.put(id, addFractions(current, coefficient));
+			}
+			else {
+				BigInteger[] sum = addFractions(constant, coefficient);
+				constant[0] = sum[0];
+				constant[1] = sum[1];
+			}
+		}
+	}
+
+	private static int skipWhitespaces(String s, int i) {
+		while(i < s.length() && Character.isWhitespace(s.charAt(i)))
+			i++;
+		return i;
+	}
+
+	private static BigInteger[] addFractions(BigInteger[] f1, BigInteger[] f2) {
+		BigInteger numerator = f1[0].multiply(f2[1]).add(f2[0].multiply(f1[1]));
+		BigInteger denominator = f1[1].multiply(f2[1]);
+		BigInteger gcd = numerator.gcd(denominator);
+
+		if(gcd.signum() != 0 && !gcd.equals(BigInteger.ONE)) {
+			numerator = numerator.divide(gcd);
+			denominator = denominator.divide(gcd);
+		}
+
+		return new BigInteger[] {numerator, denominator};
+	}
+
+	/**
+	 * Write the constraint in the format of porta output files (e.g., "-x1+2x3 <= 4")
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+
+		for(int i = 0; i < ids.length; i++) {
+			long c = coefficients[i];
+			sb.append(c < 0 ? '-' : '+');
+
+			if(Math.abs(c) != 1)
+				sb.append(Math.abs(c));
+
+			sb.append('x').append(ids[i]);
+		}
+
+		if(ids.length == 0)
+			sb.append('0');
+
+		sb.append(' ').append(sense.operator).append(' ').append(rhs);
+
+		return sb.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+
+		if(!(o instanceof LinearConstraint))
+			return false;
+
+		LinearConstraint c = (LinearConstraint)o;
+
+		return sense == c.sense && rhs == c.rhs
+				&& Arrays.equals(ids, c.ids)
+				&& Arrays.equals(coefficients, c.coefficients);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * Arrays.hashCode(ids) + Arrays.hashCode(coefficients)) + sense.hashCode()) + Long.hashCode(rhs);
+	}
+}
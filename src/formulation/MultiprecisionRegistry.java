@@ -0,0 +1,131 @@
+package formulation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Record of the traf inputs which required the multiprecision arithmetic of porta.
+ *
+ * traf is first run with the normal integer arithmetic. If an overflow occurs, the input is run again with the multiprecision arithmetic
+ * and its hash is added to the registry file. The next time the same input is considered, traf directly uses the multiprecision
+ * arithmetic.
+ *
+ * Each line of the registry file contains the SHA-256 hash of an input file followed by its path at the time it was recorded.
+ *
+ * Each polytope uses the registry file of its temporary folder (see AbstractPolytope.setTmpFolder()) so that concurrent analyses
+ * in different folders do not share a file. The polytopes which use the same file share the same registry (see get()).
+ * @author zach
+ *
+ */
+public class MultiprecisionRegistry {
+
+	/** Name of the registry file in a temporary folder */
+	public static final String REGISTRY_FILE_NAME = "multiprecision_registry.txt";
+
+	/** Registries already used, indexed by the absolute path of their file */
+	private static Map<String, MultiprecisionRegistry> registries = new HashMap<>();
+
+	/** Path of the registry file */
+	private String registryFile;
+
+	/** Hashes contained in the registry file (null until the file is read) */
+	private Set<String> hashes = null;
+
+	private MultiprecisionRegistry(String registryFile) {
+		this.registryFile = registryFile;
+	}
+
+	/**
+	 * Get the registry of a temporary folder
+	 * @param tmpFolder Path of the folder
+	 * @return The registry whose file is <tmpFolder>/multiprecision_registry.txt
+	 */
+	public static MultiprecisionRegistry ofFolder(String tmpFolder) {
+		return get(tmpFolder + "/" + REGISTRY_FILE_NAME);
+	}
+
+	/**
+	 * Get the registry stored in a file
+	 * @param registryFile Path of the registry file
+	 * @return
+	 */
+	public static synchronized MultiprecisionRegistry get(String registryFile) {
+		return registries.computeIfAbsent(new File(registryFile).getAbsolutePath(), MultiprecisionRegistry::new);
+	}
+
+	/**
+	 * Get the path of the registry file
+	 * @return
+	 */
+	public String getRegistryFile() {
+		return registryFile;
+	}
+
+	/**
+	 * Test if an input file is known to require the multiprecision arithmetic
+	 * @param hash Hash of the input file
+	 * @return
+	 */
+	public synchronized boolean contains(String hash) {
+		return load().contains(hash);
+	}
+
+	/**
+	 * Test if the registry contains at least one input
+	 * @return
+	 */
+	public synchronized boolean isEmpty() {
+		return load().isEmpty();
+	}
+
+	/**
+	 * Record that an input file requires the multiprecision arithmetic
+	 * @param hash Hash of the input file
+	 * @param inputFile Path of the input file
+	 */
+	public synchronized void add(String hash, String inputFile) {
+
+		if(!load().add(hash))
+			return;
+
+		try {
+			PortaFiles.createParentFolder(registryFile);
+
+			BufferedWriter bw = new BufferedWriter(new FileWriter(registryFile, true));
+			bw.write(hash + " " + inputFile + "\n");
+			bw.close();
+
+		} catch (IOException e) {
+			System.err.println("Error: unable to write the multiprecision registry " + registryFile + ": " + e.getMessage());
+		}
+	}
+
+	private Set<String> load() {
+
+		if(hashes == null) {
+			hashes = new HashSet<>();
+
+			if(new File(registryFile).exists())
+				try {
+					for(String line: Files.readAllLines(Paths.get(registryFile))) {
+						line = line.trim();
+
+						if(!line.isEmpty())
+							hashes.add(line.split(" ")[0]);
+					}
+				} catch (IOException e) {
+					System.err.println("Error: unable to read the multiprecision registry " + registryFile + ": " + e.getMessage());
+				}
+		}
+
+		return hashes;
+	}
+}
@@ -0,0 +1,248 @@
+package formulation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import exception.InvalidIEQFileFormatException;
+import exception.InvalidPOIFileFormatException;
+
+/**
+ * Read and write the .poi and .ieq files used by porta in which the variables have their porta names
+ * @author zach
+ *
+ */
+public class PortaFiles {
+
+	/**
+	 * Read the dimension (line "DIM = n") of a porta file
+	 * @param file Path of the .poi or .ieq file
+	 * @return The dimension; -1 if the file does not specify it
+	 * @throws IOException
+	 */
+	public static int readDimension(String file) throws IOException {
+
+		BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+		String line;
+		int dimension = -1;
+
+		while (dimension == -1 && (line=br.readLine())!=null){
+
+			line = line.trim();
+
+			if(line.startsWith("DIM")) {
+				String[] sLine = line.split("=");
+
+				if(sLine.length > 1)
+					dimension = Integer.parseInt(sLine[1].trim());
+			}
+		}
+
+		br.close();
+
+		return dimension;
+	}
+
+	/**
+	 * Read the points of the CONV_SECTION of a .poi file
+	 * @param poiFile Path of the .poi file
+	 * @return The points (the value of the variable of porta id i is in position i-1)
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException If a coordinate is not an integer
+	 */
+	public static List<int[]> readPoints(String poiFile) throws IOException, InvalidPOIFileFormatException {
+
+		InputStream ips=new FileInputStream(poiFile);
+		InputStreamReader ipsr=new InputStreamReader(ips);
+		BufferedReader br=new BufferedReader(ipsr);
+
+		List<int[]> points = new ArrayList<>();
+		String line;
+		boolean isInConvSection = false;
+		int dimension = -1;
+
+		while ((line=br.readLine())!=null){
+
+			line = line.trim();
+
+			if(line.startsWith("DIM")) {
+				String[] sLine = line.split("=");
+
+				if(sLine.length > 1)
+					dimension = Integer.parseInt(sLine[1].trim());
+			}
+			else if(line.contains("CONV_SECTION"))
+				isInConvSection = true;
+			else if(line.contains("CONE_SECTION") || line.contains("END"))
+				isInConvSection = false;
+			else if(isInConvSection && line.length() > 0) {
+
+				/* Remove the number of the point if any (e.g., "(  1)") */
+				int bracketIndex = line.indexOf(')');
+
+				if(bracketIndex != -1)
+					line = line.substring(bracketIndex + 1);
+
+				/* Porta may write a space between a minus sign and the value */
+				String[] sPoint = line.trim().replace("- ", "-").split("\\s+");
+
+				if(dimension != -1 && sPoint.length != dimension) {
+					br.close();
+					throw new InvalidPOIFileFormatException("The point \"" + line.trim() + "\" of file " + poiFile + " does not contain " + dimension + " values");
+				}
+
+				int[] point = new int[sPoint.length];
+
+				try {
+					for(int i = 0; i < sPoint.length; i++)
+						point[i] = Integer.parseInt(sPoint[i]);
+				}
+				catch(NumberFormatException e) {
+					br.close();
+					throw new InvalidPOIFileFormatException("The point \"" + line.trim() + "\" of file " + poiFile + " is not an integer point");
+				}
+
+				points.add(point);
+			}
+		}
+
+		br.close();
+
+		return points;
+	}
+
+	/**
+	 * Write points in the CONV_SECTION of a .poi file
+	 * @param poiFile Path of the output file
+	 * @param dimension Number of variables
+	 * @param points The points (the value of the variable of porta id i is in position i-1)
+	 * @throws IOException
+	 */
+	public static void writePoints(String poiFile, int dimension, List<int[]> points) throws IOException {
+
+		createParentFolder(poiFile);
+
+		BufferedWriter bw = new BufferedWriter(new FileWriter(poiFile));
+
+		bw.write("DIM = " + dimension + "\n\n");
+		bw.write("CONV_SECTION\n");
+
+		StringBuilder sb = new StringBuilder();
+
+		for(int[] point: points) {
+			sb.setLength(0);
+
+			for(int v: point)
+				sb.append(v).append(' ');
+
+			sb.append('\n');
+			bw.write(sb.toString());
+		}
+
+		bw.write("\nEND\n");
+		bw.close();
+	}
+
+	/**
+	 * Read the constraints of the INEQUALITIES_SECTION of an .ieq file
+	 * @param ieqFile Path of the .ieq file
+	 * @return The constraints
+	 * @throws IOException
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static List<LinearConstraint> readConstraints(String ieqFile) throws IOException, InvalidIEQFileFormatException {
+
+		InputStream ips=new FileInputStream(ieqFile);
+		InputStreamReader ipsr=new InputStreamReader(ips);
+		BufferedReader br=new BufferedReader(ipsr);
+
+		List<LinearConstraint> constraints = new ArrayList<>();
+		String line;
+		boolean isInInequalitiesSection = false;
+
+		while ((line=br.readLine())!=null){
+
+			if(line.contains("INEQUALITIES_SECTION"))
+				isInInequalitiesSection = true;
+			else if(line.trim().startsWith("END"))
+				isInInequalitiesSection = false;
+			else if(isInInequalitiesSection) {
+				LinearConstraint constraint = LinearConstraint.parse(line);
+
+				if(constraint != null)
+					constraints.add(constraint);
+			}
+		}
+
+		br.close();
+
+		return constraints;
+	}
+
+	/**
+	 * Write constraints in an .ieq file
+	 * @param ieqFile Path of the output file
+	 * @param dimension Number of variables
+	 * @param lowerBounds Lower bound of each variable (null if the section LOWER_BOUNDS must not be written)
+	 * @param upperBounds Upper bound of each variable (null if the section UPPER_BOUNDS must not be written)
+	 * @param constraints The constraints
+	 * @throws IOException
+	 */
+	public static void writeConstraints(String ieqFile, int dimension, int[] lowerBounds, int[] upperBounds, List<LinearConstraint> constraints) throws IOException {
+
+		createParentFolder(ieqFile);
+
+		BufferedWriter bw = new BufferedWriter(new FileWriter(ieqFile));
+
+		bw.write("DIM = " + dimension + "\n");
+
+		if(lowerBounds != null)
+			bw.write("\nLOWER_BOUNDS\n" + boundsToString(lowerBounds) + "\n");
+
+		if(upperBounds != null)
+			bw.write("\nUPPER_BOUNDS\n" + boundsToString(upperBounds) + "\n");
+
+		bw.write("\nINEQUALITIES_SECTION\n");
+
+		int numberLength = Integer.toString(constraints.size()).length();
+		int number = 1;
+
+		for(LinearConstraint constraint: constraints) {
+			String sNumber = Integer.toString(number);
+
+			while(sNumber.length() < numberLength)
+				sNumber = " " + sNumber;
+
+			bw.write("(" + sNumber + ") " + constraint + "\n");
+			number++;
+		}
+
+		bw.write("\nEND\n");
+		bw.close();
+	}
+
+	private static String boundsToString(int[] bounds) {
+
+		StringBuilder sb = new StringBuilder();
+
+		for(int b: bounds)
+			sb.append(b).append(' ');
+
+		return sb.toString();
+	}
+
+	static void createParentFolder(String file) {
+
+		File parent = new File(file).getAbsoluteFile().getParentFile();
+
+		if(parent != null && !parent.exists())
+			parent.mkdirs();
+	}
+}
@@ -0,0 +1,142 @@
+package formulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import exception.InvalidPOIFileFormatException;
+
+/**
+ * Options given to the porta commands (traf, vint and dim).
+ *
+ * Only the options which do not change the format of the output files are available (the output files are read by the reductions and
+ * the conversion methods).
+ * @author zach
+ *
+ */
+public class PortaOptions {
+
+	/** Number of points of the sub-instance used to tune the options */
+	public static int tuningSampleSize = 100;
+
+	/** Option -o: eliminate first the variable which minimizes the number of new inequalities in the Fourier-Motzkin elimination (traf) */
+	public boolean eliminationHeuristic = false;
+
+	/** If false, option -c: do not use the rule of Chernikov in the Fourier-Motzkin elimination (traf) */
+	public boolean chernikovRule = true;
+
+	/** Option -l: use an arbitrary precision integer arithmetic (slower but immune to overflows) */
+	public boolean multiprecision = false;
+
+	/** Option -p: redirect the terminal messages of porta into the file <input file>.prt */
+	public boolean logFile = false;
+
+	public PortaOptions() {}
+
+	public PortaOptions(PortaOptions options) {
+		this.eliminationHeuristic = options.eliminationHeuristic;
+		this.chernikovRule = options.chernikovRule;
+		this.multiprecision = options.multiprecision;
+		this.logFile = options.logFile;
+	}
+
+	/**
+	 * Get the options of traf
+	 * @return The options followed by a space (an empty string if no option is used)
+	 */
+	public String trafArguments() {
+		return (eliminationHeuristic ? "-o " : "") + (chernikovRule ? "" : "-c ") + commonArguments();
+	}
+
+	/**
+	 * Get the options of vint
+	 * @return The options followed by a space (an empty string if no option is used)
+	 */
+	public String vintArguments() {
+		return commonArguments();
+	}
+
+	/**
+	 * Get the options of dim
+	 * @return The options followed by a space (an empty string if no option is used)
+	 */
+	public String dimArguments() {
+		return commonArguments();
+	}
+
+	private String commonArguments() {
+		return (multiprecision ? "-l " : "") + (logFile ? "-p " : "");
+	}
+
+	/**
+	 * Find the fastest traf options on a sample of the points of a .poi file.
+	 * Each combination of the options eliminationHeuristic and chernikovRule is tested on a random subset of tuningSampleSize points.
+	 * @param poiFile Path of the .poi file
+	 * @param options Initial options (the other options are not modified)
+	 * @return The fastest options; the initial options if the file contains too few points to be sampled or if an error occurred
+	 */
+	public static PortaOptions tune(String poiFile, PortaOptions options) {
+
+		List<int[]> points;
+		int dimension;
+
+		try {
+			points = PortaFiles.readPoints(poiFile);
+			dimension = PortaFiles.readDimension(poiFile);
+		} catch (IOException | InvalidPOIFileFormatException e) {
+			System.err.println("Error: unable to tune the porta options: " + e.getMessage());
+			return options;
+		}
+
+		if(points.size() <= 2 * tuningSampleSize)
+			return options;
+
+		/* Sample the points (with a fixed seed so that successive runs are comparable) */
+		List<int[]> sample = new ArrayList<>(points);
+		Collections.shuffle(sample, new Random(0));
+		sample = sample.subList(0, tuningSampleSize);
+
+		String samplePOIFile = poiFile.substring(0, poiFile.length() - ".poi".length()) + "_tuning.poi";
+
+		try {
+			PortaFiles.writePoints(samplePOIFile, dimension, sample);
+		} catch (IOException e) {
+			System.err.println("Error: unable to tune the porta options: " + e.getMessage());
+			return options;
+		}
+
+		PortaOptions bestOptions = options;
+		long bestTime = Long.MAX_VALUE;
+		String summary = "";
+
+		for(boolean eliminationHeuristic: new boolean[] {false, true})
+			for(boolean chernikovRule: new boolean[] {true, false}) {
+
+				PortaOptions candidate = new PortaOptions(options);
+				candidate.eliminationHeuristic = eliminationHeuristic;
+				candidate.chernikovRule = chernikovRule;
+
+				long start = System.currentTimeMillis();
+				AbstractPolytope.traf(samplePOIFile, candidate);
+				long time = System.currentTimeMillis() - start;
+
+				summary += (summary.isEmpty() ? "" : ", ") + "\"" + candidate.trafArguments().trim() + "\": " + time + "ms";
+
+				if(time < bestTime) {
+					bestTime = time;
+					bestOptions = candidate;
+				}
+			}
+
+		System.out.println("=== Tune the traf options on " + tuningSampleSize + " points (" + summary + ", selected: \"" + bestOptions.trafArguments().trim() + "\")");
+
+		return bestOptions;
+	}
+
+	@Override
+	public String toString() {
+		return trafArguments().trim();
+	}
+}
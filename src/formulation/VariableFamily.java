@@ -0,0 +1,189 @@
+package formulation;
+
+import java.util.Arrays;
+
+import exception.UnknownVariableName;
+
+/**
+ * Family of variables indexed by integers (e.g., x[i][j], y[j] or z[k]).
+ *
+ * The porta id of each variable of the family is stored in a dense table indexed by the position of its indices, so that a
+ * formulation generator can get the porta name of a variable by index arithmetic instead of building its original name and
+ * looking it up (see portaName()). The variables of a family do not have to be registered consecutively nor all registered
+ * (e.g., only the cells i < j of a symmetric family).
+ *
+ * The original name of a variable is the name of the family followed by its indices separated by '_' (e.g., x2_5). These names are
+ * only created when they are needed (e.g., when the correspondence between the porta names and the original names is written).
+ * @author zach
+ *
+ */
+public class VariableFamily {
+
+	/** Name of the family */
+	String name;
+
+	/** Number of values of each index */
+	int[] sizes;
+
+	/** Value of the first index in the original names (e.g., 1 for the variables y1, y2, ...) */
+	int origin;
+
+	/** Porta id of the variable of each cell; -1 if the cell is not registered */
+	int[] ids;
+
+	/**
+	 * Create a family whose indices start from 0
+	 * @param name Name of the family
+	 * @param sizes Number of values of each index
+	 */
+	public VariableFamily(String name, int... sizes) {
+		this(name, 0, sizes);
+	}
+
+	/**
+	 * @param name Name of the family
+	 * @param origin Value of the first index (e.g., 1 for the variables y1, y2, ...)
+	 * @param sizes Number of values of each index
+	 */
+	public VariableFamily(String name, int origin, int[] sizes) {
+
+		this.name = name;
+		this.origin = origin;
+		this.sizes = sizes.clone();
+
+		int cellsNb = 1;
+
+		for(int size: sizes)
+			cellsNb = Math.multiplyExact(cellsNb, size);
+
+		ids = new int[cellsNb];
+		Arrays.fill(ids, -1);
+	}
+
+	/**
+	 * Get the number of cells of the family (registered or not)
+	 * @return
+	 */
+	public int cellsNb() {
+		return ids.length;
+	}
+
+	/**
+	 * Get the cell of a variable
+	 * @param indices Indices of the variable (starting from the origin of the family)
+	 * @return The position of the variable in the table
+	 */
+	public int cell(int... indices) {
+
+		if(indices.length != sizes.length)
+			throw new IllegalArgumentException("The family " + name + " has " + sizes.length + " indices (not " + indices.length + ")");
+
+		int cell = 0;
+
+		for(int d = 0; d < sizes.length; d++)
+			cell = cell * sizes[d] + checkIndex(indices[d], d);
+
+		return cell;
+	}
+
+	/**
+	 * Get the porta id of a variable of a family with one index (see also the methods for two and three indices)
+	 * @param i
+	 * @return The id; -1 if the variable is not registered
+	 */
+	public int id(int i) {
+		return sizes.length == 1 ? ids[checkIndex(i, 0)] : ids[cell(i)];
+	}
+
+	public int id(int i, int j) {
+		return sizes.length == 2 ? ids[checkIndex(i, 0) * sizes[1] + checkIndex(j, 1)] : ids[cell(i, j)];
+	}
+
+	public int id(int i, int j, int k) {
+		return sizes.length == 3 ? ids[(checkIndex(i, 0) * sizes[1] + checkIndex(j, 1)) * sizes[2] + checkIndex(k, 2)] : ids[cell(i, j, k)];
+	}
+
+	/**
+	 * Get the porta id of a variable
+	 * @param indices Indices of the variable
+	 * @return The id; -1 if the variable is not registered
+	 */
+	public int idOf(int... indices) {
+		return ids[cell(indices)];
+	}
+
+	public String portaName(int i) throws UnknownVariableName {
+		return checkedPortaName(id(i), i);
+	}
+
+	public String portaName(int i, int j) throws UnknownVariableName {
+		return checkedPortaName(id(i, j), i, j);
+	}
+
+	public String portaName(int i, int j, int k) throws UnknownVariableName {
+		return checkedPortaName(id(i, j, k), i, j, k);
+	}
+
+	/**
+	 * Get the original name of a variable
+	 * @param indices Indices of the variable
+	 * @return
+	 */
+	public String name(int... indices) {
+		return nameOfCell(cell(indices));
+	}
+
+	/**
+	 * Get the original name of the variable of a cell
+	 * @param cell
+	 * @return
+	 */
+	public String nameOfCell(int cell) {
+
+		StringBuilder sb = new StringBuilder(name);
+
+		int[] indices = new int[sizes.length];
+
+		for(int d = sizes.length - 1; d >= 0; d--) {
+			indices[d] = cell % sizes[d];
+			cell /= sizes[d];
+		}
+
+		for(int d = 0; d < sizes.length; d++) {
+			if(d > 0)
+				sb.append('_');
+			sb.append(indices[d] + origin);
+		}
+
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder(name);
+
+		for(int size: sizes)
+			sb.append('[').append(origin).append("..").append(origin + size - 1).append(']');
+
+		return sb.toString();
+	}
+
+	private String checkedPortaName(int id, int... indices) throws UnknownVariableName {
+
+		if(id == -1)
+			throw new UnknownVariableName(name(indices));
+
+		return "x" + id;
+	}
+
+	private int checkIndex(int index, int d) {
+
+		int i = index - origin;
+
+		if(i < 0 || i >= sizes[d])
+			throw new IndexOutOfBoundsException("Index " + index + " of the family " + name + " is not in [" + origin + ", " + (origin + sizes[d] - 1) + "]");
+
+		return i;
+	}
+}
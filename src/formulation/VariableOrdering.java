@@ -0,0 +1,266 @@
+package formulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Permutation of the porta ids of the variables.
+ *
+ * The running time of traf depends on the order of the coordinates. The variables can be renumbered before calling traf and the facets
+ * are then expressed with the original ids.
+ * @author zach
+ *
+ */
+public class VariableOrdering {
+
+	public enum Heuristic{
+
+		/* Keep the registration order of the variables */
+		REGISTRATION,
+
+		/* Order the variables by increasing number of constraints in which they appear */
+		CONSTRAINT_DENSITY,
+
+		/* Order the variables by increasing number of integer points in which they are not equal to 0 */
+		POINT_DEGREE,
+
+		/* Reverse Cuthill-McKee ordering of the graph in which two variables are adjacent if they appear in the same constraint
+		 * (or if they are both non-zero in an integer point when no constraint is available) */
+		BANDWIDTH
+	}
+
+	/** New porta id of each variable (the new id of the variable of original id i is in position i-1) */
+	int[] newIds;
+
+	/** Original porta id of each variable (the original id of the variable of new id i is in position i-1) */
+	int[] originalIds;
+
+	/**
+	 * @param order Original ids of the variables in their new order
+	 */
+	private VariableOrdering(int[] order) {
+
+		originalIds = order;
+		newIds = new int[order.length];
+
+		for(int i = 0; i < order.length; i++)
+			newIds[order[i] - 1] = i + 1;
+	}
+
+	/**
+	 * Compute an ordering of the variables
+	 * @param heuristic The heuristic used to order the variables
+	 * @param dimension Number of variables
+	 * @param points Integer points (not used by CONSTRAINT_DENSITY)
+	 * @param constraints Constraints of the formulation (null if the polytope is defined by its integer points; in that case
+	 * CONSTRAINT_DENSITY keeps the registration order and BANDWIDTH uses the integer points)
+	 * @return
+	 */
+	public static VariableOrdering compute(Heuristic heuristic, int dimension, List<int[]> points, List<LinearConstraint> constraints) {
+
+		int[] order = null;
+
+		switch(heuristic) {
+		case REGISTRATION: break;
+		case CONSTRAINT_DENSITY:
+			if(constraints != null)
+				order = sortByScore(constraintDensity(dimension, constraints));
+			break;
+		case POINT_DEGREE: order = sortByScore(pointDegree(dimension, points)); break;
+		case BANDWIDTH: order = reverseCuthillMcKee(constraints != null ? constraintGraph(dimension, constraints) : pointGraph(dimension, points)); break;
+		}
+
+		if(order == null) {
+			order = new int[dimension];
+
+			for(int i = 0; i < dimension; i++)
+				order[i] = i + 1;
+		}
+
+		return new VariableOrdering(order);
+	}
+
+	/**
+	 * Test if the ordering is the registration order
+	 * @return
+	 */
+	public boolean isIdentity() {
+
+		for(int i = 0; i < newIds.length; i++)
+			if(newIds[i] != i + 1)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Express a point with the new ids
+	 * @param point Value of each variable (the variable of original id i is in position i-1)
+	 * @return
+	 */
+	public int[] permute(int[] point) {
+
+		int[] result = new int[point.length];
+
+		for(int i = 0; i < point.length; i++)
+			result[i] = point[originalIds[i] - 1];
+
+		return result;
+	}
+
+	/**
+	 * Express a constraint with the new ids
+	 * @param constraint Constraint expressed with the original ids
+	 * @return
+	 */
+	public LinearConstraint permute(LinearConstraint constraint) {
+		return constraint.renameVariables(newIds);
+	}
+
+	/**
+	 * Express a constraint with the original ids
+	 * @param constraint Constraint expressed with the new ids
+	 * @return
+	 */
+	public LinearConstraint restore(LinearConstraint constraint) {
+		return constraint.renameVariables(originalIds);
+	}
+
+	private static int[] constraintDensity(int dimension, List<LinearConstraint> constraints) {
+
+		int[] score = new int[dimension];
+
+		for(LinearConstraint c: constraints)
+			for(int id: c.ids)
+				score[id - 1]++;
+
+		return score;
+	}
+
+	private static int[] pointDegree(int dimension, List<int[]> points) {
+
+		int[] score = new int[dimension];
+
+		for(int[] point: points)
+			for(int i = 0; i < dimension; i++)
+				if(point[i] != 0)
+					score[i]++;
+
+		return score;
+	}
+
+	/**
+	 * Order the variables by increasing score (the ties are broken by the original ids)
+	 * @param score Score of each variable (the score of the variable of original id i is in position i-1)
+	 * @return The original ids in their new order
+	 */
+	private static int[] sortByScore(int[] score) {
+
+		Integer[] order = new Integer[score.length];
+
+		for(int i = 0; i < score.length; i++)
+			order[i] = i + 1;
+
+		Arrays.sort(order, Comparator.comparingInt((Integer id) -> score[id - 1]).thenComparingInt(id -> id));
+
+		return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+	}
+
+	private static List<TreeSet<Integer>> emptyGraph(int dimension){
+
+		List<TreeSet<Integer>> graph = new ArrayList<>(dimension);
+
+		for(int i = 0; i < dimension; i++)
+			graph.add(new TreeSet<>());
+
+		return graph;
+	}
+
+	private static List<TreeSet<Integer>> constraintGraph(int dimension, List<LinearConstraint> constraints){
+
+		List<TreeSet<Integer>> graph = emptyGraph(dimension);
+
+		for(LinearConstraint c: constraints)
+			for(int i = 0; i < c.ids.length; i++)
+				for(int j = i + 1; j < c.ids.length; j++) {
+					graph.get(c.ids[i] - 1).add(c.ids[j] - 1);
+					graph.get(c.ids[j] - 1).add(c.ids[i] - 1);
+				}
+
+		return graph;
+	}
+
+	private static List<TreeSet<Integer>> pointGraph(int dimension, List<int[]> points){
+
+		List<TreeSet<Integer>> graph = emptyGraph(dimension);
+		int[] support = new int[dimension];
+
+		for(int[] point: points) {
+			int size = 0;
+
+			for(int i = 0; i < dimension; i++)
+				if(point[i] != 0)
+					support[size++] = i;
+
+			for(int i = 0; i < size; i++)
+				for(int j = i + 1; j < size; j++) {
+					graph.get(support[i]).add(support[j]);
+					graph.get(support[j]).add(support[i]);
+				}
+		}
+
+		return graph;
+	}
+
+	/**
+	 * Reverse Cuthill-McKee ordering: breadth-first search started from a vertex of minimal degree in each connected component,
+	 * in which the neighbors are visited by increasing degree; the order obtained is then reversed
+	 * @param graph Neighbors of each vertex (vertices are numbered from 0)
+	 * @return The original ids in their new order
+	 */
+	private static int[] reverseCuthillMcKee(List<TreeSet<Integer>> graph) {
+
+		int dimension = graph.size();
+		Comparator<Integer> byDegree = Comparator.comparingInt((Integer v) -> graph.get(v).size()).thenComparingInt(v -> v);
+
+		Integer[] vertices = new Integer[dimension];
+
+		for(int i = 0; i < dimension; i++)
+			vertices[i] = i;
+
+		Arrays.sort(vertices, byDegree);
+
+		boolean[] isVisited = new boolean[dimension];
+		int[] order = new int[dimension];
+		int position = dimension - 1;
+
+		for(int start: vertices)
+			if(!isVisited[start]) {
+				ArrayDeque<Integer> queue = new ArrayDeque<>();
+				queue.add(start);
+				isVisited[start] = true;
+
+				while(!queue.isEmpty()) {
+					int v = queue.poll();
+					order[position--] = v + 1;
+
+					List<Integer> neighbors = new ArrayList<>();
+
+					for(int u: graph.get(v))
+						if(!isVisited[u]) {
+							isVisited[u] = true;
+							neighbors.add(u);
+						}
+
+					neighbors.sort(byDegree);
+					queue.addAll(neighbors);
+				}
+			}
+
+		return order;
+	}
+}
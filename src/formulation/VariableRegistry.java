@@ -0,0 +1,430 @@
+package formulation;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Variables of a polytope indexed by their id in porta (from 1 to size()).
+ *
+ * The variables are stored in a dense array and their bounds in primitive arrays (position id - 1). The ids are indexed by the
+ * original names of the variables in an open addressing hash table (linear probing) which only contains ints, which avoids the
+ * boxed entries of a HashMap<String, Integer> for models with many variables.
+ *
+ * The variables of a VariableFamily are registered without a Variable object: it is created (with its original name) the first time
+ * it is needed, e.g., by get() or by a lookup by name which indexes all the names not yet indexed, or by createFamilyVariables().
+ *
+ * The registry is not thread-safe: since get(), getId() and contains() may create variables, they can only be called concurrently once
+ * createFamilyVariables() has been called after the last registration (AbstractPolytope.initializeVariables() does it).
+ *
+ * The bounds must be modified through the registry (e.g., setLowerBound()) so that the fields of the Variable objects remain consistent.
+ * @author zach
+ *
+ */
+public class VariableRegistry {
+
+	/** Number of registered variables */
+	int size;
+
+	/** Variable of id i in position i - 1; null if it belongs to a family and has not been created yet */
+	Variable[] variables;
+
+	/** Family and cell of the variable of id i in position i - 1 (null as long as no family is used) */
+	VariableFamily[] families;
+	int[] cells;
+
+	/** Ids of the variables of a family whose names are not in the table yet */
+	int[] unindexedIds = new int[0];
+	int unindexedNb;
+
+	/** Bounds of the variable of id i in position i - 1 */
+	int[] lowerBoundNumerators, lowerBoundDenominators, upperBoundNumerators, upperBoundDenominators;
+
+	/** Id of the variable stored in each slot of the table; 0 if the slot is empty */
+	int[] table;
+
+	public VariableRegistry() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize Expected number of variables
+	 */
+	public VariableRegistry(int expectedSize) {
+		variables = new Variable[Math.max(1, expectedSize)];
+		lowerBoundNumerators = new int[variables.length];
+		lowerBoundDenominators = new int[variables.length];
+		upperBoundNumerators = new int[variables.length];
+		upperBoundDenominators = new int[variables.length];
+		table = new int[tableCapacity(variables.length)];
+	}
+
+	/**
+	 * Get the number of registered variables
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get a variable
+	 * @param id Id of the variable in porta (from 1 to size())
+	 * @return The variable; null if no variable has this id
+	 */
+	public Variable get(int id) {
+
+		if(id < 1 || id > size)
+			return null;
+
+		Variable var = variables[id - 1];
+
+		return var != null ? var : createVariable(id);
+	}
+
+	/**
+	 * Get the id of a variable
+	 * @param originalName Original name of the variable
+	 * @return The id of the variable in porta; -1 if the variable is not registered
+	 */
+	public int getId(String originalName) {
+
+		if(unindexedNb > 0)
+			indexFamilyNames();
+
+		int id = table[slot(originalName)];
+		return id == 0 ? -1 : id;
+	}
+
+	/**
+	 * Test if a variable is registered
+	 * @param originalName Original name of the variable
+	 * @return
+	 */
+	public boolean contains(String originalName) {
+
+		if(unindexedNb > 0)
+			indexFamilyNames();
+
+		return table[slot(originalName)] != 0;
+	}
+
+	/**
+	 * Register a variable (if a variable with the same name is already registered, its name now refers to the new variable)
+	 * @param var
+	 * @return The id of the variable in porta
+	 */
+	public int register(Variable var) {
+
+		ensureCapacity(size + 1);
+
+		variables[size] = var;
+		lowerBoundNumerators[size] = var.lowerBoundNumerator;
+		lowerBoundDenominators[size] = var.lowerBoundDenominator;
+		upperBoundNumerators[size] = var.upperBoundNumerator;
+		upperBoundDenominators[size] = var.upperBoundDenominator;
+		size++;
+
+		table[slot(var.originalName)] = size;
+
+		return size;
+	}
+
+	/**
+	 * Register a variable of a family (its original name is only created when it is needed)
+	 * @param family
+	 * @param cell Cell of the variable in the family (see VariableFamily.cell())
+	 * @param lowerBound
+	 * @param upperBound
+	 * @return The id of the variable in porta
+	 */
+	public int register(VariableFamily family, int cell, int lowerBound, int upperBound) {
+
+		ensureCapacity(size + 1);
+
+		if(families == null) {
+			families = new VariableFamily[variables.length];
+			cells = new int[variables.length];
+		}
+
+		families[size] = family;
+		cells[size] = cell;
+		lowerBoundNumerators[size] = lowerBound;
+		lowerBoundDenominators[size] = 1;
+		upperBoundNumerators[size] = upperBound;
+		upperBoundDenominators[size] = 1;
+		size++;
+
+		family.ids[cell] = size;
+
+		if(unindexedNb == unindexedIds.length)
+			unindexedIds = Arrays.copyOf(unindexedIds, Math.max(16, 2 * unindexedNb));
+
+		unindexedIds[unindexedNb++] = size;
+
+		return size;
+	}
+
+	/**
+	 * Register all the cells of a family (in the order of the cells)
+	 * @param family
+	 * @param lowerBound
+	 * @param upperBound
+	 * @return The id of the first variable (the variable of cell c has id firstId + c); -1 if the family is empty
+	 */
+	public int registerAll(VariableFamily family, int lowerBound, int upperBound) {
+
+		if(family.cellsNb() == 0)
+			return -1;
+
+		ensureCapacity(size + family.cellsNb());
+
+		int firstId = size + 1;
+
+		for(int cell = 0; cell < family.cellsNb(); cell++)
+			register(family, cell, lowerBound, upperBound);
+
+		return firstId;
+	}
+
+	/**
+	 * Register several variables (the arrays and the table are only resized once)
+	 * @param vars The variables in the order of their ids
+	 * @return The id of the first variable; -1 if no variable is registered
+	 */
+	public int registerAll(Collection<? extends Variable> vars) {
+
+		if(vars.isEmpty())
+			return -1;
+
+		ensureCapacity(size + vars.size());
+
+		int firstId = size + 1;
+
+		for(Variable var: vars)
+			register(var);
+
+		return firstId;
+	}
+
+	/**
+	 * Register variables whose names are <prefix><i> for i in [0, count[ (e.g., x0, x1, ...)
+	 * @param prefix Beginning of the names
+	 * @param count Number of variables
+	 * @param lowerBound
+	 * @param upperBound
+	 * @return The id of the first variable (the variable <prefix><i> has id firstId + i); -1 if count is 0
+	 */
+	public int registerAll(String prefix, int count, int lowerBound, int upperBound) {
+
+		if(count <= 0)
+			return -1;
+
+		ensureCapacity(size + count);
+
+		int firstId = size + 1;
+
+		for(int i = 0; i < count; i++)
+			register(new Variable(prefix + i, lowerBound, upperBound));
+
+		return firstId;
+	}
+
+	/**
+	 * Resize the arrays and the table so that they can contain a given number of variables
+	 * @param capacity
+	 */
+	public void ensureCapacity(int capacity) {
+
+		if(capacity > variables.length) {
+			int length = Math.max(capacity, variables.length * 2);
+			variables = Arrays.copyOf(variables, length);
+			lowerBoundNumerators = Arrays.copyOf(lowerBoundNumerators, length);
+			lowerBoundDenominators = Arrays.copyOf(lowerBoundDenominators, length);
+			upperBoundNumerators = Arrays.copyOf(upperBoundNumerators, length);
+			upperBoundDenominators = Arrays.copyOf(upperBoundDenominators, length);
+
+			if(families != null) {
+				families = Arrays.copyOf(families, length);
+				cells = Arrays.copyOf(cells, length);
+			}
+		}
+
+		if(tableCapacity(capacity) > table.length)
+			rehash(tableCapacity(capacity));
+	}
+
+	/**
+	 * Set the lower bound of a variable
+	 * @param id Id of the variable in porta
+	 * @param numerator
+	 * @param denominator
+	 */
+	public void setLowerBound(int id, int numerator, int denominator) {
+		lowerBoundNumerators[id - 1] = numerator;
+		lowerBoundDenominators[id - 1] = denominator;
+
+		if(variables[id - 1] != null) {
+			variables[id - 1].lowerBoundNumerator = numerator;
+			variables[id - 1].lowerBoundDenominator = denominator;
+		}
+	}
+
+	/**
+	 * Set the upper bound of a variable
+	 * @param id Id of the variable in porta
+	 * @param numerator
+	 * @param denominator
+	 */
+	public void setUpperBound(int id, int numerator, int denominator) {
+		upperBoundNumerators[id - 1] = numerator;
+		upperBoundDenominators[id - 1] = denominator;
+
+		if(variables[id - 1] != null) {
+			variables[id - 1].upperBoundNumerator = numerator;
+			variables[id - 1].upperBoundDenominator = denominator;
+		}
+	}
+
+	public int getLowerBoundNumerator(int id) {
+		return lowerBoundNumerators[id - 1];
+	}
+
+	public int getLowerBoundDenominator(int id) {
+		return lowerBoundDenominators[id - 1];
+	}
+
+	public int getUpperBoundNumerator(int id) {
+		return upperBoundNumerators[id - 1];
+	}
+
+	public int getUpperBoundDenominator(int id) {
+		return upperBoundDenominators[id - 1];
+	}
+
+	/**
+	 * Test if the bounds of all the variables are integer (i.e., their denominators are equal to 1)
+	 * @return
+	 */
+	public boolean hasIntegerBounds() {
+
+		for(int i = 0; i < size; i++)
+			if(lowerBoundDenominators[i] != 1 || upperBoundDenominators[i] != 1)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Get the numerators of the lower bounds
+	 * @return The lower bound numerator of the variable of id i in position i - 1
+	 */
+	public int[] getLowerBounds() {
+		return Arrays.copyOf(lowerBoundNumerators, size);
+	}
+
+	/**
+	 * Get the numerators of the upper bounds
+	 * @return The upper bound numerator of the variable of id i in position i - 1
+	 */
+	public int[] getUpperBounds() {
+		return Arrays.copyOf(upperBoundNumerators, size);
+	}
+
+	/**
+	 * Create the Variable objects of all the variables of the families and index their names, so that get(), getId() and contains() do
+	 * not modify the registry until the next registration
+	 */
+	public void createFamilyVariables() {
+
+		if(unindexedNb > 0)
+			indexFamilyNames();
+	}
+
+	/**
+	 * Create the Variable object of a variable of a family
+	 * @param id
+	 * @return
+	 */
+	private Variable createVariable(int id) {
+
+		if(variables[id - 1] == null) {
+			Variable var = new Variable(families[id - 1].nameOfCell(cells[id - 1]), 0, 0);
+			var.lowerBoundNumerator = lowerBoundNumerators[id - 1];
+			var.lowerBoundDenominator = lowerBoundDenominators[id - 1];
+			var.upperBoundNumerator = upperBoundNumerators[id - 1];
+			var.upperBoundDenominator = upperBoundDenominators[id - 1];
+			variables[id - 1] = var;
+		}
+
+		return variables[id - 1];
+	}
+
+	/**
+	 * Add the names of the variables of the families in the table (if several variables have the same name, it refers to the last one)
+	 */
+	private void indexFamilyNames() {
+
+		for(int i = 0; i < unindexedNb; i++) {
+			int id = unindexedIds[i];
+			int slot = slot(get(id).originalName);
+
+			if(table[slot] < id)
+				table[slot] = id;
+		}
+
+		unindexedNb = 0;
+	}
+
+	/**
+	 * Get the slot of a name in the table
+	 * @param originalName
+	 * @return The slot which contains the id of the variable or, if it is not registered, the empty slot in which it would be added
+	 */
+	private int slot(String originalName) {
+
+		int mask = table.length - 1;
+		int slot = hash(originalName) & mask;
+
+		while(table[slot] != 0 && !variables[table[slot] - 1].originalName.equals(originalName))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+
+		int[] oldTable = table;
+		table = new int[capacity];
+		int mask = capacity - 1;
+
+		for(int id: oldTable)
+			if(id != 0) {
+				int slot = hash(variables[id - 1].originalName) & mask;
+
+				while(table[slot] != 0)
+					slot = (slot + 1) & mask;
+
+				table[slot] = id;
+			}
+	}
+
+	/**
+	 * Get the capacity of the table for a number of variables (a power of 2 at least twice larger)
+	 * @param variablesNb
+	 * @return
+	 */
+	private static int tableCapacity(int variablesNb) {
+
+		int capacity = 16;
+
+		while(capacity < 2 * variablesNb)
+			capacity *= 2;
+
+		return capacity;
+	}
+
+	private static int hash(String s) {
+		int h = s.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
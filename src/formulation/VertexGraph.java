@@ -0,0 +1,154 @@
+package formulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Graph of the vertices of a polytope (1-skeleton) computed from the incidences between its integer points and its facets.
+ *
+ * An integer point is a vertex if the only point which satisfies with equality all its tight facets is itself. Since the integer points
+ * may contain several copies of a vertex, a point is kept as a vertex if all the points of this closure have the same tight facets
+ * (i.e., are copies of the point) and if it is the first of these copies.
+ * Two vertices u and v are adjacent if the only vertices which satisfy with equality all the facets tight for both u and v are u and v
+ * (i.e., the smallest face which contains u and v is an edge). A pair of vertices is skipped without computing this intersection if
+ * they have less than dim(P) - 1 common tight facets. The pairs are tested in parallel.
+ * @author zach
+ *
+ */
+public class VertexGraph {
+
+	/** Indices of the points which are vertices (in increasing order) */
+	int[] vertices;
+
+	/** Edges of the graph (each edge contains the indices of its two points, the first one being the lowest) */
+	List<int[]> edges;
+
+	/**
+	 * @param incidence Incidences between the integer points and the facets of the polytope
+	 * @param polytopeDimension Dimension of the polytope
+	 */
+	public VertexGraph(IncidenceMatrix incidence, int polytopeDimension) {
+
+		vertices = computeVertices(incidence);
+
+		long[] vertexMask = new long[IncidenceMatrix.wordsNb(incidence.getPointsNb())];
+
+		for(int v: vertices)
+			vertexMask[v >>> 6] |= 1L << v;
+
+		int facetWordsNb = IncidenceMatrix.wordsNb(incidence.getFacetsNb());
+
+		edges = IntStream.range(0, vertices.length).parallel().mapToObj(i -> {
+
+			List<int[]> vertexEdges = new ArrayList<>();
+			long[] uFacets = incidence.getFacetsBitset(vertices[i]);
+			long[] commonFacets = new long[facetWordsNb];
+
+			for(int j = i + 1; j < vertices.length; j++) {
+				long[] vFacets = incidence.getFacetsBitset(vertices[j]);
+
+				for(int w = 0; w < facetWordsNb; w++)
+					commonFacets[w] = uFacets[w] & vFacets[w];
+
+				if(IncidenceMatrix.cardinality(commonFacets) >= polytopeDimension - 1
+						&& IncidenceMatrix.cardinality(closure(incidence, commonFacets, vertexMask)) == 2)
+					vertexEdges.add(new int[] {vertices[i], vertices[j]});
+			}
+
+			return vertexEdges;
+
+		}).flatMap(List::stream).collect(Collectors.toList());
+	}
+
+	/**
+	 * Find the points which are vertices (a single index is returned for the copies of a vertex).
+	 * A point which is not a vertex lies in the relative interior of a face of dimension at least 1 whose vertices have strictly more
+	 * tight facets than the point, so the points of its closure cannot all have its tight facets.
+	 * @param incidence
+	 * @return The indices of the vertices (in increasing order)
+	 */
+	static int[] computeVertices(IncidenceMatrix incidence) {
+
+		int pointsNb = incidence.getPointsNb();
+		long[] allPoints = new long[IncidenceMatrix.wordsNb(pointsNb)];
+
+		for(int p = 0; p < pointsNb; p++)
+			allPoints[p >>> 6] |= 1L << p;
+
+		return IntStream.range(0, pointsNb).parallel()
+				.filter(p -> isFirstCopyOfVertex(incidence, p, allPoints))
+				.toArray();
+	}
+
+	/**
+	 * Test if a point is a vertex and if no point of lower index is a copy of it
+	 * @param incidence
+	 * @param point Index of the point
+	 * @param allPoints Bitset of all the points
+	 * @return
+	 */
+	private static boolean isFirstCopyOfVertex(IncidenceMatrix incidence, int point, long[] allPoints) {
+
+		long[] facets = incidence.getFacetsBitset(point);
+
+		for(int p: IncidenceMatrix.toIndices(closure(incidence, facets, allPoints)))
+			if(p < point || (p != point && !Arrays.equals(facets, incidence.getFacetsBitset(p))))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Get the points of a set which satisfy with equality a set of facets
+	 * @param incidence
+	 * @param facets Bitset of the facets
+	 * @param points Bitset of the points
+	 * @return A new bitset
+	 */
+	static long[] closure(IncidenceMatrix incidence, long[] facets, long[] points) {
+
+		long[] result = points.clone();
+
+		for(int f: IncidenceMatrix.toIndices(facets)) {
+			long[] tightPoints = incidence.getPointsBitset(f);
+
+			for(int w = 0; w < result.length; w++)
+				result[w] &= tightPoints[w];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the vertices
+	 * @return The indices of the points which are vertices (in increasing order)
+	 */
+	public int[] getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Get the edges
+	 * @return The pairs of indices of adjacent points
+	 */
+	public List<int[]> getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Get the vertices adjacent to a vertex
+	 * @param point Index of the point
+	 * @return The indices of the adjacent points (in increasing order)
+	 */
+	public int[] getNeighbors(int point) {
+		return edges.stream().filter(e -> e[0] == point || e[1] == point).mapToInt(e -> e[0] == point ? e[1] : e[0]).sorted().toArray();
+	}
+
+	@Override
+	public String toString() {
+		return "vertices: " + vertices.length + ", edges: " + edges.size();
+	}
+}
@@ -10,7 +10,7 @@ import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import formulation.AbstractFormulation;
 import formulation.LPReader;
-import formulation.Variable;
+import formulation.VariableFamily;
 
 /**
  * Definition of the polytope associated to a knapsack problem thanks to its integer linear problem formulation.
@@ -32,6 +32,9 @@ public class KnapsackFormulation extends AbstractFormulation{
 	/** Maximal weight of the knapsack */
 	int K;
 
+	/** Variable xi is equal to 1 if item i is in the knapsack (i in [1, n]) */
+	VariableFamily x;
+
 	/**
 	 * Create a Knapsack object (direct attributes affectation)
 	 * @param n
@@ -53,9 +56,9 @@ public class KnapsackFormulation extends AbstractFormulation{
 	@Override
 	protected void createVariables() {
 		
-		/* Register the knapsack formulation variables */
-		for(int i = 1; i <= n; ++i)
-			this.registerVariable(new Variable("x" + i, 0, 1));
+		/* Register the knapsack formulation variables x1, ..., xn */
+		x = new VariableFamily("x", 1, new int[] {n});
+		this.registerFamily(x, 0, 1);
 	}
 
 	@Override
@@ -67,16 +70,17 @@ public class KnapsackFormulation extends AbstractFormulation{
 		 * - the weight of item i is stored in position i-1 of array w[];
 		 * - do not use '*' to multiply a variable and its coefficient;
 		 * - the constraints must be separated by '\n' (here there is only one constraint) */
-		String constraint = w[1 - 1] + " " + portaName("x" + 1);
+		StringBuilder constraint = new StringBuilder();
+		constraint.append(w[1 - 1]).append(' ').append(x.portaName(1));
 		
 		/* For each item */
 		for(int i = 2; i <= n; ++i)
-			constraint += " + " + w[i - 1] + " " + portaName("x" + i);
+			constraint.append(" + ").append(w[i - 1]).append(' ').append(x.portaName(i));
 		
 		/* Add the right-hand side */
-		constraint += " <= " + K;
+		constraint.append(" <= ").append(K);
 			
-		return constraint;
+		return constraint.toString();
 	}
 	
 	/* Possible uses of this software */
@@ -95,7 +99,10 @@ public class KnapsackFormulation extends AbstractFormulation{
 		CONTINUOUS_EXTREME_POINTS,
 		
 		/* Get the extrem points of the polytope of the linear relaxation */
-		INTEGER_EXTREME_POINTS
+		INTEGER_EXTREME_POINTS,
+
+		/* Compare the running time of traf with each variable ordering heuristic */
+		VARIABLE_ORDERING_BENCHMARK
 	}
 
 	public static void main(String[] args) {
@@ -119,6 +126,7 @@ public class KnapsackFormulation extends AbstractFormulation{
 			case INTEGER_POINTS: System.out.println(formulationAttributes.getIntegerPoints()); break;
 			case CONTINUOUS_EXTREME_POINTS: System.out.println(formulationInputFile.getExtremePoints());break; 
 			case INTEGER_EXTREME_POINTS: System.out.println(formulationInputFile.getIPExtremePoints());break;
+			case VARIABLE_ORDERING_BENCHMARK: System.out.println(formulationInputFile.benchmarkVariableOrderings());break;
 			}
 			
 		} catch (Exception e) {
@@ -8,7 +8,7 @@ import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import formulation.AbstractIntegerPoints;
 import formulation.IntegerPoint;
-import formulation.Variable;
+import formulation.VariableFamily;
 
 /**
  * Definition of the polytope associated to a knapsack problem thanks to its feasible solutions (i.e., integer points)
@@ -32,6 +32,9 @@ public class KnapsackIntegerPoints extends AbstractIntegerPoints{
 	/** Maximal weight of the knapsack */
 	int K;
 
+	/** Variable xi is equal to 1 if item i is in the knapsack (i in [1, n]) */
+	VariableFamily x;
+
 	/**
 	 * Create a Knapsack object
 	 * @param n
@@ -53,9 +56,9 @@ public class KnapsackIntegerPoints extends AbstractIntegerPoints{
 	@Override
 	protected void createVariables() {
 
-		/* Register the knapsack formulation variables */
-		for(int i = 1; i <= n; ++i)
-			this.registerVariable(new Variable("x" + i, 0, 1));
+		/* Register the knapsack formulation variables x1, ..., xn */
+		x = new VariableFamily("x", 1, new int[] {n});
+		this.registerFamily(x, 0, 1);
 	}
 
 	@Override
@@ -98,7 +101,7 @@ public class KnapsackIntegerPoints extends AbstractIntegerPoints{
 				IntegerPoint point = new IntegerPoint(this);
 
 				for(Integer objectId: objectsInTheKnapsack)
-					point.setVariable("x" + objectId, 1);
+					point.setVariable(x.id(objectId), 1);
 
 				addIntegerPoint(point);
 
@@ -10,8 +10,10 @@ import java.io.InputStreamReader;
 
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
-import formulation.AbstractFormulation;
-import formulation.Variable;
+import formulation.AbstractBuilderFormulation;
+import formulation.ConstraintBuilder;
+import formulation.LinearConstraint.Sense;
+import formulation.VariableFamily;
 import utils.Dates;
 
 /**
@@ -19,13 +21,16 @@ import utils.Dates;
  * @author zach
  *
  */
-public class MediationCluster extends AbstractFormulation{
+public class MediationCluster extends AbstractBuilderFormulation{
 
 	int n = -1;
 	double[][] d;
 	String inputFile;
 	double alpha, beta;
 
+	/** Variables mi, x{i,j}, t{i,j} and z{i,j} (only the cells i < j of x, t and z are registered, t and z only if d[i][j] != 0) */
+	VariableFamily m, x, t, z;
+
 	public MediationCluster(String inputFile, double alpha, double beta) throws UnknownCommandException, IOException, InterruptedException {
 
 		super();
@@ -94,16 +99,22 @@ public class MediationCluster extends AbstractFormulation{
 
 	@Override
 	protected void createVariables() {
+
+		m = new VariableFamily("m", n);
+		x = new VariableFamily("x", n, n);
+		t = new VariableFamily("t", n, n);
+		z = new VariableFamily("z", n, n);
+
 		for(int i = 0; i < n; i++) {
 
-			registerVariable(new Variable("m" + i, 0, 1));
+			registerVariable(m, 0, 1, i);
 
 			for(int j = i+1; j < n; j++) {
-				registerVariable(new Variable(xName(i,j), 0, 1));
+				registerVariable(x, 0, 1, i, j);
 
 				if(d[i][j] != 0) {
-					registerVariable(new Variable(tName(i,j), 0, 1));
-					registerVariable(new Variable(zName(i,j), 0, 1));
+					registerVariable(t, 0, 1, i, j);
+					registerVariable(z, 0, 1, i, j);
 				}
 				else {
 					System.out.println(i + ", " + j);
@@ -113,26 +124,21 @@ public class MediationCluster extends AbstractFormulation{
 	}
 
 	@Override
-	public String getConstraints() throws UnknownVariableName {
-
-		String output = "";
+	public void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
 		/* Triangle inequalities */
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; j++)
 				for(int k = 0; k < n; k++)
-					if(k != i && k != j) {
-						output += x(i,k) + " + ";
-						output += x(j,k) + " >= ";
-						output += x(i,j) + "\n";
-					}
+					if(k != i && k != j)
+						builder.add(xId(i,k)).add(xId(j,k)).add(-1, xId(i,j)).emit(Sense.GE, 0);
 
 		/* x_ij >= mi */
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; ++j)
 				if(i != j) {
-					output += x(i,j) + " >= " + m(i) + "\n";
-					output += x(i,j) + " >= " + m(j) + "\n";
+					builder.add(xId(i,j)).add(-1, m.id(i)).emit(Sense.GE, 0);
+					builder.add(xId(i,j)).add(-1, m.id(j)).emit(Sense.GE, 0);
 				}
 
 		/* tij >= mi + mj - 1
@@ -141,44 +147,42 @@ public class MediationCluster extends AbstractFormulation{
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; ++j)
 				if(i != j && d[i][j] != 0) {
-					output += t(i, j) + " >= " + m(i) + " + " + m(j) + " - 1\n";
-					output += t(i,j) + " <= " + m(i) + "\n";
-					output += t(i,j) + " <= " + m(j) + "\n";
+					builder.add(tId(i,j)).add(-1, m.id(i)).add(-1, m.id(j)).emit(Sense.GE, -1);
+					builder.add(tId(i,j)).add(-1, m.id(i)).emit(Sense.LE, 0);
+					builder.add(tId(i,j)).add(-1, m.id(j)).emit(Sense.LE, 0);
 				}
 
 		/* sum_{i mediator} w-(i,mediators) <= alpha w+(i, mediators)) */
-		String wm ="";
-		String wp = "";
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; ++j)
 				if(i != j) {
 
 					if(d[i][j] > 0) 
-						wp += "+ " + (int)(100*alpha*Math.abs(Math.pow(10, 4) * d[i][j])) + " " + t(i, j) + " ";
+						builder.add(-(int)(100*alpha*Math.abs(Math.pow(10, 4) * d[i][j])), tId(i, j));
 					else if(d[i][j] < 0)
-						wm += " + " + (int)(100*Math.abs(Math.pow(10, 4) * d[i][j])) + " " + t(i, j) + " ";
+						builder.add((int)(100*Math.abs(Math.pow(10, 4) * d[i][j])), tId(i, j));
 
 				}
 
-		output += wm + " <= " + wp + "\n";
+		builder.emit(Sense.LE, 0);
 
 		/* sum_{i mediator} w-(i,!mediators) <= beta w+(i, !mediators)) */
-		wm ="";
-		wp = "";
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; ++j)
 				if(i != j) {
 
 					if(d[i][j] > 0) {
 						int coef = (int)(beta*Math.abs(Math.pow(10, 4) * d[i][j]));
-						wp += "+" + coef + " " + z(i, j) + " - " + coef + " " + t(i, j) + " ";
+						builder.add(-coef, zId(i, j)).add(coef, tId(i, j));
+					}
+					else if(d[i][j] < 0) {
+						int coef = (int)Math.abs(Math.pow(10, 4) * d[i][j]);
+						builder.add(coef, zId(i, j)).add(-coef, tId(i, j));
 					}
-					else if(d[i][j] < 0)
-						wm += "+" + (int)(Math.abs(Math.pow(10, 4) * d[i][j])) + " " + z(i, j) + " - " + (int)Math.abs(Math.pow(10, 4) * d[i][j]) + " " + t(i, j) + " ";
 
 				}
 
-		output += wm + " <= " + wp + "\n";
+		builder.emit(Sense.LE, 0);
 
 		/* zij >= mi
 		 * zij >= mj
@@ -187,28 +191,38 @@ public class MediationCluster extends AbstractFormulation{
 		for(int i = 0; i < n; i++)
 			for(int j = i+1; j < n; ++j)
 				if(i != j && d[i][j] != 0) {
-					output += z(i, j) + " >= " + m(i) + "\n";
-					output += z(i, j) + " >= " + m(j) + "\n";
-					output += z(i, j) + " <= " + m(i) + " + " + m(j) + "\n";
+					builder.add(zId(i, j)).add(-1, m.id(i)).emit(Sense.GE, 0);
+					builder.add(zId(i, j)).add(-1, m.id(j)).emit(Sense.GE, 0);
+					builder.add(zId(i, j)).add(-1, m.id(i)).add(-1, m.id(j)).emit(Sense.LE, 0);
 				}
+	}
+
+	private int xId(int i, int j) {
+		return x.id(Math.min(i, j), Math.max(i, j));
+	}
+
+	private int zId(int i, int j) {
+		return z.id(Math.min(i, j), Math.max(i, j));
+	}
 
-		return output;
+	private int tId(int i, int j) {
+		return t.id(Math.min(i, j), Math.max(i, j));
 	}
 
 	public String m(int i) throws UnknownVariableName {
-		return portaName("m" + i);
+		return m.portaName(i);
 	}
 
 	public String x(int i, int j) throws UnknownVariableName {
-		return portaName(xName(i, j));
+		return x.portaName(Math.min(i, j), Math.max(i, j));
 	}
 
 	public String z(int i, int j) throws UnknownVariableName {
-		return portaName(zName(i, j));
+		return z.portaName(Math.min(i, j), Math.max(i, j));
 	}
 
 	public String t(int i, int j) throws UnknownVariableName {
-		return portaName(tName(i, j));
+		return t.portaName(Math.min(i, j), Math.max(i, j));
 	}
 
 	public String xName(int i, int j) {
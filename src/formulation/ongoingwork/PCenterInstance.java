@@ -0,0 +1,288 @@
+package formulation.ongoingwork;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+import exception.InvalidPCenterInputFile;
+
+/**
+ * Instance of a p-center problem shared by the p-center formulations.
+ *
+ * The input file format is:
+ * - The first line contains 3 integers separated by spaces, they respectively correspond to:
+ * 		- The number of clients N
+ * 		- The number of sites M
+ * 		- The value of p
+ * - The N next lines contain M values such that the value on line i and column j is the distance between the client number i and the site number j.
+ * These values must be separated by spaces
+ *
+ * The distinct distances are sorted in a primitive array D (D[0] < D[1] < ... < D[K]). For each client, its sites are sorted by
+ * increasing distance so that the sites which cover the client at level k (i.e., whose distance to the client is lower than D[k])
+ * are the coveredNb(i, k) first sites of this order. The rows of a formulation which link a client to its covering sites can thus
+ * be generated without scanning all the sites for each level.
+ * @author zach
+ *
+ */
+public class PCenterInstance {
+
+	String inputFile;
+
+	/** Number of clients */
+	int N;
+
+	/** Number of potential sites */
+	int M;
+
+	/** Maximal number of selected sites */
+	int p;
+
+	/** Distance between the clients (lines) and the sites (columns) */
+	double[][] d;
+
+	/** Sorted distinct values of <d> */
+	double[] D;
+
+	/** Sites of each client sorted by increasing distance */
+	int[][] sitesByDistance;
+
+	/** Number of sites of client i whose distance is lower than D[k] in position [i][k] */
+	int[][] coveredNb;
+
+	/**
+	 * Read an instance file
+	 * @param inputFile
+	 * @throws IOException
+	 * @throws InvalidPCenterInputFile
+	 */
+	public PCenterInstance(String inputFile) throws IOException, InvalidPCenterInputFile {
+
+		this.inputFile = inputFile;
+
+		try(BufferedReader br = new BufferedReader(new FileReader(inputFile))) {
+
+			/* Read the first line */
+			String line = br.readLine();
+			double[] header = line == null ? new double[0] : parseLine(line, 3);
+
+			if(header.length < 3)
+				throw new InvalidPCenterInputFile(inputFile, "The first line contains less than three values.");
+
+			N = (int)header[0];
+			M = (int)header[1];
+			p = (int)header[2];
+
+			d = new double[N][];
+			int clientNb = 0;
+
+			/* Read the next N lines (the empty lines are ignored) */
+			while(clientNb < N && (line = br.readLine()) != null) {
+
+				if(line.isBlank())
+					continue;
+
+				double[] distances = parseLine(line, M);
+
+				if(distances.length < M)
+					throw new InvalidPCenterInputFile(inputFile, "Line n°" + (clientNb + 1) + " contains less than " + M + " values separated by spaces.");
+
+				d[clientNb] = distances;
+				clientNb++;
+			}
+
+			if(clientNb < N)
+				throw new InvalidPCenterInputFile(inputFile, "The file only contains " + clientNb + " distances lines instead of " + N);
+
+		} catch(NumberFormatException e) {
+			throw new InvalidPCenterInputFile(inputFile, "Invalid number (" + e.getMessage() + ").");
+		}
+
+		computeLevels();
+	}
+
+	/**
+	 * Number of different values in the matrix -1
+	 * (i.e., there are K+1 values in the distance matrix)
+	 */
+	public int K() {
+		return D.length - 1;
+	}
+
+	/**
+	 * Get a distinct distance
+	 * @param k Level of the distance (in [0, K()])
+	 * @return D[k]
+	 */
+	public double getDistance(int k) {
+		return D[k];
+	}
+
+	/**
+	 * Get the number of sites which cover a client at a level
+	 * @param client Client (from 0 to N-1)
+	 * @param k Level (in [0, K()])
+	 * @return The number of sites whose distance to the client is lower than D[k]
+	 */
+	public int coveredNb(int client, int k) {
+		return coveredNb[client][k];
+	}
+
+	/**
+	 * Get the sites of a client sorted by increasing distance
+	 * (the sites which cover the client at level k are the coveredNb(client, k) first ones)
+	 * @param client Client (from 0 to N-1)
+	 * @return The sites (from 0 to M-1); the array must not be modified
+	 */
+	public int[] sitesByDistance(int client) {
+		return sitesByDistance[client];
+	}
+
+	/**
+	 * Get the sites which cover a client at a level
+	 * @param client Client (from 0 to N-1)
+	 * @param k Level (in [0, K()])
+	 * @return The sites (from 0 to M-1) whose distance to the client is lower than D[k], sorted by increasing distance
+	 */
+	public int[] coveringSites(int client, int k) {
+		return Arrays.copyOf(sitesByDistance[client], coveredNb[client][k]);
+	}
+
+	/**
+	 * Get the sites which cover a client at a level as a bitset
+	 * @param client Client (from 0 to N-1)
+	 * @param k Level (in [0, K()])
+	 * @return Bit j of word j / 64 is set if the distance between the client and site j is lower than D[k]
+	 */
+	public long[] coverage(int client, int k) {
+
+		long[] words = new long[(M + 63) / 64];
+
+		for(int r = 0; r < coveredNb[client][k]; r++) {
+			int site = sitesByDistance[client][r];
+			words[site >> 6] |= 1L << site;
+		}
+
+		return words;
+	}
+
+	/**
+	 * Sort the distinct distances and, for each client, sort its sites and count its covering sites at each level.
+	 * The level of each distance is found by binary search and the sites are sorted by level with a counting sort.
+	 */
+	private void computeLevels() {
+
+		double[] all = new double[N * M];
+
+		for(int i = 0; i < N; i++)
+			System.arraycopy(d[i], 0, all, i * M, M);
+
+		Arrays.sort(all);
+
+		int distinctNb = 0;
+
+		for(int v = 0; v < all.length; v++)
+			if(v == 0 || all[v] != all[distinctNb - 1])
+				all[distinctNb++] = all[v];
+
+		D = Arrays.copyOf(all, distinctNb);
+
+		sitesByDistance = new int[N][M];
+		coveredNb = new int[N][];
+
+		int[] levels = new int[M];
+
+		for(int i = 0; i < N; i++) {
+
+			/* Number of sites at each level, then number of sites at a lower level */
+			int[] counts = new int[D.length + 1];
+
+			for(int j = 0; j < M; j++) {
+				levels[j] = Arrays.binarySearch(D, d[i][j]);
+				counts[levels[j] + 1]++;
+			}
+
+			for(int k = 1; k <= D.length; k++)
+				counts[k] += counts[k - 1];
+
+			coveredNb[i] = Arrays.copyOf(counts, D.length);
+
+			for(int j = 0; j < M; j++)
+				sitesByDistance[i][counts[levels[j]]++] = j;
+		}
+	}
+
+	/**
+	 * Parse the numbers of a line separated by spaces or tabs
+	 * @param line
+	 * @param expectedNb Expected number of values
+	 * @return The values
+	 */
+	private static double[] parseLine(String line, int expectedNb) {
+
+		double[] values = new double[Math.max(1, expectedNb)];
+		int valuesNb = 0;
+		int length = line.length();
+		int i = 0;
+
+		while(i < length) {
+
+			while(i < length && Character.isWhitespace(line.charAt(i)))
+				i++;
+
+			int start = i;
+
+			while(i < length && !Character.isWhitespace(line.charAt(i)))
+				i++;
+
+			if(i > start) {
+				if(valuesNb == values.length)
+					values = Arrays.copyOf(values, 2 * valuesNb);
+
+				/* + 0.0 turns -0.0 into 0.0 so that both are the same distance */
+				values[valuesNb++] = parseNumber(line, start, i) + 0.0;
+			}
+		}
+
+		return Arrays.copyOf(values, valuesNb);
+	}
+
+	/**
+	 * Parse a number without creating a substring if it is an integer
+	 */
+	private static double parseNumber(String s, int start, int end) {
+
+		boolean isNegative = s.charAt(start) == '-';
+		int i = isNegative || s.charAt(start) == '+' ? start + 1 : start;
+		long value = 0;
+
+		if(i == end || end - i > 18)
+			return Double.parseDouble(s.substring(start, end));
+
+		for(; i < end; i++) {
+			char c = s.charAt(i);
+
+			if(c < '0' || c > '9')
+				return Double.parseDouble(s.substring(start, end));
+
+			value = 10 * value + (c - '0');
+		}
+
+		return isNegative ? -value : value;
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(N).append(' ').append(M).append(' ').append(p).append('\n');
+
+		for(int i = 0 ; i < N ; i++) {
+			for(int j = 0 ; j < M ; j++)
+				sb.append(d[i][j]).append(' ');
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+}
@@ -5,6 +5,8 @@ import java.io.IOException;
 import exception.InvalidPCenterInputFile;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
+import formulation.ConstraintBuilder;
+import formulation.LinearConstraint.Sense;
 import formulation.Variable;
 
 public class PCenterPCOR extends PCenterPCSCZOrdered{
@@ -25,20 +27,15 @@ public class PCenterPCOR extends PCenterPCSCZOrdered{
 
 
 	@Override
-	public String getConstraints() throws UnknownVariableName {
+	public void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
-		super.getConstraints();
-		
-		String output = "";
+		/* kStar = sum_k zk (the constraints of PCenterPCSCZOrdered are not included) */
+		builder.add(-1, variables.getId("kStar"));
 
-		output += " - " + portaName("kStar");
-		
 		for(int k = 1 ; k <= K() ; k++)
-			output += " + " + portaName("z" + k);
-		
-		output += "== 0";
-		
-		return output;
+			builder.add(z.id(k));
+
+		builder.emit(Sense.EQ, 0);
 	}
 
 	public static void main(String[] args){
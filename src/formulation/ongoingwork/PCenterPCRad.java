@@ -1,21 +1,16 @@
 package formulation.ongoingwork;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
 
 import exception.InvalidPCenterInputFile;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
-import formulation.AbstractFormulation;
+import formulation.AbstractBuilderFormulation;
+import formulation.ConstraintBuilder;
+import formulation.LinearConstraint.Sense;
 import formulation.Variable;
+import formulation.VariableFamily;
 import utils.Dates;
 
 /**
@@ -31,35 +26,18 @@ import utils.Dates;
  * @author zach
  *
  */
-public class PCenterPCRad extends AbstractFormulation {
+public class PCenterPCRad extends AbstractBuilderFormulation {
 
 	String inputFile;
 
+	/** Clients, sites and distances of the instance */
+	PCenterInstance instance;
 
-	/** Number of clients */
-	int N;
-
-	/** Number of potential sites */
-	int M;
-
-	/** Distance between the sites (lines) and the factories (columns) */
-	double[][] d;
-
-	/** Ordered value of the existing distances in <d> */
-	TreeSet<Double> D;
-
-	/** Maximal number of selected factories */
-	int p;
+	/** Variables yj (j in [1, M]) */
+	VariableFamily y;
 
 	/**
-	 * Create a p-center formulation from an input file.
-	 * The input file format is:
-	 * - The first line contains 3 integers separated by a space, they respectively correspond to:
-	 * 		- The number of client N
-	 * 		- The number of factories M
-	 * 		- The value of p (I guess...)
-	 * - The N next lines contain M values such that the value on line i and column j is the distance between the client number i and the factory number j.
-	 * These values must be separated by spaces
+	 * Create a p-center formulation from an input file (see PCenterInstance for its format)
 	 * @param inputFile
 	 * @throws IOException 
 	 * @throws InvalidPCenterInputFile 
@@ -71,169 +49,67 @@ public class PCenterPCRad extends AbstractFormulation {
 		super();
 		
 		this.inputFile = inputFile;
-
-		InputStream ips=new FileInputStream(inputFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
-
-		/* Read the first line */
-		String ligne = br.readLine();
-		String[] sTemp = ligne.split("\\s+");
-
-		if(sTemp.length < 3){
-			br.close();
-			ips.close();
-			throw new InvalidPCenterInputFile(inputFile, "The first line contains less than three values.");
-		}
-
-		N = Integer.parseInt(sTemp[0]);
-		M = Integer.parseInt(sTemp[1]);
-		p = Integer.parseInt(sTemp[2]);
-
-		d = new double[N][M];
-		D = new TreeSet<>();
-		int clientNb = 1;
-
-		/* Read the next lines */
-		while ((ligne=br.readLine())!=null && clientNb <= M){
-			sTemp = ligne.split("\\s+");
-
-			if(sTemp.length < M){
-				br.close();
-				ips.close();
-				throw new InvalidPCenterInputFile(inputFile, "Line n°" + clientNb + " contains less than " + M + " values separated by spaces.");
-			}
-
-			for(int j = 0 ; j < M ; j++){
-				double cDouble = Double.parseDouble(sTemp[j]);
-				d[clientNb - 1][j] = cDouble;
-				D.add(cDouble);
-			}
-
-			clientNb++;			  
-
-		}
-
-		br.close();
-		ips.close();
-
-		if(clientNb - 1 < M)
-			throw new InvalidPCenterInputFile(inputFile, "The file only contains " + (clientNb-1) + " distances lines instead of " + M);
-
-//		System.out./ln(this);
+		this.instance = new PCenterInstance(inputFile);
 
 	}
 
 	/** Number of different values in the matrix -1 
 	 * (i.e., there are K+1 values in the distance matrix)
 	 */
-	public int K(){return D == null ? 0: D.size()-1;}
+	public int K(){return instance.K();}
 
 	@Override
 	public void createVariables() {
 
-		Iterator<Double> it = D.iterator();
-		it.next();
-
 		registerVariable(new Variable("kStar", 0, K()));
 
-		for(int i = 1 ; i <= M ; i++)
-			registerVariable(new Variable("y" + i, 0, 1));
+		y = new VariableFamily("y", 1, new int[] {instance.M});
+		registerFamily(y, 0, 1);
 
 	}
 
 	@Override
-	public String getConstraints() throws UnknownVariableName {
-
-		String output = "";
+	public void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
 		/* At least one factory */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
+		for(int j = 1 ; j <= instance.M ; j++)
+			builder.add(y.id(j)); 
 
-		output += portaName("y" + M) + " >= 1\n";
+		builder.emit(Sense.GE, 1);
 
-		/* At most M factories */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
+		/* Exactly p factories */
+		for(int j = 1 ; j <= instance.M ; j++)
+			builder.add(y.id(j)); 
 
-		output += portaName("y" + M) + " == " + p + "\n";
-//		output += portaName("y" + M) + " <= " + p + "\n";
+		builder.emit(Sense.EQ, instance.p);
 
 		/* Link between kStar and y variables */	
-		for(int i = 1 ; i <= N ; i++){
+		int kStar = variables.getId("kStar");
 
-			//			System.out.println("Client n°" + i );
-
-			Iterator<Double> it = D.iterator();
+		for(int i = 0 ; i < instance.N ; i++){
 
 			/* The first D value is not used in the formulation (it is just a constant in the objective) */
-			it.next();
-
-			List<String> previousYVariables = null;
-
-			for(int k = 1 ; k <= K() ; k++){
-
-				List<String> currentYVariables = new ArrayList<>();
-
-				/* Get the radius associated to variable zk */
-				Double currentD = it.next();
-
-				//				System.out.println("CurrentD: " + currentD);
-
-				for(int j = 1 ; j <= M ; j++){
-
-					if(d[i-1][j-1] < currentD)
-						currentYVariables.add("y" + j);
-				}
-
-				//				if(k != 1){
-				//					System.out.println("--\ncurrent y var: " + currentYVariables);
-				//					System.out.println("previous y var: " + previousYVariables);
-				//				}
+			for(int k = 2 ; k <= K() ; k++)
 
-				/* If the previous K contained less y variables */
-				if(k != 1 && currentYVariables.size() > previousYVariables.size()){
+				/* If the previous level contained less sites */
+				if(instance.coveredNb(i, k) > instance.coveredNb(i, k-1)){
+					for(int site: instance.coveringSites(i, k-1))
+						builder.add(k-1, y.id(site + 1));
 
-					for(String yVar: previousYVariables)
-						output += (k-1) + " " + portaName(yVar) + " + ";
-
-					output += portaName("kStar") + " >= " + (k-1) + "\n";	
-					
+					builder.add(kStar).emit(Sense.GE, k-1);
 				}
-				//				else if(k != 1)
-				//					System.out.println("z" + (k-1) + " >= 1 <- not added\n");
-
-				previousYVariables = currentYVariables;
-
-			}	
 
-			/* Add the last k inequality */
-			for(String yVar: previousYVariables)
-				output += K() + " " + portaName(yVar) + " + ";
+			/* Add the last level */
+			for(int site: instance.coveringSites(i, K()))
+				builder.add(K(), y.id(site + 1));
 
-			//			System.out.println("--\n" + previousYVariables);
-			//			System.out.println("z" + K() + " >= 1 <- added\n");
-			output += portaName("kStar") + " >= " + K() + "\n";	
-			
+			builder.add(kStar).emit(Sense.GE, K());
 		}
-
-
-
-		return output;
 	}
 
 	@Override
 	public String toString(){
-		String result = N + " " + M + " " + p + "\n";
-
-		for(int i = 0 ; i < N ; i++){
-			for(int j = 0 ; j < M ; j++)
-				result += d[i][j] + " ";
-			result += "\n";
-		}
-
-		return result;
+		return instance.toString();
 	}
 
 	public static void main(String[] args){
@@ -1,19 +1,15 @@
 package formulation.ongoingwork;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Iterator;
-import java.util.TreeSet;
 
 import exception.InvalidPCenterInputFile;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
-import formulation.AbstractFormulation;
-import formulation.Variable;
+import formulation.AbstractBuilderFormulation;
+import formulation.ConstraintBuilder;
+import formulation.LinearConstraint.Sense;
+import formulation.VariableFamily;
 import utils.Dates;
 
 /**
@@ -27,35 +23,18 @@ import utils.Dates;
  * @author zach
  *
  */
-public class PCenterPCSC extends AbstractFormulation {
+public class PCenterPCSC extends AbstractBuilderFormulation {
 
 	String inputFile;
 
+	/** Clients, sites and distances of the instance */
+	PCenterInstance instance;
 
-	/** Number of clients */
-	int N;
-
-	/** Number of potential sites */
-	int M;
-
-	/** Distance between the sites (lines) and the factories (columns) */
-	double[][] d;
-
-	/** Ordered value of the existing distances in <d> */
-	TreeSet<Double> D;
-
-	/** Maximal number of selected factories */
-	int p;
+	/** Variables zk (k in [1, K()]) and yj (j in [1, M]) */
+	VariableFamily z, y;
 
 	/**
-	 * Create a p-center formulation from an input file.
-	 * The input file format is:
-	 * - The first line contains 3 integers separated by a space, they respectively correspond to:
-	 * 		- The number of client N
-	 * 		- The number of factories M
-	 * 		- The value of p (I guess...)
-	 * - The N next lines contain M values such that the value on line i and column j is the distance between the client number i and the factory number j.
-	 * These values must be separated by spaces
+	 * Create a p-center formulation from an input file (see PCenterInstance for its format)
 	 * @param inputFile
 	 * @throws IOException 
 	 * @throws InvalidPCenterInputFile 
@@ -67,54 +46,7 @@ public class PCenterPCSC extends AbstractFormulation {
 		super();
 		
 		this.inputFile = inputFile;
-
-		InputStream ips=new FileInputStream(inputFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
-
-		/* Read the first line */
-		String ligne = br.readLine();
-		String[] sTemp = ligne.split(" ");
-
-		if(sTemp.length < 3){
-			br.close();
-			ips.close();
-			throw new InvalidPCenterInputFile(inputFile, "The first line contains less than three values.");
-		}
-
-		N = Integer.parseInt(sTemp[0]);
-		M = Integer.parseInt(sTemp[1]);
-		p = Integer.parseInt(sTemp[2]);
-
-		d = new double[N][M];
-		D = new TreeSet<>();
-		int clientNb = 1;
-
-		/* Read the next lines */
-		while ((ligne=br.readLine())!=null && clientNb <= M){
-			sTemp = ligne.split(" ");
-
-			if(sTemp.length < M){
-				br.close();
-				ips.close();
-				throw new InvalidPCenterInputFile(inputFile, "Line n°" + clientNb + " contains less than " + M + " values separated by spaces.");
-			}
-
-			for(int j = 0 ; j < M ; j++){
-				double cDouble = Double.parseDouble(sTemp[j]);
-				d[clientNb - 1][j] = cDouble;
-				D.add(cDouble);
-			}
-
-			clientNb++;			  
-
-		}
-
-		br.close();
-		ips.close();
-
-		if(clientNb - 1 < M)
-			throw new InvalidPCenterInputFile(inputFile, "The file only contains " + (clientNb-1) + " distances lines instead of " + M);
+		this.instance = new PCenterInstance(inputFile);
 
 		System.out.println(this);
 
@@ -123,87 +55,104 @@ public class PCenterPCSC extends AbstractFormulation {
 	/** Number of different values in the matrix -1 
 	 * (i.e., there are K+1 values in the distance matrix)
 	 */
-	public int K(){return D == null ? 0: D.size()-1;}
+	public int K(){return instance.K();}
 
 	@Override
 	public void createVariables() {
 
-		Iterator<Double> it = D.iterator();
-		it.next();
+		z = new VariableFamily("z", 1, new int[] {K()});
+		y = new VariableFamily("y", 1, new int[] {instance.M});
 
-		for(int i = 1; i <= K() ; i++){
-			registerVariable(new Variable("z" + i, 0, 1));
-			System.out.println("z" + i + ": distance: " + it.next()) ;
-		}
+		registerFamily(z, 0, 1);
 
-		for(int i = 1 ; i <= M ; i++)
-			registerVariable(new Variable("y" + i, 0, 1));
+		for(int i = 1; i <= K() ; i++)
+			System.out.println("z" + i + ": distance: " + instance.getDistance(i)) ;
+
+		registerFamily(y, 0, 1);
 
 	}
 
 	@Override
-	public String getConstraints() throws UnknownVariableName {
+	public void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
-		String output = "";
+		/* At least one factory and exactly p factories */
+		addSitesNbConstraints(builder, Sense.EQ);
 
-		/* At least one factory */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
+		/* Link between z and y variables: the sites closer than D^k to client i or zk (the first D value is not used in the
+		 * formulation, it is just a constant in the objective) */
+		for(int i = 0 ; i < instance.N ; i++)
+			for(int k = 1 ; k <= K() ; k++){
+				for(int site: instance.coveringSites(i, k))
+					builder.add(y.id(site + 1));
 
-		output += portaName("y" + M) + " >= 1\n";
+				builder.add(z.id(k)).emit(Sense.GE, 1);
+			}
+	}
 
-		/* At most M factories */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
+	/**
+	 * Add the constraints on the number of open sites (at least one and at most or exactly p)
+	 * @param builder
+	 * @param sense Operator of the constraint with p (Sense.LE or Sense.EQ)
+	 * @throws UnknownVariableName
+	 */
+	void addSitesNbConstraints(ConstraintBuilder builder, Sense sense) throws UnknownVariableName {
 
-		output += portaName("y" + M) + " == " + p + "\n";
-//		output += portaName("y" + M) + " <= " + p + "\n";
+		for(int j = 1 ; j <= instance.M ; j++)
+			builder.add(y.id(j));
 
-		/* Link between z and y variables */	
-		for(int i = 1 ; i <= N ; i++){
+		builder.emit(Sense.GE, 1);
 
-			Iterator<Double> it = D.iterator();
+		for(int j = 1 ; j <= instance.M ; j++)
+			builder.add(y.id(j));
 
-			/* The first D value is not used in the formulation (it is just a constant in the objective) */
-			it.next();
+		builder.emit(sense, instance.p);
+	}
 
-			for(int k = 1 ; k <= K() ; k++){
+	/**
+	 * Add the constraints z(k+1) <= zk
+	 * @param builder
+	 * @throws UnknownVariableName
+	 */
+	void addZOrderConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
-				/* Get the radius associated to variable zk */
-				Double currentD = it.next();
+		for(int k = 1 ; k < K() ; k++)
+			builder.add(z.id(k+1)).add(-1, z.id(k)).emit(Sense.LE, 0);
+	}
 
-				System.out.println("CurrentD: " + currentD);
+	/**
+	 * Add the link between the z and y variables of each client only for the levels after which the covering sites change
+	 * (and for the last level), the other constraints being dominated when the z variables are sorted
+	 * @param builder
+	 * @throws UnknownVariableName
+	 */
+	void addDominantLinkConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
-				for(int j = 1 ; j <= M ; j++){
+		if(K() < 1)
+			return;
 
-					if(d[i-1][j-1] < currentD){
-						output += portaName("y" + j) + " + ";
-						System.out.print("y" + j + " + ");
-					}
-				}
+		for(int i = 0 ; i < instance.N ; i++){
 
-				System.out.println("z" + k + " >= 1\n");
-				output += portaName("z" + k) + " >= 1\n";						
+			for(int k = 2 ; k <= K() ; k++)
 
-			}
-		}
+				/* If the previous level contained less sites */
+				if(instance.coveredNb(i, k) > instance.coveredNb(i, k-1)){
+					for(int site: instance.coveringSites(i, k-1))
+						builder.add(y.id(site + 1));
 
+					builder.add(z.id(k-1)).emit(Sense.GE, 1);
+				}
 
+			/* Add the last level */
+			for(int site: instance.coveringSites(i, K()))
+				builder.add(y.id(site + 1));
 
-		return output;
+			builder.add(z.id(K())).emit(Sense.GE, 1);
+		}
 	}
 
 	@Override
 	public String toString(){
-		String result = N + " " + M + " " + p + "\n";
-
-		for(int i = 0 ; i < N ; i++){
-			for(int j = 0 ; j < M ; j++)
-				result += d[i][j] + " ";
-			result += "\n";
-		}
-
-		return result;
+		return instance.toString();
 	}
 
 	public static void main(String[] args){
@@ -1,13 +1,12 @@
 package formulation.ongoingwork;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
 import exception.InvalidPCenterInputFile;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
+import formulation.ConstraintBuilder;
+import formulation.LinearConstraint.Sense;
 
 public class PCenterPCSCZOrdered extends PCenterPCSC{
 
@@ -18,85 +17,16 @@ public class PCenterPCSCZOrdered extends PCenterPCSC{
 
 
 	@Override
-	public String getConstraints() throws UnknownVariableName {
+	public void generateConstraints(ConstraintBuilder builder) throws UnknownVariableName {
 
-		String output = "";
-
-		/* At least one factory */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
-
-		output += portaName("y" + M) + " >= 1\n";
-
-		/* At most M factories */
-		for(int i = 1 ; i < M ; i++)
-			output += portaName("y" + i) + " + "; 
-
-		output += portaName("y" + M) + " <= " + p + "\n";
+		/* At least one factory and at most p factories */
+		addSitesNbConstraints(builder, Sense.LE);
 
 		/* The z variables are sorted */
-		for(int k = 1 ; k < K() ; k++)
-			output += portaName("z" + (k+1)) + " - " + portaName("z" + k) + " <= 0\n";
+		addZOrderConstraints(builder);
 
 		/* Link between z and y variables */	
-		for(int i = 1 ; i <= N ; i++){
-
-//			System.out.println("Client n°" + i );
-
-			Iterator<Double> it = D.iterator();
-
-			/* The first D value is not used in the formulation (it is just a constant in the objective) */
-			it.next();
-
-			List<String> previousYVariables = null;
-
-			for(int k = 1 ; k <= K() ; k++){
-
-				List<String> currentYVariables = new ArrayList<>();
-
-				/* Get the radius associated to variable zk */
-				Double currentD = it.next();
-
-//				System.out.println("CurrentD: " + currentD);
-
-				for(int j = 1 ; j <= M ; j++){
-
-					if(d[i-1][j-1] < currentD)
-						currentYVariables.add("y" + j);
-				}
-
-//				if(k != 1){
-//					System.out.println("--\ncurrent y var: " + currentYVariables);
-//					System.out.println("previous y var: " + previousYVariables);
-//				}
-
-				/* If the previous K contained less y variables */
-				if(k != 1 && currentYVariables.size() > previousYVariables.size()){
-
-					for(String yVar: previousYVariables)
-						output += portaName(yVar) + " + ";
-
-//					System.out.println("z" + (k-1) + " >= 1 <- added\n");
-					output += portaName("z" + (k-1)) + " >= 1\n";	
-				}
-//				else if(k != 1)
-//					System.out.println("z" + (k-1) + " >= 1 <- not added\n");
-
-				previousYVariables = currentYVariables;
-
-			}	
-
-			/* Add the last k inequality */
-			for(String yVar: previousYVariables)
-				output += portaName(yVar) + " + ";
-
-//			System.out.println("--\n" + previousYVariables);
-//			System.out.println("z" + K() + " >= 1 <- added\n");
-			output += portaName("z" + K()) + " >= 1\n";	
-
-		}
-
-		return output;
+		addDominantLinkConstraints(builder);
 	}
 
 	public static void main(String[] args){
@@ -7,6 +7,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -14,30 +17,97 @@ import exception.UnknownCommandException;
 
 
 public class Command {
+
+	/** Commands already found in the PATH */
+	private static Set<String> foundCommands = ConcurrentHashMap.newKeySet();
+	
+	/** Process currently run by execute() in each thread */
+	private static Map<Thread, Process> runningProcesses = new ConcurrentHashMap<>();
 	
+	/**
+	 * Output and exit status of a command
+	 */
+	public static class Result{
+
+		/** Terminal output of the command (standard output and standard error merged) */
+		public final String output;
+
+		/** Exit status of the command (128 + n if it has been killed by the signal n) */
+		public final int exitValue;
+
+		Result(String output, int exitValue){
+			this.output = output;
+			this.exitValue = exitValue;
+		}
+	}
+
 	/**
 	 * Execute a command
 	 * @param command The text of the command
-	 * @return The command output; null if an error occurred
+	 * @return The command output (standard output and standard error merged); null if an error occurred or if the thread is interrupted
 	 */
 	public static String execute(String command){
-		String result = "";
+
+		Result result = run(command);
+
+		return result == null ? null : result.output;
+	}
+
+	/**
+	 * Execute a command and get its exit status
+	 * @param command The text of the command
+	 * @return The output (standard output and standard error merged) and the exit status; null if an error occurred or if the thread is
+	 * interrupted
+	 */
+	public static Result run(String command){
+		String output = "";
         
-        Process p;
+        Thread thread = Thread.currentThread();
+        Process p = null;
         try {
-            p = Runtime.getRuntime().exec(command);
+            /* The error stream is merged so that the fatal errors of porta (e.g., an overflow) are in the output */
+            p = new ProcessBuilder(command.trim().split("\\s+")).redirectErrorStream(true).start();
+            runningProcesses.put(thread, p);
+
+            /* The process is registered before the test so that it is destroyed either here or by destroyProcessOf() */
+            if(thread.isInterrupted())
+            	return null;
+
             BufferedReader br = new BufferedReader(
                 new InputStreamReader(p.getInputStream()));
             
             String s = null;    
             while ((s = br.readLine()) != null)
-            	result += s + "\n";
+            	output += s + "\n";
                 
-            p.waitFor();
-            p.destroy();
-        } catch (Exception e) {result = null;}
-        
-        return result;
+            int exitValue = p.waitFor();
+
+            /* The output of a process destroyed by destroyProcessOf() is incomplete */
+            if(thread.isInterrupted())
+            	return null;
+
+            return new Result(output, exitValue);
+        } catch (Exception e) {return null;}
+        finally {
+        	runningProcesses.remove(thread);
+
+        	if(p != null)
+        		p.destroy();
+        }
+	}
+
+	/**
+	 * Interrupt a thread and destroy the process it runs with execute() (if any)
+	 * @param thread
+	 */
+	public static void destroyProcessOf(Thread thread) {
+
+		thread.interrupt();
+
+		Process p = runningProcesses.get(thread);
+
+		if(p != null)
+			p.destroyForcibly();
 	}
 	
 	/**
@@ -94,6 +164,10 @@ public class Command {
 	 */
 	public static void checkCommand(String command) throws UnknownCommandException, IOException, InterruptedException{
 
+		/* The PATH is only scanned the first time a command is found */
+		if(foundCommands.contains(command))
+			return;
+
 		boolean existsInPath = Stream.of(System.getenv("PATH").split(Pattern.quote(File.pathSeparator)))
 				.map(Paths::get)
 				.anyMatch(path -> Files.exists(path.resolve(command)));
@@ -101,6 +175,8 @@ public class Command {
 		if(!existsInPath) {
 			throw new UnknownCommandException(command);
 		}
+
+		foundCommands.add(command);
 	}
 	
 }
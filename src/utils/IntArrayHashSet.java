@@ -0,0 +1,178 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of int arrays of fixed length (e.g., integer points).
+ *
+ * The arrays are copied in a single primitive buffer and indexed by an open addressing hash table (linear probing),
+ * which avoids the creation of one object (and one boxed Integer per coordinate) for each element.
+ * @author zach
+ *
+ */
+public class IntArrayHashSet {
+
+	/** Length of the arrays */
+	int width;
+
+	/** Number of elements in the set */
+	int size;
+
+	/** Coordinates of the elements (element i is in positions [i * width, (i+1) * width[) */
+	int[] values;
+
+	/** Index of the element stored in each slot of the table; -1 if the slot is empty */
+	int[] table;
+
+	public IntArrayHashSet(int width) {
+		this(width, 16);
+	}
+
+	/**
+	 * @param width Length of the arrays
+	 * @param expectedSize Expected number of elements
+	 */
+	public IntArrayHashSet(int width, int expectedSize) {
+
+		this.width = width;
+
+		int capacity = 16;
+
+		while(capacity < 2 * expectedSize)
+			capacity *= 2;
+
+		table = new int[capacity];
+		Arrays.fill(table, -1);
+		values = new int[Math.max(1, expectedSize) * Math.max(1, width)];
+	}
+
+	/**
+	 * Add an array to the set
+	 * @param a
+	 * @return True if the array was not already in the set
+	 */
+	public boolean add(int[] a) {
+
+		int slot = find(a);
+
+		if(table[slot] != -1)
+			return false;
+
+		if((size + 1) * width > values.length)
+			values = Arrays.copyOf(values, Math.max(values.length * 2, (size + 1) * width));
+
+		System.arraycopy(a, 0, values, size * width, width);
+		table[slot] = size;
+		size++;
+
+		if(2 * size > table.length)
+			rehash();
+
+		return true;
+	}
+
+	/**
+	 * Test if an array is in the set
+	 * @param a
+	 * @return
+	 */
+	public boolean contains(int[] a) {
+		return table[find(a)] != -1;
+	}
+
+	/**
+	 * Get the index of an array in the set (the elements are indexed in their insertion order)
+	 * @param a
+	 * @return The index; -1 if the array is not in the set
+	 */
+	public int indexOf(int[] a) {
+		return table[find(a)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get an element of the set
+	 * @param index Index of the element (between 0 and size() - 1, in the insertion order)
+	 * @return A copy of the element
+	 */
+	public int[] get(int index) {
+		return Arrays.copyOfRange(values, index * width, (index + 1) * width);
+	}
+
+	/**
+	 * Get all the elements of the set in their insertion order
+	 * @return
+	 */
+	public List<int[]> toList(){
+
+		List<int[]> result = new ArrayList<>(size);
+
+		for(int i = 0; i < size; i++)
+			result.add(get(i));
+
+		return result;
+	}
+
+	/**
+	 * Find the slot of an array in the table
+	 * @param a
+	 * @return The slot which contains the array if it is in the set; the empty slot in which it should be added otherwise
+	 */
+	private int find(int[] a) {
+
+		int mask = table.length - 1;
+		int slot = hash(a, 0, a.length) & mask;
+
+		while(table[slot] != -1 && !isEqual(table[slot], a))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	private boolean isEqual(int index, int[] a) {
+
+		int offset = index * width;
+
+		for(int i = 0; i < width; i++)
+			if(values[offset + i] != a[i])
+				return false;
+
+		return true;
+	}
+
+	private void rehash() {
+
+		table = new int[table.length * 2];
+		Arrays.fill(table, -1);
+		int mask = table.length - 1;
+
+		for(int index = 0; index < size; index++) {
+			int slot = hash(values, index * width, (index + 1) * width) & mask;
+
+			while(table[slot] != -1)
+				slot = (slot + 1) & mask;
+
+			table[slot] = index;
+		}
+	}
+
+	private static int hash(int[] a, int from, int to) {
+
+		int h = 0x9E3779B9;
+
+		for(int i = from; i < to; i++)
+			h = (h ^ a[i]) * 0x01000193;
+
+		/* Final mixing so that the low bits depend on all the coordinates */
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+
+		return h;
+	}
+}
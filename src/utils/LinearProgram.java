@@ -0,0 +1,303 @@
+package utils;
+
+/**
+ * Exact linear program in standard form: min c.x s.t. A x = b, x >= 0.
+ *
+ * The program is solved by a two-phase primal simplex on a dense tableau of rationals. Bland's rule is used to choose the entering and
+ * the leaving variables, which guarantees the termination of the algorithm. Since all the computations are exact, the result can be
+ * used as a certificate (e.g., to prove that a point is not a vertex of a polytope).
+ * @author zach
+ *
+ */
+public class LinearProgram {
+
+	public enum Status{OPTIMAL, INFEASIBLE, UNBOUNDED}
+
+	/** Number of constraints */
+	int m;
+
+	/** Number of variables */
+	int n;
+
+	Rational[][] A;
+	Rational[] b;
+	Rational[] c;
+
+	/** Tableau (m rows; n columns for the variables, m columns for the artificial variables and one column for the right-hand side) */
+	Rational[][] tableau;
+
+	/** Variable associated to each row of the tableau */
+	int[] basis;
+
+	/** Sign by which each constraint is multiplied so that its right-hand side is non-negative */
+	int[] sign;
+
+	Status status;
+	Rational[] solution;
+	Rational[] duals;
+	Rational[] farkas;
+	Rational objectiveValue;
+
+	/**
+	 * @param A Matrix of the constraints (m x n)
+	 * @param b Right-hand side of the constraints
+	 * @param c Objective (null if the only purpose is to test the feasibility)
+	 */
+	public LinearProgram(Rational[][] A, Rational[] b, Rational[] c) {
+		this.A = A;
+		this.b = b;
+		this.m = b.length;
+		this.n = m > 0 ? A[0].length : c == null ? 0 : c.length;
+
+		this.c = new Rational[n];
+
+		for(int j = 0; j < n; j++)
+			this.c[j] = c == null ? Rational.ZERO : c[j];
+	}
+
+	public LinearProgram(long[][] A, long[] b, long[] c) {
+		this(toRational(A), toRational(b), c == null ? null : toRational(c));
+	}
+
+	/**
+	 * Solve the linear program
+	 * @return The status of the program (the solution, the objective value and the duals are only available if it is OPTIMAL)
+	 */
+	public Status solve() {
+
+		int columns = n + m + 1;
+		int rhs = n + m;
+
+		tableau = new Rational[m][columns];
+		basis = new int[m];
+		sign = new int[m];
+
+		for(int i = 0; i < m; i++) {
+			sign[i] = b[i].signum() < 0 ? -1 : 1;
+
+			for(int j = 0; j < n; j++)
+				tableau[i][j] = sign[i] < 0 ? A[i][j].negate() : A[i][j];
+
+			for(int j = n; j < rhs; j++)
+				tableau[i][j] = j - n == i ? Rational.ONE : Rational.ZERO;
+
+			tableau[i][rhs] = sign[i] < 0 ? b[i].negate() : b[i];
+			basis[i] = n + i;
+		}
+
+		/* Phase 1: minimize the sum of the artificial variables */
+		Rational[] phase1Cost = new Rational[n + m];
+
+		for(int j = 0; j < n + m; j++)
+			phase1Cost[j] = j < n ? Rational.ZERO : Rational.ONE;
+
+		iterate(phase1Cost, n);
+
+		if(value(phase1Cost).signum() > 0) {
+
+			/* The duals of phase 1 provide a Farkas certificate of infeasibility */
+			farkas = duals(phase1Cost);
+			status = Status.INFEASIBLE;
+			return status;
+		}
+
+		/* Remove the artificial variables from the basis when possible (the others correspond to redundant constraints) */
+		for(int i = 0; i < m; i++)
+			if(basis[i] >= n)
+				for(int j = 0; j < n; j++)
+					if(tableau[i][j].signum() != 0) {
+						pivot(i, j);
+						break;
+					}
+
+		/* Phase 2: minimize the objective (the artificial variables can no longer enter the basis) */
+		Rational[] phase2Cost = new Rational[n + m];
+
+		for(int j = 0; j < n + m; j++)
+			phase2Cost[j] = j < n ? c[j] : Rational.ZERO;
+
+		if(!iterate(phase2Cost, n)) {
+			status = Status.UNBOUNDED;
+			return status;
+		}
+
+		solution = new Rational[n];
+
+		for(int j = 0; j < n; j++)
+			solution[j] = Rational.ZERO;
+
+		for(int i = 0; i < m; i++)
+			if(basis[i] < n)
+				solution[basis[i]] = tableau[i][rhs];
+
+		objectiveValue = value(phase2Cost);
+		duals = duals(phase2Cost);
+		status = Status.OPTIMAL;
+
+		return status;
+	}
+
+	/**
+	 * Perform simplex iterations until an optimal basis is obtained
+	 * @param cost Cost of each column
+	 * @param enteringLimit Only the columns lower than this value can enter the basis
+	 * @return False if the program is unbounded
+	 */
+	private boolean iterate(Rational[] cost, int enteringLimit) {
+
+		int rhs = n + m;
+		boolean[] isBasic = new boolean[n + m];
+
+		for(int i = 0; i < m; i++)
+			isBasic[basis[i]] = true;
+
+		while(true) {
+
+			/* Bland's rule: the entering column is the first one with a negative reduced cost */
+			int entering = -1;
+
+			for(int j = 0; j < enteringLimit && entering == -1; j++)
+				if(!isBasic[j] && reducedCost(cost, j).signum() < 0)
+					entering = j;
+
+			if(entering == -1)
+				return true;
+
+			/* Ratio test (ties are broken by choosing the basic variable with the lowest index) */
+			int leaving = -1;
+			Rational bestRatio = null;
+
+			for(int i = 0; i < m; i++)
+				if(tableau[i][entering].signum() > 0) {
+					Rational ratio = tableau[i][rhs].divide(tableau[i][entering]);
+					int comparison = bestRatio == null ? -1 : ratio.compareTo(bestRatio);
+
+					if(comparison < 0 || comparison == 0 && basis[i] < basis[leaving]) {
+						bestRatio = ratio;
+						leaving = i;
+					}
+				}
+
+			if(leaving == -1)
+				return false;
+
+			isBasic[basis[leaving]] = false;
+			isBasic[entering] = true;
+			pivot(leaving, entering);
+		}
+	}
+
+	private Rational reducedCost(Rational[] cost, int column) {
+
+		Rational result = cost[column];
+
+		for(int i = 0; i < m; i++)
+			if(tableau[i][column].signum() != 0 && cost[basis[i]].signum() != 0)
+				result = result.subtract(cost[basis[i]].multiply(tableau[i][column]));
+
+		return result;
+	}
+
+	private void pivot(int row, int column) {
+
+		Rational[] pivotRow = tableau[row];
+		Rational pivot = pivotRow[column];
+
+		if(!pivot.equals(Rational.ONE))
+			for(int j = 0; j < pivotRow.length; j++)
+				if(pivotRow[j].signum() != 0)
+					pivotRow[j] = pivotRow[j].divide(pivot);
+
+		for(int i = 0; i < m; i++) {
+			Rational factor = tableau[i][column];
+
+			if(i != row && factor.signum() != 0)
+				for(int j = 0; j < pivotRow.length; j++)
+					if(pivotRow[j].signum() != 0)
+						tableau[i][j] = tableau[i][j].subtract(factor.multiply(pivotRow[j]));
+		}
+
+		basis[row] = column;
+	}
+
+	private Rational value(Rational[] cost) {
+
+		Rational result = Rational.ZERO;
+
+		for(int i = 0; i < m; i++)
+			if(cost[basis[i]].signum() != 0)
+				result = result.add(cost[basis[i]].multiply(tableau[i][n + m]));
+
+		return result;
+	}
+
+	/**
+	 * Compute the duals of the original constraints (the columns of the artificial variables contain the inverse of the basis)
+	 */
+	private Rational[] duals(Rational[] cost) {
+
+		Rational[] y = new Rational[m];
+
+		for(int k = 0; k < m; k++) {
+			Rational value = Rational.ZERO;
+
+			for(int i = 0; i < m; i++)
+				if(cost[basis[i]].signum() != 0 && tableau[i][n + k].signum() != 0)
+					value = value.add(cost[basis[i]].multiply(tableau[i][n + k]));
+
+			y[k] = sign[k] < 0 ? value.negate() : value;
+		}
+
+		return y;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/** Optimal solution (null if the status is not OPTIMAL) */
+	public Rational[] getSolution() {
+		return solution;
+	}
+
+	/** Optimal objective value (null if the status is not OPTIMAL) */
+	public Rational getObjectiveValue() {
+		return objectiveValue;
+	}
+
+	/**
+	 * Optimal dual solution y (null if the status is not OPTIMAL).
+	 * It satisfies c - y A >= 0 and y b = c x*.
+	 */
+	public Rational[] getDuals() {
+		return duals;
+	}
+
+	/**
+	 * Certificate of infeasibility y (null if the status is not INFEASIBLE).
+	 * It satisfies y A <= 0 and y b > 0.
+	 */
+	public Rational[] getFarkasCertificate() {
+		return farkas;
+	}
+
+	public static Rational[] toRational(long[] a) {
+
+		Rational[] result = new Rational[a.length];
+
+		for(int i = 0; i < a.length; i++)
+			result[i] = Rational.valueOf(a[i]);
+
+		return result;
+	}
+
+	public static Rational[][] toRational(long[][] a) {
+
+		Rational[][] result = new Rational[a.length][];
+
+		for(int i = 0; i < a.length; i++)
+			result[i] = toRational(a[i]);
+
+		return result;
+	}
+}
@@ -0,0 +1,134 @@
+package utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Exact rational number (immutable). The denominator is always positive and coprime with the numerator.
+ * @author zach
+ *
+ */
+public class Rational implements Comparable<Rational>{
+
+	public static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+	public static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+	BigInteger numerator;
+	BigInteger denominator;
+
+	private Rational(BigInteger numerator, BigInteger denominator) {
+		this.numerator = numerator;
+		this.denominator = denominator;
+	}
+
+	public static Rational valueOf(long value) {
+		return value == 0 ? ZERO : value == 1 ? ONE : new Rational(BigInteger.valueOf(value), BigInteger.ONE);
+	}
+
+	public static Rational valueOf(long numerator, long denominator) {
+		return valueOf(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+	}
+
+	public static Rational valueOf(BigInteger numerator, BigInteger denominator) {
+
+		if(denominator.signum() == 0)
+			throw new ArithmeticException("Division by zero");
+
+		if(denominator.signum() < 0) {
+			numerator = numerator.negate();
+			denominator = denominator.negate();
+		}
+
+		BigInteger gcd = numerator.gcd(denominator);
+
+		if(!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+			numerator = numerator.divide(gcd);
+			denominator = denominator.divide(gcd);
+		}
+
+		return new Rational(numerator, denominator);
+	}
+
+	/**
+	 * Convert a decimal number into a rational (e.g., 0.25 is converted into 1/4)
+	 * @param value
+	 * @return
+	 */
+	public static Rational valueOf(double value) {
+		BigDecimal d = new BigDecimal(Double.toString(value));
+		return d.scale() > 0 ? valueOf(d.unscaledValue(), BigInteger.TEN.pow(d.scale())) : valueOf(d.toBigIntegerExact(), BigInteger.ONE);
+	}
+
+	public BigInteger getNumerator() {
+		return numerator;
+	}
+
+	public BigInteger getDenominator() {
+		return denominator;
+	}
+
+	public Rational add(Rational r) {
+
+		if(r.signum() == 0)
+			return this;
+		if(signum() == 0)
+			return r;
+
+		if(denominator.equals(r.denominator))
+			return valueOf(numerator.add(r.numerator), denominator);
+
+		return valueOf(numerator.multiply(r.denominator).add(r.numerator.multiply(denominator)), denominator.multiply(r.denominator));
+	}
+
+	public Rational subtract(Rational r) {
+		return add(r.negate());
+	}
+
+	public Rational multiply(Rational r) {
+
+		if(signum() == 0 || r.signum() == 0)
+			return ZERO;
+
+		return valueOf(numerator.multiply(r.numerator), denominator.multiply(r.denominator));
+	}
+
+	public Rational divide(Rational r) {
+		return valueOf(numerator.multiply(r.denominator), denominator.multiply(r.numerator));
+	}
+
+	public Rational negate() {
+		return new Rational(numerator.negate(), denominator);
+	}
+
+	public int signum() {
+		return numerator.signum();
+	}
+
+	public boolean isInteger() {
+		return denominator.equals(BigInteger.ONE);
+	}
+
+	public double doubleValue() {
+		return numerator.doubleValue() / denominator.doubleValue();
+	}
+
+	@Override
+	public int compareTo(Rational r) {
+		return numerator.multiply(r.denominator).compareTo(r.numerator.multiply(denominator));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Rational && numerator.equals(((Rational)o).numerator) && denominator.equals(((Rational)o).denominator);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * numerator.hashCode() + denominator.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return isInteger() ? numerator.toString() : numerator + "/" + denominator;
+	}
+}
@@ -0,0 +1,46 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted at the end of each stage of an analysis (see StageProfiler).
+ * The event is disabled (and nearly free) when no recording is active, e.g., enable it with:
+ * java -XX:StartFlightRecording=filename=analysis.jfr ...
+ * @author zach
+ *
+ */
+@Name("porta.Stage")
+@Label("Analysis Stage")
+@Category({"porta-java"})
+@Description("Stage of the analysis of a polytope (Java generation, porta command or conversion)")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+	@Label("Stage")
+	public String stage;
+
+	@Label("Variables")
+	public int variables;
+
+	@Label("Constraints")
+	@Description("Number of constraints of the input formulation (-1 if not applicable)")
+	public long constraints = -1;
+
+	@Label("Points")
+	@Description("Number of points of the input or output .poi file (-1 if not applicable)")
+	public long points = -1;
+
+	@Label("Facets")
+	@Description("Number of inequalities of the output .ieq file (-1 if not applicable)")
+	public long facets = -1;
+
+	@Label("Bytes Written")
+	@DataAmount
+	public long bytesWritten;
+}
@@ -0,0 +1,182 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measure of the time spent in each stage of an analysis.
+ *
+ * Each measure emits a StageEvent for Java Flight Recorder and is added to a summary (number of runs, total time and bytes written per
+ * stage). The sizes of the files (numbers of points, constraints and facets) are only counted if the event is recorded.
+ * The measures can be taken concurrently.
+ * @author zach
+ *
+ */
+public class StageProfiler {
+
+	/**
+	 * Summary of the measures of a stage
+	 */
+	static class Summary{
+		long runsNb;
+		long time;
+		long bytesWritten;
+	}
+
+	/**
+	 * Measure of one run of a stage (closing it ends the measure)
+	 */
+	public class Measure implements AutoCloseable{
+
+		StageEvent event = new StageEvent();
+		long start = System.nanoTime();
+
+		Measure(String stage, int variablesNb){
+			event.stage = stage;
+			event.variables = variablesNb;
+			event.begin();
+		}
+
+		/**
+		 * Test if the event of this measure is recorded by Java Flight Recorder
+		 * @return
+		 */
+		public boolean isRecorded() {
+			return event.isEnabled();
+		}
+
+		/**
+		 * Set the input file of the stage (its constraints or its points are counted if the event is recorded)
+		 * @param file Path of a .ieq or a .poi file
+		 * @return The measure
+		 */
+		public Measure input(String file) {
+
+			if(isRecorded()) {
+				if(file.endsWith(".ieq"))
+					event.constraints = countSectionLines(file, "INEQUALITIES_SECTION");
+				else if(file.endsWith(".poi"))
+					event.points = countSectionLines(file, "CONV_SECTION");
+			}
+
+			return this;
+		}
+
+		/**
+		 * Set the output file of the stage (its size is added to the bytes written and, if the event is recorded, its points or its
+		 * facets are counted)
+		 * @param file Path of the file
+		 * @return The measure
+		 */
+		public Measure output(String file) {
+
+			event.bytesWritten += new File(file).length();
+
+			if(isRecorded()) {
+				if(file.endsWith(".ieq"))
+					event.facets = countSectionLines(file, "INEQUALITIES_SECTION");
+				else if(file.endsWith(".poi"))
+					event.points = countSectionLines(file, "CONV_SECTION");
+			}
+
+			return this;
+		}
+
+		/**
+		 * Set the terminal output of a stage which does not write a file (its size is added to the bytes written)
+		 * @param text The output; null if the stage failed
+		 * @return The measure
+		 */
+		public Measure outputText(String text) {
+
+			if(text != null)
+				event.bytesWritten += text.length();
+
+			return this;
+		}
+
+		@Override
+		public void close() {
+
+			event.commit();
+
+			Summary summary = summaries.computeIfAbsent(event.stage, s -> new Summary());
+
+			synchronized(summary) {
+				summary.runsNb++;
+				summary.time += System.nanoTime() - start;
+				summary.bytesWritten += event.bytesWritten;
+			}
+		}
+	}
+
+	/** Summary of each stage indexed by its name */
+	Map<String, Summary> summaries = new ConcurrentHashMap<>();
+
+	/**
+	 * Start the measure of a stage
+	 * @param stage Name of the stage
+	 * @param variablesNb Number of variables of the polytope
+	 * @return
+	 */
+	public Measure start(String stage, int variablesNb) {
+		return new Measure(stage, variablesNb);
+	}
+
+	/**
+	 * Remove all the measures
+	 */
+	public void reset() {
+		summaries.clear();
+	}
+
+	/**
+	 * Get the summary of the measures (one line per stage)
+	 * @return
+	 */
+	public String report() {
+
+		StringBuilder sb = new StringBuilder();
+
+		summaries.entrySet().stream()
+		.sorted((e1, e2) -> Long.compare(e2.getValue().time, e1.getValue().time))
+		.forEach(e -> sb.append(String.format("%-22s runs: %4d, time: %8dms, bytes written: %d%n", e.getKey(), e.getValue().runsNb, e.getValue().time / 1000000, e.getValue().bytesWritten)));
+
+		return sb.toString();
+	}
+
+	/**
+	 * Count the non-empty lines of a section of a porta file
+	 * @param file Path of the file
+	 * @param section Name of the section
+	 * @return The number of lines; -1 if the file cannot be read
+	 */
+	static long countSectionLines(String file, String section) {
+
+		long count = 0;
+		boolean isInSection = false;
+
+		try(BufferedReader br = new BufferedReader(new FileReader(file))) {
+			String line;
+
+			while((line = br.readLine()) != null) {
+				line = line.trim();
+
+				if(line.startsWith(section))
+					isInSection = true;
+				else if(line.startsWith("END") || line.endsWith("_SECTION") || line.startsWith("LOWER_BOUNDS") || line.startsWith("UPPER_BOUNDS"))
+					isInSection = false;
+				else if(isInSection && !line.isEmpty())
+					count++;
+			}
+		} catch(IOException e) {
+			return -1;
+		}
+
+		return count;
+	}
+}
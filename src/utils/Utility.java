@@ -1,5 +1,11 @@
 package utils;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 public class Utility {
 	
 	public static final double TOL = 1E-6;
@@ -8,4 +14,26 @@ public class Utility {
 		return Math.abs(d - Math.round(d)) < TOL;
 	}
 
+	/**
+	 * Compute the SHA-256 hash of the content of a file
+	 * @param file Path of the file
+	 * @return The hash in hexadecimal
+	 * @throws IOException
+	 */
+	public static String hashFile(String file) throws IOException {
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(Paths.get(file)));
+			StringBuilder sb = new StringBuilder();
+
+			for(byte b: digest)
+				sb.append(String.format("%02x", b));
+
+			return sb.toString();
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
 }